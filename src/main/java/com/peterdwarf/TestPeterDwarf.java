@@ -2,6 +2,7 @@ package com.peterdwarf;
 
 import java.io.File;
 import java.util.Enumeration;
+import java.util.Hashtable;
 import java.util.Vector;
 
 import com.peterdwarf.dwarf.CompileUnit;
@@ -45,13 +46,14 @@ public class TestPeterDwarf {
 				System.out.printf("Abbrev Offset: 0x%x\n", compileUnit.offset);
 				System.out.println("Pointer Size: " + compileUnit.addr_size);
 
-				for (DebugInfoEntry debugInfoEntry : compileUnit.debugInfoEntries) {
+				for (DebugInfoEntry debugInfoEntry : compileUnit.getDebugInfoEntries()) {
 					System.out.println("<" + debugInfoEntry.position + "> Abbrev Number: " + debugInfoEntry.abbrevNo + " (" + debugInfoEntry.name + ")");
 
-					Enumeration<String> e = debugInfoEntry.debugInfoAbbrevEntries.keys();
+					Hashtable<String, DebugInfoAbbrevEntry> debugInfoAbbrevEntries = debugInfoEntry.getDebugInfoAbbrevEntries();
+					Enumeration<String> e = debugInfoAbbrevEntries.keys();
 					while (e.hasMoreElements()) {
 						String key = e.nextElement();
-						DebugInfoAbbrevEntry debugInfoAbbrevEntry = debugInfoEntry.debugInfoAbbrevEntries.get(key);
+						DebugInfoAbbrevEntry debugInfoAbbrevEntry = debugInfoAbbrevEntries.get(key);
 						if (debugInfoAbbrevEntry.value == null) {
 							System.out.printf("<%x>\t%s\tnull\n", debugInfoAbbrevEntry.position, debugInfoAbbrevEntry.name);
 						} else if (debugInfoAbbrevEntry.value instanceof String) {
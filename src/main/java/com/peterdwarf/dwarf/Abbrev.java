@@ -3,11 +3,96 @@ package com.peterdwarf.dwarf;
 import java.util.Vector;
 
 public class Abbrev {
+	// attribute codes below this are looked up through attributeIndex, the rest by a scan
+	private static final int STANDARD_AT_LIMIT = 0x90;
+
 	public int number;
 	public int tag;
+	public String tagName;
 	public boolean has_children;
 	public Vector<AbbrevEntry> entries = new Vector<AbbrevEntry>();
 
+	// filled by prepare() once entries is complete
+	public int ats[];
+	public int forms[];
+	private byte attributeIndex[];
+	private volatile int fixedOffsets[];
+
+	/**
+	 * Builds the lookup tables for the attribute list, call it after the last
+	 * entry has been added.
+	 */
+	public void prepare() {
+		tagName = Definition.getTagName(tag);
+		int size = entries.size();
+		ats = new int[size];
+		forms = new int[size];
+		int maxStandardAt = -1;
+		for (int x = 0; x < size; x++) {
+			AbbrevEntry entry = entries.get(x);
+			entry.atName = Definition.getATName(entry.at);
+			if (entry.atName == null) {
+				entry.atName = "Unknown AT value " + entry.at;
+			}
+			entry.formName = Definition.getFormName(entry.form);
+			ats[x] = entry.at;
+			forms[x] = entry.form;
+			if (entry.at < STANDARD_AT_LIMIT && entry.at > maxStandardAt) {
+				maxStandardAt = entry.at;
+			}
+		}
+		// the index holds position + 1 in a byte, longer lists are always scanned
+		attributeIndex = new byte[size < Byte.MAX_VALUE ? maxStandardAt + 1 : 0];
+		for (int x = size - 1; x >= 0 && size < Byte.MAX_VALUE; x--) {
+			if (ats[x] < STANDARD_AT_LIMIT) {
+				attributeIndex[ats[x]] = (byte) (x + 1);
+			}
+		}
+	}
+
+	/**
+	 * Position of the attribute in the entry list, or -1 if this abbrev does
+	 * not have it.
+	 */
+	public int indexOf(int at) {
+		if (at < STANDARD_AT_LIMIT && ats.length < Byte.MAX_VALUE) {
+			return at < attributeIndex.length ? attributeIndex[at] - 1 : -1;
+		}
+		for (int x = 0; x < ats.length; x++) {
+			if (ats[x] == at) {
+				return x;
+			}
+		}
+		return -1;
+	}
+
+	/**
+	 * Byte offset of every attribute from the start of the attribute data,
+	 * -1 from the first variable sized form on. Sizes of addr, strp and
+	 * ref_addr depend on the unit, so the table is kept for the last unit
+	 * layout asked for; the key is stored in the last slot so the table and
+	 * its key are published together.
+	 */
+	public int[] getFixedOffsets(CompileUnit cu) {
+		int key = cu.addr_size | cu.offset_size << 8 | cu.version << 16;
+		int offsets[] = fixedOffsets;
+		if (offsets != null && offsets[ats.length] == key) {
+			return offsets;
+		}
+		offsets = new int[ats.length + 1];
+		int offset = 0;
+		for (int x = 0; x < ats.length; x++) {
+			offsets[x] = offset;
+			if (offset != -1) {
+				int size = DebugInfoTable.fixedSize(forms[x], cu);
+				offset = size == -1 ? -1 : offset + size;
+			}
+		}
+		offsets[ats.length] = key;
+		fixedOffsets = offsets;
+		return offsets;
+	}
+
 	public String toString() {
 		return number + ": " + Definition.getTagName(tag) + ", " + (has_children ? "has children" : "no children");
 	}
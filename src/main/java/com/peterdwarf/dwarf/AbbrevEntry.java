@@ -3,4 +3,6 @@ package com.peterdwarf.dwarf;
 public class AbbrevEntry {
 	public int at;
 	public int form;
+	public String atName;
+	public String formName;
 }
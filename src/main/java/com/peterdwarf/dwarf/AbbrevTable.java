@@ -0,0 +1,102 @@
+package com.peterdwarf.dwarf;
+
+import java.nio.ByteBuffer;
+import java.util.LinkedHashMap;
+
+/**
+ * One abbreviation table of .debug_abbrev, the abbrevs of the units whose
+ * abbrev_offset points at it. Codes are almost always 1..n, so get() is an
+ * array index; a table with codes far above its size falls back to the map.
+ * Tables are immutable once read and may be shared by units and files with
+ * byte identical tables.
+ */
+public class AbbrevTable {
+	// code to abbrev in section order
+	public LinkedHashMap<Integer, Abbrev> abbrevs = new LinkedHashMap<Integer, Abbrev>();
+	private Abbrev byCode[];
+
+	/**
+	 * Reads the table at the buffer's position up to and including its
+	 * terminating 0 code, null if the section ends first.
+	 */
+	public static AbbrevTable read(ByteBuffer b) {
+		AbbrevTable table = new AbbrevTable();
+		while (b.hasRemaining()) {
+			int number = (int) DwarfLib.getULEB128(b);
+			if (number == 0) {
+				table.prepare();
+				return table;
+			}
+			Abbrev abbrev = new Abbrev();
+			abbrev.number = number;
+			abbrev.tag = (int) DwarfLib.getULEB128(b);
+			abbrev.has_children = b.get() == Definition.DW_CHILDREN_yes;
+			while (true) {
+				int at = (int) DwarfLib.getULEB128(b);
+				int form = (int) DwarfLib.getULEB128(b);
+				if (at == 0 && form == 0) {
+					break;
+				}
+				AbbrevEntry entry = new AbbrevEntry();
+				entry.at = at;
+				entry.form = form;
+				abbrev.entries.add(entry);
+			}
+			abbrev.prepare();
+			table.abbrevs.put(number, abbrev);
+		}
+		return null;
+	}
+
+	/**
+	 * Moves past the table at the buffer's position like read() without
+	 * building it, false if the section ends first.
+	 */
+	public static boolean skip(ByteBuffer b) {
+		while (b.hasRemaining()) {
+			if (DwarfLib.getULEB128(b) == 0) {
+				return true;
+			}
+			DwarfLib.getULEB128(b);
+			b.get();
+			while (true) {
+				long at = DwarfLib.getULEB128(b);
+				long form = DwarfLib.getULEB128(b);
+				if (at == 0 && form == 0) {
+					break;
+				}
+			}
+		}
+		return false;
+	}
+
+	private void prepare() {
+		int max = 0;
+		for (Integer code : abbrevs.keySet()) {
+			max = Math.max(max, code);
+		}
+		if (max > abbrevs.size() * 2 + 64) {
+			return;
+		}
+		byCode = new Abbrev[max + 1];
+		for (Abbrev abbrev : abbrevs.values()) {
+			if (abbrev.number > 0) {
+				byCode[abbrev.number] = abbrev;
+			}
+		}
+	}
+
+	/**
+	 * The abbrev with a code, null if the table has none.
+	 */
+	public Abbrev get(int code) {
+		if (byCode != null) {
+			return code > 0 && code < byCode.length ? byCode[code] : null;
+		}
+		return abbrevs.get(code);
+	}
+
+	public int size() {
+		return abbrevs.size();
+	}
+}
@@ -0,0 +1,177 @@
+package com.peterdwarf.dwarf;
+
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+/**
+ * A bounded cache of lookup results by address, for the few hot addresses
+ * that make up most of a profile. Entries are immutable and kept in an open
+ * addressed table keyed by the primitive address, so a read is a probe
+ * without locks or allocation. Inserts evict with the CLOCK policy: every
+ * hit marks its entry, the hand skips and clears marked entries and evicts
+ * the first unmarked one. Null results are cached too. Values are shared
+ * by every caller, store unmodifiable ones.
+ */
+public class AddressCache<V> {
+	public interface Loader<V> {
+		V load(long address);
+	}
+
+	static class Entry<V> {
+		final long address;
+		final V value;
+		volatile boolean referenced;
+
+		Entry(long address, V value) {
+			this.address = address;
+			this.value = value;
+		}
+	}
+
+	// longs from one counter stripe to the next, keeps stripes on separate cache lines
+	private static final int PAD = 8;
+
+	public final int capacity;
+
+	private Loader<V> loader;
+	// at least twice capacity slots, so probes always end at an empty one; only changed under the lock
+	private AtomicReferenceArray<Entry<V>> table;
+	private int mask;
+	// the clock, filled up to count, hand is the next eviction candidate
+	private Entry<V> slots[];
+	private int count;
+	private int hand;
+	private int stripes;
+	private AtomicLongArray hits;
+	private AtomicLongArray misses;
+
+	@SuppressWarnings({ "unchecked", "rawtypes" })
+	public AddressCache(int capacity, Loader<V> loader) {
+		this.capacity = Math.max(1, capacity);
+		this.loader = loader;
+		int size = Integer.highestOneBit(this.capacity) * 4;
+		table = new AtomicReferenceArray<Entry<V>>(size);
+		mask = size - 1;
+		slots = new Entry[this.capacity];
+		stripes = Integer.highestOneBit(Math.min(64, Runtime.getRuntime().availableProcessors()) * 2 - 1);
+		hits = new AtomicLongArray(stripes * PAD);
+		misses = new AtomicLongArray(stripes * PAD);
+	}
+
+	/**
+	 * The cached result for an address, loaded and cached on a miss. Two
+	 * threads missing the same address may both load it, the first insert
+	 * wins. A read racing an eviction may miss an entry that stays cached,
+	 * it then loads the value again.
+	 */
+	public V get(long address) {
+		for (int x = index(address);; x = (x + 1) & mask) {
+			Entry<V> entry = table.get(x);
+			if (entry == null) {
+				break;
+			}
+			if (entry.address == address) {
+				// only write when needed, keeps hot entries' cache lines shared
+				if (!entry.referenced) {
+					entry.referenced = true;
+				}
+				hits.getAndIncrement(stripe());
+				return entry.value;
+			}
+		}
+		misses.getAndIncrement(stripe());
+		return put(new Entry<V>(address, loader.load(address))).value;
+	}
+
+	private synchronized Entry<V> put(Entry<V> entry) {
+		int x = index(entry.address);
+		for (Entry<V> existing; (existing = table.get(x)) != null; x = (x + 1) & mask) {
+			if (existing.address == entry.address) {
+				return existing;
+			}
+		}
+		if (count < capacity) {
+			slots[count++] = entry;
+		} else {
+			while (slots[hand].referenced) {
+				slots[hand].referenced = false;
+				hand = (hand + 1) % capacity;
+			}
+			remove(slots[hand].address);
+			slots[hand] = entry;
+			hand = (hand + 1) % capacity;
+			// removing may have moved entries into the probe path
+			x = index(entry.address);
+			while (table.get(x) != null) {
+				x = (x + 1) & mask;
+			}
+		}
+		table.set(x, entry);
+		return entry;
+	}
+
+	// backward shift deletion, entries after the hole move up if the hole is on their probe path
+	private void remove(long address) {
+		int hole = index(address);
+		while (table.get(hole).address != address) {
+			hole = (hole + 1) & mask;
+		}
+		for (int x = (hole + 1) & mask;; x = (x + 1) & mask) {
+			Entry<V> entry = table.get(x);
+			if (entry == null) {
+				break;
+			}
+			int home = index(entry.address);
+			if (((x - home) & mask) >= ((x - hole) & mask)) {
+				// set before the old slot is reused, readers see the entry in one place or both
+				table.set(hole, entry);
+				hole = x;
+			}
+		}
+		table.set(hole, null);
+	}
+
+	private int index(long address) {
+		return (int) ((address * 0x9E3779B97F4A7C15L) >>> 32) & mask;
+	}
+
+	private int stripe() {
+		long id = Thread.currentThread().getId();
+		return ((int) ((id * 0x9E3779B97F4A7C15L) >>> 40) & (stripes - 1)) * PAD;
+	}
+
+	public synchronized void clear() {
+		for (int x = 0; x < table.length(); x++) {
+			table.set(x, null);
+		}
+		for (int x = 0; x < count; x++) {
+			slots[x] = null;
+		}
+		count = 0;
+		hand = 0;
+	}
+
+	public synchronized int size() {
+		return count;
+	}
+
+	public long getHits() {
+		return sum(hits);
+	}
+
+	public long getMisses() {
+		return sum(misses);
+	}
+
+	private long sum(AtomicLongArray counters) {
+		long r = 0;
+		for (int x = 0; x < stripes; x++) {
+			r += counters.get(x * PAD);
+		}
+		return r;
+	}
+
+	public String toString() {
+		return "size=" + size() + "/" + capacity + ", hits=" + getHits() + ", misses=" + getMisses();
+	}
+}
@@ -0,0 +1,128 @@
+package com.peterdwarf.dwarf;
+
+import java.util.Arrays;
+import java.util.Comparator;
+
+/**
+ * Maps address ranges to the values owning them, e.g. compile units. Ranges
+ * are collected with add() and sorted once by build(), after that find() is
+ * a binary search. Addresses compare unsigned, so kernel addresses work.
+ */
+public class AddressRangeIndex<T> {
+	public int size;
+
+	// starts and ends have the sign bit flipped, signed order is then unsigned order
+	private long starts[] = new long[16];
+	private long ends[] = new long[16];
+	private Object values[] = new Object[16];
+	// largest end of the ranges up to an index, stops the search on overlapping ranges
+	private long maxEnds[];
+
+	/**
+	 * Adds [start, end), empty ranges are ignored.
+	 */
+	public void add(long start, long end, T value) {
+		start ^= Long.MIN_VALUE;
+		end ^= Long.MIN_VALUE;
+		if (end <= start) {
+			return;
+		}
+		if (size == starts.length) {
+			starts = Arrays.copyOf(starts, size * 2);
+			ends = Arrays.copyOf(ends, size * 2);
+			values = Arrays.copyOf(values, size * 2);
+		}
+		starts[size] = start;
+		ends[size] = end;
+		values[size] = value;
+		size++;
+	}
+
+	/**
+	 * Sorts the ranges by start address, call once after the last add().
+	 */
+	public void build() {
+		Integer order[] = new Integer[size];
+		for (int x = 0; x < size; x++) {
+			order[x] = x;
+		}
+		// stable, so equal starts keep the order they were added in
+		Arrays.sort(order, new Comparator<Integer>() {
+			@Override
+			public int compare(Integer a, Integer b) {
+				return Long.compare(starts[a], starts[b]);
+			}
+		});
+		long sortedStarts[] = new long[size];
+		long sortedEnds[] = new long[size];
+		Object sortedValues[] = new Object[size];
+		maxEnds = new long[size];
+		for (int x = 0; x < size; x++) {
+			sortedStarts[x] = starts[order[x]];
+			sortedEnds[x] = ends[order[x]];
+			sortedValues[x] = values[order[x]];
+			maxEnds[x] = x == 0 ? sortedEnds[x] : Math.max(maxEnds[x - 1], sortedEnds[x]);
+		}
+		starts = sortedStarts;
+		ends = sortedEnds;
+		values = sortedValues;
+	}
+
+	/**
+	 * The value of the range containing the address, null if there is none.
+	 * With overlapping ranges the one starting closest below the address
+	 * wins.
+	 */
+	public T find(long address) {
+		int x = findSlot(address);
+		return x == -1 ? null : get(x);
+	}
+
+	/**
+	 * Like find(), but returns the slot of the range, -1 if there is none.
+	 */
+	public int findSlot(long address) {
+		long key = address ^ Long.MIN_VALUE;
+		// last range starting at or before the address
+		int low = 0;
+		int high = size - 1;
+		int x = -1;
+		while (low <= high) {
+			int middle = (low + high) >>> 1;
+			if (starts[middle] <= key) {
+				x = middle;
+				low = middle + 1;
+			} else {
+				high = middle - 1;
+			}
+		}
+		for (; x >= 0 && maxEnds[x] > key; x--) {
+			if (ends[x] > key) {
+				return x;
+			}
+		}
+		return -1;
+	}
+
+	/**
+	 * True if findSlot(address) would return slot, lets a caller walking
+	 * ascending addresses skip the search while it stays in one range.
+	 */
+	public boolean isSlotOf(int slot, long address) {
+		long key = address ^ Long.MIN_VALUE;
+		return slot >= 0 && starts[slot] <= key && ends[slot] > key && (slot + 1 == size || starts[slot + 1] > key);
+	}
+
+	long getStart(int slot) {
+		return starts[slot] ^ Long.MIN_VALUE;
+	}
+
+	long getEnd(int slot) {
+		return ends[slot] ^ Long.MIN_VALUE;
+	}
+
+	@SuppressWarnings("unchecked")
+	public T get(int slot) {
+		return (T) values[slot];
+	}
+}
@@ -7,8 +7,11 @@ public class CompileUnit implements Comparable<CompileUnit> {
 	public int length;
 	public int version;
 	public int abbrev_offset;
+	// the table at abbrev_offset, null if there is none
+	public AbbrevTable abbrevTable;
 	public int addr_size;
-	public Vector<DebugInfoEntry> debugInfoEntries = new Vector<DebugInfoEntry>();
+	public int offset_size;
+	public volatile DebugInfoTable debugInfoTable;
 
 	public String DW_AT_producer;
 	public int DW_AT_language;
@@ -16,14 +19,25 @@ public class CompileUnit implements Comparable<CompileUnit> {
 	public String DW_AT_comp_dir;
 	public long DW_AT_low_pc;
 	public long DW_AT_high_pc;
-	public String DW_AT_stmt_list;
-	public DwarfDebugLineHeader dwarfDebugLineHeader;
+	// offset into .debug_ranges, -1 if the unit has no DW_AT_ranges
+	public long DW_AT_ranges = -1;
+	// offset into .debug_line, -1 if the unit has no DW_AT_stmt_list
+	public long DW_AT_stmt_list = -1;
+	public volatile DwarfDebugLineHeader dwarfDebugLineHeader;
+
+	public Dwarf dwarf;
+	// set for units opened lazily, cleared once the entries or lines are decoded
+	volatile boolean debugInfoPending;
+	volatile boolean linesPending;
+	// what a failed line program decode threw, the cause of the IllegalStateException
+	volatile Exception decodeError;
+	private volatile ScopeIndex scopeIndex;
 
 	public String toString() {
 		String str = "";
 		str += "  Compilation Unit @ offset 0x" + Integer.toHexString(offset) + ":\n";
 		str += "  	   Name:  " + DW_AT_name + "\n";
-		str += "  	   Length:        0x" + Integer.toHexString(length) + " (32-bit)" + "\n";
+		str += "  	   Length:        0x" + Integer.toHexString(length) + (offset_size == 8 ? " (64-bit)" : " (32-bit)") + "\n";
 		str += "  	   Version:       " + version + "\n";
 		str += "  	   Abbrev Offset: " + abbrev_offset + "\n";
 		str += "  	   Pointer Size:  " + addr_size + "\n";
@@ -37,35 +51,138 @@ public class CompileUnit implements Comparable<CompileUnit> {
 		return DW_AT_name.compareTo(a.DW_AT_name);
 	}
 
-	public DebugInfoEntry getDebugInfoEntryByPosition(int position) {
-		for (DebugInfoEntry d : debugInfoEntries) {
-			DebugInfoEntry t = getDebugInfoEntryByPosition(d, position);
-			if (t != null) {
-				return t;
+	/**
+	 * Offset of the first entry, just past the unit header.
+	 */
+	public int getEntriesOffset() {
+		return offset + (offset_size == 8 ? 12 : 4) + 2 + offset_size + 1;
+	}
+
+	/**
+	 * Offset just past the last byte of this unit.
+	 */
+	public int getEnd() {
+		return offset + (offset_size == 8 ? 12 : 4) + length;
+	}
+
+	/**
+	 * The entries of this unit, decoded on the first call if the unit was
+	 * opened lazily. Concurrent callers wait for a single decode. Throws
+	 * IllegalStateException with the error code if the unit fails to decode,
+	 * as opening it eagerly would have failed.
+	 */
+	public DebugInfoTable getDebugInfoTable() {
+		if (debugInfoPending) {
+			synchronized (this) {
+				if (debugInfoPending) {
+					int r = dwarf.parseCompileUnitEntries(this, dwarf.debug_info_bytes);
+					if (r > 0) {
+						throw decodeFailed(".debug_info", r);
+					}
+					debugInfoPending = false;
+				}
 			}
 		}
-		return null;
+		return debugInfoTable;
 	}
 
-	public DebugInfoEntry getDebugInfoEntryByPosition(DebugInfoEntry debugInfoEntry, int position) {
-		if (debugInfoEntry.position == position) {
-			return debugInfoEntry;
+	/**
+	 * The line program of this unit, decoded on the first call if the unit
+	 * was opened lazily. Throws IllegalStateException with the error code if
+	 * the program fails to decode.
+	 */
+	public DwarfDebugLineHeader getDwarfDebugLineHeader() {
+		if (linesPending) {
+			synchronized (this) {
+				if (linesPending) {
+					int r = dwarf.parseLineProgram(this);
+					if (r > 0) {
+						throw decodeFailed(".debug_line", r);
+					}
+					linesPending = false;
+				}
+			}
 		}
-		for (DebugInfoEntry dd : debugInfoEntry.debugInfoEntries) {
-			DebugInfoEntry t = getDebugInfoEntryByPosition(dd, position);
-			if (t != null) {
-				return t;
+		return dwarfDebugLineHeader;
+	}
+
+	// the unit stays pending, the next call tries again and fails the same way
+	private IllegalStateException decodeFailed(String section, int r) {
+		return new IllegalStateException("unit 0x" + Integer.toHexString(offset) + ": decoding " + section + " failed, error code " + r, decodeError);
+	}
+
+	/**
+	 * Address ranges of the scopes in this unit, built on the first call.
+	 */
+	public ScopeIndex getScopeIndex() {
+		ScopeIndex index = scopeIndex;
+		if (index == null) {
+			synchronized (this) {
+				index = scopeIndex;
+				if (index == null) {
+					index = ScopeIndex.build(this);
+					scopeIndex = index;
+				}
 			}
 		}
-		return null;
+		return index;
 	}
 
-	public Vector<DebugInfoEntry> getDebugInfoEntryByName(String name) {
-		if (debugInfoEntries == null) {
+	/**
+	 * The scopes of this unit containing an address, innermost first.
+	 */
+	public Vector<DebugInfoEntry> getScopes(long address) {
+		Vector<DebugInfoEntry> r = new Vector<DebugInfoEntry>();
+		int index = getScopeIndex().find(address);
+		DebugInfoTable table = debugInfoTable;
+		while (index != -1) {
+			if (ScopeIndex.isScope(table.getAbbrev(index).tag)) {
+				r.add(table.get(index));
+			}
+			index = table.parents[index];
+		}
+		return r;
+	}
+
+	/**
+	 * The top level entries of this unit, normally just DW_TAG_compile_unit.
+	 */
+	public Vector<DebugInfoEntry> getDebugInfoEntries() {
+		DebugInfoTable table = getDebugInfoTable();
+		if (table == null) {
+			return new Vector<DebugInfoEntry>();
+		}
+		return table.getChildren(-1);
+	}
+
+	/**
+	 * The entry at a .debug_info offset, offsets outside this unit are
+	 * looked up in the other units of the file.
+	 */
+	public DebugInfoEntry getDebugInfoEntryByPosition(int position) {
+		if ((position < offset || position >= getEnd()) && dwarf != null) {
+			return dwarf.getDebugInfoEntryByOffset(position);
+		}
+		DebugInfoTable table = getDebugInfoTable();
+		if (table == null) {
 			return null;
 		}
+		return table.get(table.indexOf(position));
+	}
+
+	public Vector<DebugInfoEntry> getDebugInfoEntryByTag(int tag) {
+		Vector<DebugInfoEntry> r = new Vector<DebugInfoEntry>();
+		for (DebugInfoEntry debugInfoEntry : getDebugInfoEntries()) {
+			if (debugInfoEntry.tag == tag) {
+				r.add(debugInfoEntry);
+			}
+		}
+		return r;
+	}
+
+	public Vector<DebugInfoEntry> getDebugInfoEntryByName(String name) {
 		Vector<DebugInfoEntry> r = new Vector<DebugInfoEntry>();
-		for (DebugInfoEntry debugInfoEntry : debugInfoEntries) {
+		for (DebugInfoEntry debugInfoEntry : getDebugInfoEntries()) {
 			if (debugInfoEntry.name.equals(name)) {
 				r.add(debugInfoEntry);
 			}
@@ -74,11 +191,8 @@ public class CompileUnit implements Comparable<CompileUnit> {
 	}
 
 	public Vector<DebugInfoEntry> getSubDebugInfoEntryByName(String name) {
-		for (DebugInfoEntry debugInfoEntry : debugInfoEntries) {
-			//debugInfoEntry.debugInfoAbbrevEntries.get(name);
-			if (debugInfoEntry.getDebugInfoEntryByName(name) != null) {
-				return debugInfoEntry.getDebugInfoEntryByName(name);
-			}
+		for (DebugInfoEntry debugInfoEntry : getDebugInfoEntries()) {
+			return debugInfoEntry.getDebugInfoEntryByName(name);
 		}
 		return null;
 	}
@@ -1,27 +1,275 @@
 package com.peterdwarf.dwarf;
 
+import java.nio.ByteBuffer;
 import java.util.Hashtable;
 import java.util.Vector;
 
+/**
+ * A view of one entry of a DebugInfoTable. Views are cheap and made on
+ * demand; children and attributes are read from the table each time they are
+ * asked for.
+ */
 public class DebugInfoEntry {
 	public int position;
 	public int abbrevNo;
-
-	public Hashtable<String, DebugInfoAbbrevEntry> debugInfoAbbrevEntries = new Hashtable<String, DebugInfoAbbrevEntry>();
+	public int tag;
 	public String name;
 
-	public Vector<DebugInfoEntry> debugInfoEntries = new Vector<DebugInfoEntry>();
+	public DebugInfoTable table;
+	public int index;
+
+	public DebugInfoEntry(DebugInfoTable table, int index) {
+		this.table = table;
+		this.index = index;
+		position = table.offsets[index];
+		abbrevNo = table.abbrevNos[index];
+		Abbrev abbrev = table.getAbbrev(index);
+		tag = abbrev.tag;
+		name = abbrev.tagName;
+	}
+
+	public Vector<DebugInfoEntry> getDebugInfoEntries() {
+		return table.getChildren(index);
+	}
+
+	public DebugInfoEntry getParent() {
+		return table.get(table.parents[index]);
+	}
+
+	/**
+	 * Decodes all attributes of this entry, keyed by DW_AT_ name.
+	 */
+	public Hashtable<String, DebugInfoAbbrevEntry> getDebugInfoAbbrevEntries() {
+		Hashtable<String, DebugInfoAbbrevEntry> debugInfoAbbrevEntries = new Hashtable<String, DebugInfoAbbrevEntry>();
+		ByteBuffer b = table.newCursor();
+		b.position(position);
+		DwarfLib.getULEB128(b);
+		for (AbbrevEntry entry : table.getAbbrev(index).entries) {
+			DebugInfoAbbrevEntry debugInfoAbbrevEntry = newDebugInfoAbbrevEntry(entry, b);
+			debugInfoAbbrevEntries.put(debugInfoAbbrevEntry.name, debugInfoAbbrevEntry);
+		}
+		return debugInfoAbbrevEntries;
+	}
+
+	public boolean hasAttribute(int at) {
+		return table.getAbbrev(index).indexOf(at) != -1;
+	}
+
+	/**
+	 * Decodes only the given DW_AT_ attribute, null if this entry does not
+	 * have it.
+	 */
+	public DebugInfoAbbrevEntry getDebugInfoAbbrevEntry(int at) {
+		ByteBuffer b = table.newCursor();
+		int x = table.seekAttribute(b, index, at);
+		if (x == -1) {
+			return null;
+		}
+		return newDebugInfoAbbrevEntry(table.getAbbrev(index).entries.get(x), b);
+	}
+
+	/**
+	 * Value of a constant, address, flag or section offset attribute, data
+	 * forms are zero extended. Returns -1 if the attribute is missing or has
+	 * another class of form; -1 may also be a real value, use
+	 * getUnsigned(at, defaultValue) or hasAttribute when it can be.
+	 */
+	public long getUnsigned(int at) {
+		return getUnsigned(at, -1);
+	}
+
+	/**
+	 * Like getUnsigned(at) but returns defaultValue if the attribute is
+	 * missing or has another class of form.
+	 */
+	public long getUnsigned(int at, long defaultValue) {
+		ByteBuffer b = table.newCursor();
+		int x = table.seekAttribute(b, index, at);
+		if (x == -1) {
+			return defaultValue;
+		}
+		CompileUnit cu = table.compileUnit;
+		switch (table.getAbbrev(index).forms[x]) {
+		case Definition.DW_FORM_data1:
+		case Definition.DW_FORM_flag:
+			return b.get() & 0xffL;
+		case Definition.DW_FORM_data2:
+			return b.getShort() & 0xffffL;
+		case Definition.DW_FORM_data4:
+			return b.getInt() & 0xffffffffL;
+		case Definition.DW_FORM_data8:
+			return b.getLong();
+		case Definition.DW_FORM_udata:
+			return DwarfLib.getULEB128(b);
+		case Definition.DW_FORM_sdata:
+			return DwarfLib.getSLEB128(b);
+		case Definition.DW_FORM_addr:
+			return Dwarf.byte_get(b, cu.addr_size);
+		case Definition.DW_FORM_sec_offset:
+			return Dwarf.byte_get(b, cu.offset_size);
+		case Definition.DW_FORM_flag_present:
+			return 1;
+		default:
+			return defaultValue;
+		}
+	}
+
+	/**
+	 * Like getUnsigned but data forms are sign extended.
+	 */
+	public long getSigned(int at) {
+		return getSigned(at, -1);
+	}
+
+	/**
+	 * Like getUnsigned(at, defaultValue) but data forms are sign extended.
+	 */
+	public long getSigned(int at, long defaultValue) {
+		ByteBuffer b = table.newCursor();
+		int x = table.seekAttribute(b, index, at);
+		if (x == -1) {
+			return defaultValue;
+		}
+		switch (table.getAbbrev(index).forms[x]) {
+		case Definition.DW_FORM_data1:
+			return b.get();
+		case Definition.DW_FORM_data2:
+			return b.getShort();
+		case Definition.DW_FORM_data4:
+			return b.getInt();
+		default:
+			return getUnsigned(at, defaultValue);
+		}
+	}
+
+	/**
+	 * The .debug_info offset a reference attribute points at, -1 if the
+	 * attribute is missing or not a reference.
+	 */
+	public int getReference(int at) {
+		ByteBuffer b = table.newCursor();
+		int x = table.seekAttribute(b, index, at);
+		if (x == -1) {
+			return -1;
+		}
+		return table.readReference(b, table.getAbbrev(index).forms[x]);
+	}
+
+	/**
+	 * The entry a reference attribute points at, DW_FORM_ref_addr may lead
+	 * into another unit. Null if the attribute is missing.
+	 */
+	public DebugInfoEntry getReferencedEntry(int at) {
+		int offset = getReference(at);
+		if (offset == -1) {
+			return null;
+		}
+		int x = table.indexOf(offset);
+		if (x != -1) {
+			return table.get(x);
+		}
+		return table.compileUnit.getDebugInfoEntryByPosition(offset);
+	}
+
+	/**
+	 * Value of a string or strp attribute, null if missing.
+	 */
+	public String getString(int at) {
+		ByteBuffer b = table.newCursor();
+		int x = table.seekAttribute(b, index, at);
+		if (x == -1) {
+			return null;
+		}
+		int form = table.getAbbrev(index).forms[x];
+		if (form != Definition.DW_FORM_string && form != Definition.DW_FORM_strp) {
+			return null;
+		}
+		return (String) table.readValue(b, form);
+	}
+
+	/**
+	 * Whether a string or strp attribute is value, without decoding it. False
+	 * if missing.
+	 */
+	public boolean stringEquals(int at, String value) {
+		ByteBuffer b = table.newCursor();
+		int x = table.seekAttribute(b, index, at);
+		if (x == -1) {
+			return false;
+		}
+		return table.stringEquals(b, table.getAbbrev(index).forms[x], value);
+	}
+
+	/**
+	 * Bytes of a block or exprloc attribute, null if missing.
+	 */
+	public byte[] getBlock(int at) {
+		ByteBuffer b = table.newCursor();
+		int x = table.seekAttribute(b, index, at);
+		if (x == -1) {
+			return null;
+		}
+		int length;
+		switch (table.getAbbrev(index).forms[x]) {
+		case Definition.DW_FORM_block:
+		case Definition.DW_FORM_exprloc:
+			length = (int) DwarfLib.getULEB128(b);
+			break;
+		case Definition.DW_FORM_block1:
+			length = b.get() & 0xff;
+			break;
+		case Definition.DW_FORM_block2:
+			length = b.getShort() & 0xffff;
+			break;
+		case Definition.DW_FORM_block4:
+			length = (int) (b.getInt() & 0xffffffffL);
+			break;
+		default:
+			return null;
+		}
+		byte bytes[] = new byte[length];
+		b.get(bytes);
+		return bytes;
+	}
+
+	/**
+	 * The form of an attribute, -1 if missing.
+	 */
+	public int getForm(int at) {
+		Abbrev abbrev = table.getAbbrev(index);
+		int x = abbrev.indexOf(at);
+		return x == -1 ? -1 : abbrev.forms[x];
+	}
+
+	private DebugInfoAbbrevEntry newDebugInfoAbbrevEntry(AbbrevEntry entry, ByteBuffer b) {
+		DebugInfoAbbrevEntry debugInfoAbbrevEntry = new DebugInfoAbbrevEntry();
+		debugInfoAbbrevEntry.name = entry.atName;
+		debugInfoAbbrevEntry.form = entry.form;
+		debugInfoAbbrevEntry.formStr = entry.formName;
+		debugInfoAbbrevEntry.position = b.position();
+		debugInfoAbbrevEntry.value = table.readValue(b, entry.form);
+		return debugInfoAbbrevEntry;
+	}
 
 	public String toString() {
 		return "0x" + Integer.toHexString(position) + ", " + name + ", abbrevNo=" + abbrevNo;
 	}
 
-	public Vector<DebugInfoEntry> getDebugInfoEntryByName(String name) {
-		if (debugInfoEntries == null) {
-			return null;
+	public Vector<DebugInfoEntry> getDebugInfoEntryByTag(int tag) {
+		Vector<DebugInfoEntry> r = new Vector<DebugInfoEntry>();
+		int child = table.firstChilds[index];
+		while (child != -1) {
+			if (table.getAbbrev(child).tag == tag) {
+				r.add(new DebugInfoEntry(table, child));
+			}
+			child = table.nextSiblings[child];
 		}
+		return r;
+	}
+
+	public Vector<DebugInfoEntry> getDebugInfoEntryByName(String name) {
 		Vector<DebugInfoEntry> r = new Vector<DebugInfoEntry>();
-		for (DebugInfoEntry debugInfoEntry : debugInfoEntries) {
+		for (DebugInfoEntry debugInfoEntry : getDebugInfoEntries()) {
 			if (debugInfoEntry.name.equals(name)) {
 				r.add(debugInfoEntry);
 			}
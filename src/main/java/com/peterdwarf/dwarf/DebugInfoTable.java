@@ -0,0 +1,567 @@
+package com.peterdwarf.dwarf;
+
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.util.Arrays;
+import java.util.Vector;
+
+/**
+ * All debug info entries of one compile unit, stored as parallel int arrays.
+ * Only the offset, abbrev number and tree links of each entry are kept;
+ * attribute values stay in .debug_info and are decoded when a
+ * DebugInfoEntry view asks for them.
+ */
+public class DebugInfoTable {
+	public CompileUnit compileUnit;
+	public AbbrevTable abbrevs;
+	public int size;
+
+	int offsets[];
+	int abbrevNos[];
+	int parents[];
+	int firstChilds[];
+	int nextSiblings[];
+
+	private ByteBuffer debugInfoBytes;
+	// DW_FORM_strp strings by .debug_str offset, DW_FORM_string ones by .debug_info offset
+	private StringTable debugStrings;
+	private StringTable inlineStrings;
+
+	// only used while parsing, the open parents and their last child
+	private int openParents[] = new int[16];
+	private int lastChilds[] = new int[16];
+	private int depth;
+	private int firstRoot = -1;
+	private int lastRoot = -1;
+
+	public DebugInfoTable(CompileUnit compileUnit, AbbrevTable abbrevs, ByteBuffer debugInfoBytes, StringTable debugStrings, StringTable inlineStrings) {
+		this.compileUnit = compileUnit;
+		this.abbrevs = abbrevs;
+		this.debugInfoBytes = debugInfoBytes;
+		this.debugStrings = debugStrings;
+		this.inlineStrings = inlineStrings;
+		int capacity = 64;
+		offsets = new int[capacity];
+		abbrevNos = new int[capacity];
+		parents = new int[capacity];
+		firstChilds = new int[capacity];
+		nextSiblings = new int[capacity];
+	}
+
+	/**
+	 * Records the entries in [start, end) of .debug_info, attribute values
+	 * are skipped. Returns 0, or 3 if an attribute has an unsupported form.
+	 */
+	public int parse(int start, int end) {
+		ByteBuffer b = newCursor();
+		b.position(start);
+		while (b.position() < end) {
+			int position = b.position();
+			int abbrevNo = (int) DwarfLib.getULEB128(b);
+			if (abbrevNo == 0) {
+				// trailing padding at the end of a unit has nothing left to close
+				closeChildren();
+				continue;
+			}
+			Abbrev abbrev = abbrevs.get(abbrevNo);
+			if (abbrev == null) {
+				continue;
+			}
+			for (int x = 0; x < abbrev.forms.length; x++) {
+				if (!skip(b, abbrev.forms[x], compileUnit)) {
+					System.err.println(" unsupport DW_FORM_? = 0x" + Integer.toHexString(abbrev.forms[x]));
+					return 3;
+				}
+			}
+			add(position, abbrevNo, abbrev.has_children);
+		}
+		return 0;
+	}
+
+	/**
+	 * Cuts the children of the unit root at start into runs of whole
+	 * subtrees of about chunkSize bytes. Returns the start offset of each run
+	 * followed by the offset of the null entry closing the root, or null if
+	 * the root has no children or they cannot be skipped.
+	 */
+	public int[] splitChildren(int start, int end, int chunkSize) {
+		ByteBuffer b = newCursor();
+		b.position(start);
+		Abbrev root = abbrevs.get((int) DwarfLib.getULEB128(b));
+		if (root == null || !root.has_children) {
+			return null;
+		}
+		for (int x = 0; x < root.forms.length; x++) {
+			if (!skip(b, root.forms[x], compileUnit)) {
+				return null;
+			}
+		}
+		int bounds[] = new int[16];
+		int count = 0;
+		int position = b.position();
+		bounds[count++] = position;
+		while (position < end && b.get(position) != 0) {
+			position = skipSubtree(position, end);
+			if (position == -1) {
+				return null;
+			}
+			if (position - bounds[count - 1] >= chunkSize) {
+				if (count == bounds.length) {
+					bounds = Arrays.copyOf(bounds, count * 2);
+				}
+				bounds[count++] = position;
+			}
+		}
+		if (position >= end) {
+			return null;
+		}
+		if (bounds[count - 1] != position) {
+			if (count == bounds.length) {
+				bounds = Arrays.copyOf(bounds, count + 1);
+			}
+			bounds[count++] = position;
+		}
+		return Arrays.copyOf(bounds, count);
+	}
+
+	/**
+	 * Offset just past an entry and all of its children, -1 if an abbrev is
+	 * missing or a form is unsupported. DW_AT_sibling is followed when an
+	 * entry has it, otherwise the children are skipped one by one.
+	 */
+	public int skipSubtree(int position, int end) {
+		ByteBuffer b = newCursor();
+		b.position(position);
+		int depth = 0;
+		do {
+			if (b.position() >= end) {
+				return -1;
+			}
+			int entry = b.position();
+			int abbrevNo = (int) DwarfLib.getULEB128(b);
+			if (abbrevNo == 0) {
+				depth--;
+				continue;
+			}
+			Abbrev abbrev = abbrevs.get(abbrevNo);
+			if (abbrev == null) {
+				return -1;
+			}
+			if (abbrev.has_children) {
+				int attributes = b.position();
+				int x = seekAttribute(b, attributes, abbrev, Definition.DW_AT_sibling);
+				if (x != -1) {
+					int sibling = readReference(b, abbrev.forms[x]);
+					if (sibling > entry && sibling <= end) {
+						b.position(sibling);
+						continue;
+					}
+				}
+				b.position(attributes);
+			}
+			for (int x = 0; x < abbrev.forms.length; x++) {
+				if (!skip(b, abbrev.forms[x], compileUnit)) {
+					return -1;
+				}
+			}
+			if (abbrev.has_children) {
+				depth++;
+			}
+		} while (depth > 0);
+		return b.position();
+	}
+
+	/**
+	 * Appends an entry under the innermost open parent. If it has children it
+	 * becomes the open parent until closeChildren() is called.
+	 */
+	public int add(int offset, int abbrevNo, boolean hasChildren) {
+		ensureCapacity(size + 1);
+		int index = size++;
+		offsets[index] = offset;
+		abbrevNos[index] = abbrevNo;
+		firstChilds[index] = -1;
+		nextSiblings[index] = -1;
+		link(index);
+
+		if (hasChildren) {
+			if (depth == openParents.length) {
+				openParents = Arrays.copyOf(openParents, depth * 2);
+				lastChilds = Arrays.copyOf(lastChilds, depth * 2);
+			}
+			openParents[depth] = index;
+			lastChilds[depth] = -1;
+			depth++;
+		}
+		return index;
+	}
+
+	/**
+	 * Appends the entries of a table parsed from a run of whole subtrees of
+	 * the same unit. Its top level entries become children of the innermost
+	 * open parent.
+	 */
+	public void append(DebugInfoTable part) {
+		ensureCapacity(size + part.size);
+		int base = size;
+		for (int x = 0; x < part.size; x++) {
+			offsets[base + x] = part.offsets[x];
+			abbrevNos[base + x] = part.abbrevNos[x];
+			parents[base + x] = part.parents[x] == -1 ? -1 : part.parents[x] + base;
+			firstChilds[base + x] = part.firstChilds[x] == -1 ? -1 : part.firstChilds[x] + base;
+			nextSiblings[base + x] = part.nextSiblings[x] == -1 ? -1 : part.nextSiblings[x] + base;
+		}
+		size += part.size;
+		for (int root = part.firstRoot; root != -1; root = part.nextSiblings[root]) {
+			link(base + root);
+		}
+	}
+
+	private void link(int index) {
+		if (depth == 0) {
+			parents[index] = -1;
+			if (lastRoot == -1) {
+				firstRoot = index;
+			} else {
+				nextSiblings[lastRoot] = index;
+			}
+			lastRoot = index;
+		} else {
+			int parent = openParents[depth - 1];
+			parents[index] = parent;
+			if (lastChilds[depth - 1] == -1) {
+				firstChilds[parent] = index;
+			} else {
+				nextSiblings[lastChilds[depth - 1]] = index;
+			}
+			lastChilds[depth - 1] = index;
+		}
+	}
+
+	private void ensureCapacity(int capacity) {
+		if (capacity <= offsets.length) {
+			return;
+		}
+		capacity = Math.max(capacity, offsets.length * 2);
+		offsets = Arrays.copyOf(offsets, capacity);
+		abbrevNos = Arrays.copyOf(abbrevNos, capacity);
+		parents = Arrays.copyOf(parents, capacity);
+		firstChilds = Arrays.copyOf(firstChilds, capacity);
+		nextSiblings = Arrays.copyOf(nextSiblings, capacity);
+	}
+
+	/**
+	 * Closes the innermost open parent, returns false if there is none, which
+	 * happens for padding at the end of a unit.
+	 */
+	public boolean closeChildren() {
+		if (depth == 0) {
+			return false;
+		}
+		depth--;
+		return true;
+	}
+
+	/**
+	 * Shrinks the arrays to the number of entries once parsing is done.
+	 */
+	public void trim() {
+		offsets = Arrays.copyOf(offsets, size);
+		abbrevNos = Arrays.copyOf(abbrevNos, size);
+		parents = Arrays.copyOf(parents, size);
+		firstChilds = Arrays.copyOf(firstChilds, size);
+		nextSiblings = Arrays.copyOf(nextSiblings, size);
+		openParents = null;
+		lastChilds = null;
+	}
+
+	public DebugInfoEntry get(int index) {
+		if (index < 0 || index >= size) {
+			return null;
+		}
+		return new DebugInfoEntry(this, index);
+	}
+
+	public Abbrev getAbbrev(int index) {
+		return abbrevs.get(abbrevNos[index]);
+	}
+
+	public int getOffset(int index) {
+		return offsets[index];
+	}
+
+	public int getParent(int index) {
+		return parents[index];
+	}
+
+	public int getFirstChild(int index) {
+		return firstChilds[index];
+	}
+
+	public int getNextSibling(int index) {
+		return nextSiblings[index];
+	}
+
+	/**
+	 * Index of the entry starting at the given .debug_info offset, or -1.
+	 * Entries are stored in file order so this is a binary search.
+	 */
+	public int indexOf(int offset) {
+		int index = Arrays.binarySearch(offsets, 0, size, offset);
+		return index < 0 ? -1 : index;
+	}
+
+	/**
+	 * Views of the children of an entry, or of the top level entries if
+	 * index is -1.
+	 */
+	public Vector<DebugInfoEntry> getChildren(int index) {
+		Vector<DebugInfoEntry> r = new Vector<DebugInfoEntry>();
+		int child = index == -1 ? firstRoot : firstChilds[index];
+		while (child != -1) {
+			r.add(new DebugInfoEntry(this, child));
+			child = nextSiblings[child];
+		}
+		return r;
+	}
+
+	/**
+	 * A private cursor on .debug_info, so views on different threads never
+	 * share a position.
+	 */
+	ByteBuffer newCursor() {
+		return debugInfoBytes.duplicate().order(ByteOrder.nativeOrder());
+	}
+
+	/**
+	 * Size of a value of the given form in this unit, -1 if it is variable
+	 * or the form is unsupported.
+	 */
+	public static int fixedSize(int form, CompileUnit cu) {
+		switch (form) {
+		case Definition.DW_FORM_flag_present:
+			return 0;
+		case Definition.DW_FORM_data1:
+		case Definition.DW_FORM_ref1:
+		case Definition.DW_FORM_flag:
+			return 1;
+		case Definition.DW_FORM_data2:
+		case Definition.DW_FORM_ref2:
+			return 2;
+		case Definition.DW_FORM_data4:
+		case Definition.DW_FORM_ref4:
+			return 4;
+		case Definition.DW_FORM_data8:
+		case Definition.DW_FORM_ref8:
+		case Definition.DW_FORM_ref_sig8:
+			return 8;
+		case Definition.DW_FORM_addr:
+			return cu.addr_size;
+		case Definition.DW_FORM_strp:
+		case Definition.DW_FORM_sec_offset:
+			return cu.offset_size;
+		case Definition.DW_FORM_ref_addr:
+			return cu.version <= 2 ? cu.addr_size : cu.offset_size;
+		default:
+			return -1;
+		}
+	}
+
+	/**
+	 * Moves the cursor over one attribute value, returns false for an
+	 * unsupported form.
+	 */
+	public static boolean skip(ByteBuffer b, int form, CompileUnit cu) {
+		int size = fixedSize(form, cu);
+		if (size != -1) {
+			b.position(b.position() + size);
+			return true;
+		}
+		switch (form) {
+		case Definition.DW_FORM_string:
+			b.position(StringTable.indexOfNul(b, b.position()) + 1);
+			return true;
+		case Definition.DW_FORM_sdata:
+			DwarfLib.getSLEB128(b);
+			return true;
+		case Definition.DW_FORM_udata:
+		case Definition.DW_FORM_ref_udata:
+			DwarfLib.getULEB128(b);
+			return true;
+		case Definition.DW_FORM_block:
+		case Definition.DW_FORM_exprloc:
+			long length = DwarfLib.getULEB128(b);
+			b.position((int) (b.position() + length));
+			return true;
+		case Definition.DW_FORM_block1:
+			b.position(b.position() + 1 + (b.get(b.position()) & 0xff));
+			return true;
+		case Definition.DW_FORM_block2:
+			b.position(b.position() + 2 + (b.getShort(b.position()) & 0xffff));
+			return true;
+		case Definition.DW_FORM_block4:
+			b.position(b.position() + 4 + b.getInt(b.position()));
+			return true;
+		default:
+			return false;
+		}
+	}
+
+	/**
+	 * Moves a cursor to the value of one attribute of an entry and returns the
+	 * index of the attribute in its abbrev, or -1 if the entry does not have
+	 * it. Attributes behind only fixed size forms are reached without
+	 * decoding the ones before them.
+	 */
+	int seekAttribute(ByteBuffer b, int index, int at) {
+		// the code may be encoded longer than needed, so read it rather than size it
+		b.position(offsets[index]);
+		DwarfLib.getULEB128(b);
+		return seekAttribute(b, b.position(), abbrevs.get(abbrevNos[index]), at);
+	}
+
+	// offset is where the attribute values start, just past the abbrev code
+	private int seekAttribute(ByteBuffer b, int offset, Abbrev abbrev, int at) {
+		int x = abbrev.indexOf(at);
+		if (x == -1) {
+			return -1;
+		}
+		int fixedOffsets[] = abbrev.getFixedOffsets(compileUnit);
+		if (fixedOffsets[x] != -1) {
+			b.position(offset + fixedOffsets[x]);
+			return x;
+		}
+		// skip from the last attribute with a known offset
+		int start = x;
+		while (fixedOffsets[start] == -1) {
+			start--;
+		}
+		b.position(offset + fixedOffsets[start]);
+		for (int y = start; y < x; y++) {
+			skip(b, abbrev.forms[y], compileUnit);
+		}
+		return x;
+	}
+
+	/**
+	 * Reads a reference value as a .debug_info offset, -1 if the form is not
+	 * a reference.
+	 */
+	int readReference(ByteBuffer b, int form) {
+		CompileUnit cu = compileUnit;
+		switch (form) {
+		case Definition.DW_FORM_ref1:
+			return (b.get() & 0xff) + cu.offset;
+		case Definition.DW_FORM_ref2:
+			return (b.getShort() & 0xffff) + cu.offset;
+		case Definition.DW_FORM_ref4:
+			return b.getInt() + cu.offset;
+		case Definition.DW_FORM_ref8:
+			return (int) b.getLong() + cu.offset;
+		case Definition.DW_FORM_ref_udata:
+			return (int) DwarfLib.getULEB128(b) + cu.offset;
+		case Definition.DW_FORM_ref_addr:
+			// offset from the start of .debug_info, address sized before dwarf 3
+			return (int) Dwarf.byte_get(b, cu.version <= 2 ? cu.addr_size : cu.offset_size);
+		default:
+			return -1;
+		}
+	}
+
+	/**
+	 * Whether a string or strp value is value, compared in the section bytes
+	 * without decoding. False for other forms.
+	 */
+	boolean stringEquals(ByteBuffer b, int form, String value) {
+		switch (form) {
+		case Definition.DW_FORM_string:
+			return inlineStrings.equals(b.position(), value);
+		case Definition.DW_FORM_strp:
+			return debugStrings.equals((int) Dwarf.byte_get(b, compileUnit.offset_size), value);
+		default:
+			return false;
+		}
+	}
+
+	/**
+	 * Decodes one attribute value in the representation DebugInfoAbbrevEntry
+	 * has always used: hex strings for data2/4/8 and references, a comma
+	 * separated string for exprloc, byte[] for blocks.
+	 */
+	Object readValue(ByteBuffer b, int form) {
+		CompileUnit cu = compileUnit;
+		switch (form) {
+		case Definition.DW_FORM_string:
+			String s = inlineStrings.get(b.position());
+			b.position(StringTable.indexOfNul(b, b.position()) + 1);
+			return s;
+		case Definition.DW_FORM_addr:
+			return Dwarf.byte_get(b, cu.addr_size);
+		case Definition.DW_FORM_strp:
+			return debugStrings.get((int) Dwarf.byte_get(b, cu.offset_size));
+		case Definition.DW_FORM_data1:
+			return b.get() & 0xff;
+		case Definition.DW_FORM_data2:
+			return Integer.toHexString(b.getShort() & 0xffff);
+		case Definition.DW_FORM_data4:
+			return Long.toHexString(b.getInt() & 0xffffffffL);
+		case Definition.DW_FORM_data8:
+			return Long.toHexString(b.getLong());
+		case Definition.DW_FORM_ref1:
+			return Integer.toHexString((b.get() & 0xff) + cu.offset);
+		case Definition.DW_FORM_ref2:
+			return Integer.toHexString((b.getShort() & 0xffff) + cu.offset);
+		case Definition.DW_FORM_ref4:
+			return Long.toHexString((b.getInt() & 0xffffffffL) + cu.offset);
+		case Definition.DW_FORM_ref8:
+			return Long.toHexString(b.getLong() + cu.offset);
+		case Definition.DW_FORM_ref_sig8:
+			return Long.toHexString(b.getLong());
+		case Definition.DW_FORM_ref_addr:
+			// offset from the start of .debug_info, address sized before dwarf 3
+			return Long.toHexString(cu.version <= 2 ? Dwarf.byte_get(b, cu.addr_size) : Dwarf.byte_get(b, cu.offset_size));
+		case Definition.DW_FORM_block: {
+			byte bytes[] = new byte[(int) DwarfLib.getULEB128(b)];
+			b.get(bytes);
+			return bytes;
+		}
+		case Definition.DW_FORM_block1: {
+			byte bytes[] = new byte[b.get() & 0xff];
+			b.get(bytes);
+			return bytes;
+		}
+		case Definition.DW_FORM_block2: {
+			byte bytes[] = new byte[b.getShort() & 0xffff];
+			b.get(bytes);
+			return bytes;
+		}
+		case Definition.DW_FORM_block4: {
+			byte bytes[] = new byte[(int) (b.getInt() & 0xffffffffL)];
+			b.get(bytes);
+			return bytes;
+		}
+		case Definition.DW_FORM_ref_udata:
+			return DwarfLib.getULEB128(b);
+		case Definition.DW_FORM_flag:
+			return b.get();
+		case Definition.DW_FORM_sec_offset:
+			return (int) Dwarf.byte_get(b, cu.offset_size);
+		case Definition.DW_FORM_flag_present:
+			return 1;
+		case Definition.DW_FORM_exprloc: {
+			long size = DwarfLib.getULEB128(b);
+			StringBuilder str = new StringBuilder();
+			for (int z = 0; z < size; z++) {
+				str.append(b.get() & 0xff).append(',');
+			}
+			return str.toString();
+		}
+		case Definition.DW_FORM_sdata:
+			return DwarfLib.getSLEB128(b);
+		case Definition.DW_FORM_udata:
+			return DwarfLib.getULEB128(b);
+		default:
+			return null;
+		}
+	}
+}
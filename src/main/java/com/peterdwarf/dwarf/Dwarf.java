@@ -5,36 +5,55 @@ import java.io.FileInputStream;
 import java.io.FileNotFoundException;
 import java.io.IOException;
 import java.io.InputStream;
-import java.io.RandomAccessFile;
-import java.math.BigInteger;
 import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
 import java.util.Arrays;
 import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Hashtable;
 import java.util.LinkedHashMap;
-import java.util.Stack;
+import java.util.List;
+import java.util.Map;
 import java.util.Vector;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
 
 import com.peterdwarf.DwarfGlobal;
 import com.peterdwarf.elf.Elf32_Ehdr;
 import com.peterdwarf.elf.Elf32_Shdr;
 import com.peterdwarf.elf.Elf32_Sym;
+import com.peterdwarf.elf.Elf64_Rela;
+import com.peterdwarf.elf.Elf64_Sym;
+import com.peterdwarf.elf.ElfImage;
 import com.peterdwarf.elf.Elf_Common;
-import com.peterdwarf.elf.SectionFinder;
 import com.peterswing.CommonLib;
 
 public class Dwarf {
 	public ByteBuffer byteBuffer;
 	public ByteBuffer debug_abbrevBuffer;
 	public ByteBuffer debug_bytes;
+	public StringTable debugStrings;
 	public ByteBuffer symtab_bytes;
 	private ByteBuffer strtab_bytes;
+	private StringTable inlineStrings;
 	public ByteBuffer debug_loc;
 	public ByteBuffer eh_frame_bytes;
+	public ByteBuffer debug_info_bytes;
+	public ByteBuffer debug_line_bytes;
+	public ByteBuffer debug_ranges_bytes;
 
 	public Vector<CompileUnit> compileUnits = new Vector<CompileUnit>();
 	public Vector<Elf32_Sym> symbols = new Vector<Elf32_Sym>();
-	public Vector<DebugLocEntry> debugLocEntries = new Vector<DebugLocEntry>();
+	// filled lazily when the file was opened with lazyLoading, read it through getDebugLocEntries()
+	private Vector<DebugLocEntry> debugLocEntries = new Vector<DebugLocEntry>();
 	public LinkedHashMap<Integer, LinkedHashMap<Integer, Abbrev>> abbrevList;
+	// the same tables by .debug_abbrev offset, units look theirs up once
+	public HashMap<Integer, AbbrevTable> abbrevTables = new HashMap<Integer, AbbrevTable>();
+	// tables by their bytes, keys are slices of .debug_abbrev; archive members share one map so equal tables are read once
+	public ConcurrentHashMap<ByteBuffer, AbbrevTable> sharedAbbrevTables = new ConcurrentHashMap<ByteBuffer, AbbrevTable>();
 	public File file;
 	public String realFilename;
 	public Elf32_Ehdr ehdr = new Elf32_Ehdr();
@@ -44,12 +63,42 @@ public class Dwarf {
 	public int addressSize;
 	public int offset_size;
 	public Vector<FrameChunk> ehFrames = new Vector<FrameChunk>();
+	// source file paths of the line programs, DwarfLib.init shares one between archive members
+	public SourcePathTable sourcePaths = new SourcePathTable();
+	public AddressRangeIndex<CompileUnit> compileUnitRanges = new AddressRangeIndex<CompileUnit>();
+	// start offsets of compileUnits, for finding the unit of any .debug_info offset
+	private int compileUnitOffsets[] = new int[0];
+	private volatile FunctionIndex functionIndex;
+	private volatile SourceLineIndex sourceLineIndex;
+	// decoded line programs by .debug_line offset
+	private ConcurrentHashMap<Long, DwarfDebugLineHeader> lineHeaders = new ConcurrentHashMap<Long, DwarfDebugLineHeader>();
+	// results by address, see setAddressCacheSize
+	private volatile AddressCache<CompileUnit> compileUnitCache;
+	private volatile AddressCache<DebugInfoEntry> subProgramCache;
+	private volatile AddressCache<DwarfLine> lineCache;
+	private volatile AddressCache<List<DwarfInlineFrame>> inlineFramesCache;
+	volatile AddressCache<Map<String, DwarfParameter>> parametersCache;
+	public ElfImage elfImage;
+	// decode compile units in parallel on this pool, null decodes them one by one
+	public ForkJoinPool forkJoinPool;
+	// with a pool, units longer than this many bytes are also split at their top level children
+	public int splitUnitSize = 4 * 1024 * 1024;
+	// fewest addresses a batch lookup hands to one task, see setSymbolizeChunkSize
+	private int symbolizeChunkSize = 1024;
+	// only read unit headers on open, entries, line programs and location lists are decoded on first use
+	public boolean lazyLoading;
+	private volatile boolean debugLocPending;
+	// line tables decoded from now on are compressed, see compressLineTables
+	private volatile boolean compressLineTables;
+	private volatile boolean keepLineColumns;
+	private long memoryOffset;
 
 	final int DW_CIE_ID = -1;
 
 	public int initElf(File file, String realFilename, long memoryOffset) {
 		this.file = file;
 		this.realFilename = realFilename;
+		this.memoryOffset = memoryOffset;
 
 		isLoading = true;
 		if (!file.isFile()) {
@@ -61,12 +110,15 @@ public class Dwarf {
 			return 101;
 		}
 
+		// map the file and read the elf header and section table once
 		try {
-			sections = SectionFinder.getAllSections(file);
-			if (SectionFinder.getElf32_Ehdr(file).is32Bits()) {
+			elfImage = new ElfImage(file);
+			ehdr = elfImage.sectionTable.ehdr;
+			sections = elfImage.sectionTable.sections;
+			if (ehdr.is32Bits()) {
 				addressSize = 4;
 				offset_size = 4;
-			} else if (SectionFinder.getElf32_Ehdr(file).is64Bits()) {
+			} else if (ehdr.is64Bits()) {
 				addressSize = 8;
 				offset_size = 8;
 			} else {
@@ -77,27 +129,19 @@ public class Dwarf {
 			return 23;
 		}
 
-		// read program header
-		try {
-			ehdr.read(new RandomAccessFile(file, "r"));
-		} catch (Exception e1) {
-			e1.printStackTrace();
-			return 1;
-		}
-		// end read program header
-
 		compileUnits.clear();
 
 		try {
-			debug_bytes = SectionFinder.findSectionByte(ehdr, file, ".debug_str");
+			debug_bytes = elfImage.getSection(".debug_str");
 			if (debug_bytes == null) {
 				System.err.println("missing section .debug_str");
 				return 24;
 			}
-			strtab_bytes = SectionFinder.findSectionByte(ehdr, file, ".strtab");
-			symtab_bytes = SectionFinder.findSectionByte(ehdr, file, ".symtab");
-			symbols = parseSymtab(symtab_bytes, strtab_bytes);
-			debug_abbrevBuffer = SectionFinder.findSectionByte(ehdr, file, ".debug_abbrev");
+			debugStrings = new StringTable(debug_bytes);
+			strtab_bytes = elfImage.getSection(".strtab");
+			symtab_bytes = elfImage.getSection(".symtab");
+			symbols = parseSymtab(symtab_bytes, strtab_bytes, ehdr.is64Bits());
+			debug_abbrevBuffer = elfImage.getSection(".debug_abbrev");
 			abbrevList = parseDebugAbbrev(debug_abbrevBuffer);
 			if (DwarfGlobal.debug) {
 				for (Integer abbrevOffset : abbrevList.keySet()) {
@@ -118,28 +162,36 @@ public class Dwarf {
 				//System.out.println();
 			}
 
-			byteBuffer = SectionFinder.findSectionByte(ehdr, file, ".debug_info");
-			Elf32_Shdr debugInfoSection = null;
-			for (Elf32_Shdr s : sections) {
-				if (s.section_name.equals(".debug_info")) {
-					debugInfoSection = s;
-					break;
-				}
-			}
+			// relocatable objects get heap copies, relocations are applied in place
+			boolean relocatable = ehdr.e_type == Elf_Common.ET_REL;
+			Elf32_Shdr debugInfoSection = elfImage.getSectionHeader(".debug_info");
 			if (debugInfoSection != null) {
+				byteBuffer = elfImage.getSection(debugInfoSection, relocatable);
+				debug_info_bytes = byteBuffer;
+				inlineStrings = new StringTable(byteBuffer);
 				int r = parseDebugInfo(debugInfoSection, byteBuffer);
 				if (r > 0) {
 					return r;
 				}
+				// 32 or 64 bit DWARF is chosen per unit, not by the elf class
+				if (!compileUnits.isEmpty()) {
+					offset_size = compileUnits.get(0).offset_size;
+				}
 			}
+			compileUnitRanges = buildCompileUnitRanges(relocatable);
 
-			Elf32_Shdr shdr = SectionFinder.getSectionHeader(ehdr, file, ".debug_line");
-			byteBuffer = SectionFinder.findSectionByte(ehdr, file, shdr.section_name);
-			calculationRelocation(shdr, byteBuffer, ".rel.debug_line");
-			int x = 0;
-			while (((ByteBuffer) byteBuffer).hasRemaining() && x < compileUnits.size()) {
-				int r = parseHeader(byteBuffer, compileUnits.get(x), memoryOffset);
-				x++;
+			Elf32_Shdr shdr = elfImage.getSectionHeader(".debug_line");
+			byteBuffer = elfImage.getSection(shdr, relocatable);
+			if (byteBuffer != null) {
+				int r = calculationRelocation(shdr, byteBuffer);
+				if (r > 0) {
+					return r;
+				}
+			}
+			debug_line_bytes = byteBuffer;
+			// each unit's program is found by its DW_AT_stmt_list, lazily loaded units decode theirs on first use
+			if (!lazyLoading && debug_line_bytes != null) {
+				int r = parseLinePrograms();
 				if (r > 0) {
 					return r;
 				}
@@ -148,9 +200,9 @@ public class Dwarf {
 			Elf32_Shdr ehFrameSection;
 			long start = 0;
 			long end;
-			if (SectionFinder.getSection(file, ".eh_frame") != null) {
-				ehFrameSection = SectionFinder.getSection(file, ".eh_frame");
-				eh_frame_bytes = SectionFinder.findSectionByte(ehdr, file, ".eh_frame");
+			if (elfImage.getSectionHeader(".eh_frame") != null) {
+				ehFrameSection = elfImage.getSectionHeader(".eh_frame");
+				eh_frame_bytes = elfImage.getSection(ehFrameSection, false);
 				//System.out.println("eh_frame_bytes=" + eh_frame_bytes.limit());
 				//System.out.println(ehFrameSection.sh_size);
 
@@ -160,16 +212,19 @@ public class Dwarf {
 				int max_regs = 0;
 				String bad_reg = "bad register: ";
 				int encoded_ptr_size = 4;
+				String regnames[] = addressSize == 8 ? Definition.dwarf_regnames_x86_64 : Definition.dwarf_regnames_i386;
 
 				while (start < end && eh_frame_bytes.position() < eh_frame_bytes.capacity()) {
 					int saved_start = eh_frame_bytes.position();
 					long length = eh_frame_bytes.getInt() & 0xffffffffL;
-					if (length == 0xffffffff) {
-						length = CommonLib.get64BitsInt(eh_frame_bytes).longValue();
-						offset_size = 8;
+					if (length == 0) {
+						// zero terminator, linkers put one at the end of .eh_frame
+						continue;
+					}
+					if (length == 0xffffffffL) {
+						length = eh_frame_bytes.getLong();
 						initial_length_size = 12;
 					} else {
-						offset_size = 4;
 						initial_length_size = 4;
 					}
 
@@ -177,7 +232,7 @@ public class Dwarf {
 
 					int cieID = (int) (eh_frame_bytes.getInt() & 0xffffffffL);
 
-					int eh_addr_size = 4;
+					int eh_addr_size = addressSize;
 
 					FrameChunk fc;
 					FrameChunk remembered_state = null;
@@ -345,9 +400,9 @@ public class Dwarf {
 								reg_prefix = bad_reg;
 							}
 							if (reg_prefix != null) {
-								//System.out.printf("  DW_CFA_offset: r(%d) %s%s at cfa %d\n", opa, reg_prefix, Definition.dwarf_regnames_i386[opa], roffs * fc.data_factor);
+								//System.out.printf("  DW_CFA_offset: r(%d) %s%s at cfa %d\n", opa, reg_prefix, regnames[opa], roffs * fc.data_factor);
 								fc.fieDetailsKeys.add("DW_CFA_offset");
-								fc.fieDetails.add(new Object[] { "r" + opa, reg_prefix + Definition.dwarf_regnames_i386[opa], roffs * fc.data_factor });
+								fc.fieDetails.add(new Object[] { "r" + opa, reg_prefix + regnames[opa], roffs * fc.data_factor });
 							}
 							if (reg_prefix == null) {
 								fc.col_type[opa] = Definition.DW_CFA_offset;
@@ -358,9 +413,9 @@ public class Dwarf {
 							if (opa >= cie.ncols || opa >= fc.ncols) {
 								reg_prefix = bad_reg;
 							}
-							//System.out.printf("  DW_CFA_restore: %s%s\n", reg_prefix, Definition.dwarf_regnames_i386[opa]);
+							//System.out.printf("  DW_CFA_restore: %s%s\n", reg_prefix, regnames[opa]);
 							fc.fieDetailsKeys.add("DW_CFA_restore");
-							fc.fieDetails.add(new Object[] { reg_prefix, Definition.dwarf_regnames_i386[opa] });
+							fc.fieDetails.add(new Object[] { reg_prefix, regnames[opa] });
 							if (reg_prefix.length() == 0 || reg_prefix.charAt(0) == '\0') {
 								fc.col_type[opa] = cie.col_type[opa];
 								fc.col_offset[opa] = cie.col_offset[opa];
@@ -370,10 +425,10 @@ public class Dwarf {
 							}
 							break;
 						case Definition.DW_CFA_set_loc:
-							long vma = get_encoded_value(eh_frame_bytes, fc.fde_encoding, ehFrameSection, (int) block_end);
+							long vma = get_encoded_value(eh_frame_bytes, fc.fde_encoding, ehFrameSection, eh_addr_size);
 							//System.out.printf("  DW_CFA_set_loc: %x\n", vma);
 							fc.fieDetailsKeys.add("DW_CFA_set_loc");
-							fc.fieDetails.add(new Object[] { reg_prefix, Definition.dwarf_regnames_i386[opa] });
+							fc.fieDetails.add(new Object[] { reg_prefix, regnames[opa] });
 							fc.pc_begin = vma;
 							break;
 						case Definition.DW_CFA_advance_loc1:
@@ -408,9 +463,9 @@ public class Dwarf {
 								reg_prefix = bad_reg;
 							}
 							if (reg_prefix.length() == 0 || reg_prefix.charAt(0) == '\0') {
-								//System.out.printf("  DW_CFA_offset_extended: %s%s at cfa%+ld\n", reg_prefix, Definition.dwarf_regnames_i386[(int) reg], roffs * fc.data_factor);
+								//System.out.printf("  DW_CFA_offset_extended: %s%s at cfa%+ld\n", reg_prefix, regnames[(int) reg], roffs * fc.data_factor);
 								fc.fieDetailsKeys.add("DW_CFA_offset_extended");
-								fc.fieDetails.add(new Object[] { reg_prefix, Definition.dwarf_regnames_i386[(int) reg], roffs * fc.data_factor });
+								fc.fieDetails.add(new Object[] { reg_prefix, regnames[(int) reg], roffs * fc.data_factor });
 							}
 							if (reg_prefix.length() == 0 || reg_prefix.charAt(0) == '\0') {
 								fc.col_type[(int) reg] = Definition.DW_CFA_offset;
@@ -425,9 +480,9 @@ public class Dwarf {
 								reg_prefix = bad_reg;
 							}
 							if (reg_prefix.length() == 0 || reg_prefix.charAt(0) == '\0') {
-								//System.out.printf("  DW_CFA_val_offset: %s%s at cfa%+ld\n", reg_prefix, Definition.dwarf_regnames_i386[(int) reg], roffs * fc.data_factor);
+								//System.out.printf("  DW_CFA_val_offset: %s%s at cfa%+ld\n", reg_prefix, regnames[(int) reg], roffs * fc.data_factor);
 								fc.fieDetailsKeys.add("DW_CFA_val_offset");
-								fc.fieDetails.add(new Object[] { reg_prefix, Definition.dwarf_regnames_i386[(int) reg], roffs * fc.data_factor });
+								fc.fieDetails.add(new Object[] { reg_prefix, regnames[(int) reg], roffs * fc.data_factor });
 							}
 							if (reg_prefix.length() == 0 || reg_prefix.charAt(0) == '\0') {
 								fc.col_type[(int) reg] = Definition.DW_CFA_val_offset;
@@ -440,9 +495,9 @@ public class Dwarf {
 								reg_prefix = bad_reg;
 							}
 							if (reg_prefix.length() == 0 || reg_prefix.charAt(0) == '\0') {
-								//System.out.printf("  DW_CFA_restore_extended: %s%s\n", reg_prefix, Definition.dwarf_regnames_i386[(int) reg]);
+								//System.out.printf("  DW_CFA_restore_extended: %s%s\n", reg_prefix, regnames[(int) reg]);
 								fc.fieDetailsKeys.add("DW_CFA_restore_extended");
-								fc.fieDetails.add(new Object[] { reg_prefix, Definition.dwarf_regnames_i386[(int) reg] });
+								fc.fieDetails.add(new Object[] { reg_prefix, regnames[(int) reg] });
 							}
 							if (reg_prefix.length() == 0 || reg_prefix.charAt(0) == '\0') {
 								fc.col_type[(int) reg] = cie.col_type[(int) reg];
@@ -455,9 +510,9 @@ public class Dwarf {
 								reg_prefix = bad_reg;
 							}
 							if (reg_prefix.length() == 0 || reg_prefix.charAt(0) == '\0') {
-								//System.out.printf("  DW_CFA_undefined: %s%s\n", reg_prefix, Definition.dwarf_regnames_i386[(int) reg]);
+								//System.out.printf("  DW_CFA_undefined: %s%s\n", reg_prefix, regnames[(int) reg]);
 								fc.fieDetailsKeys.add("DW_CFA_undefined");
-								fc.fieDetails.add(new Object[] { reg_prefix, Definition.dwarf_regnames_i386[(int) reg] });
+								fc.fieDetails.add(new Object[] { reg_prefix, regnames[(int) reg] });
 							}
 							if (reg_prefix.length() == 0 || reg_prefix.charAt(0) == '\0') {
 								fc.col_type[(int) reg] = Definition.DW_CFA_undefined;
@@ -470,9 +525,9 @@ public class Dwarf {
 								reg_prefix = bad_reg;
 							}
 							if (reg_prefix.length() == 0 || reg_prefix.charAt(0) == '\0') {
-								//System.out.printf("  DW_CFA_same_value: %s%s\n", reg_prefix, Definition.dwarf_regnames_i386[(int) reg]);
+								//System.out.printf("  DW_CFA_same_value: %s%s\n", reg_prefix, regnames[(int) reg]);
 								fc.fieDetailsKeys.add("DW_CFA_same_value");
-								fc.fieDetails.add(new Object[] { reg_prefix, Definition.dwarf_regnames_i386[(int) reg] });
+								fc.fieDetails.add(new Object[] { reg_prefix, regnames[(int) reg] });
 							}
 							if (reg_prefix.length() == 0 || reg_prefix.charAt(0) == '\0') {
 								fc.col_type[(int) reg] = Definition.DW_CFA_same_value;
@@ -486,9 +541,9 @@ public class Dwarf {
 								reg_prefix = bad_reg;
 							}
 							if (reg_prefix.length() == 0 || reg_prefix.charAt(0) == '\0') {
-								//System.out.printf("  DW_CFA_register: %s%s in ", reg_prefix, Definition.dwarf_regnames_i386[(int) reg]);
+								//System.out.printf("  DW_CFA_register: %s%s in ", reg_prefix, regnames[(int) reg]);
 								fc.fieDetailsKeys.add("DW_CFA_register");
-								fc.fieDetails.add(new Object[] { reg_prefix, Definition.dwarf_regnames_i386[(int) reg] });
+								fc.fieDetails.add(new Object[] { reg_prefix, regnames[(int) reg] });
 							}
 							if (reg_prefix.length() == 0 || reg_prefix.charAt(0) == '\0') {
 								fc.col_type[(int) reg] = Definition.DW_CFA_register;
@@ -536,16 +591,16 @@ public class Dwarf {
 							long cfa_reg = DwarfLib.getULEB128(eh_frame_bytes);
 							long cfa_offset = DwarfLib.getULEB128(eh_frame_bytes);
 							//long cfa_exp = 0;
-							//System.out.println("  DW_CFA_def_cfa: r" + cfa_reg + " " + Definition.dwarf_regnames_i386[(int) cfa_reg] + " ofs " + cfa_offset);
+							//System.out.println("  DW_CFA_def_cfa: r" + cfa_reg + " " + regnames[(int) cfa_reg] + " ofs " + cfa_offset);
 							fc.fieDetailsKeys.add("DW_CFA_def_cfa");
-							fc.fieDetails.add(new Object[] { Definition.dwarf_regnames_i386[(int) cfa_reg], " ofs ", cfa_offset });
+							fc.fieDetails.add(new Object[] { regnames[(int) cfa_reg], " ofs ", cfa_offset });
 							break;
 						case Definition.DW_CFA_def_cfa_register:
 							fc.cfa_reg = (int) DwarfLib.getULEB128(eh_frame_bytes);
 							fc.cfa_exp = 0;
-							//System.out.printf("  DW_CFA_def_cfa_register: %s\n", Definition.dwarf_regnames_i386[fc.cfa_reg]);
+							//System.out.printf("  DW_CFA_def_cfa_register: %s\n", regnames[fc.cfa_reg]);
 							fc.fieDetailsKeys.add("DW_CFA_def_cfa_register");
-							fc.fieDetails.add(new Object[] { Definition.dwarf_regnames_i386[fc.cfa_reg] });
+							fc.fieDetails.add(new Object[] { regnames[fc.cfa_reg] });
 							break;
 						case Definition.DW_CFA_def_cfa_offset:
 							fc.cfa_offset = DwarfLib.getULEB128(eh_frame_bytes);
@@ -593,7 +648,7 @@ public class Dwarf {
 								break;
 							}
 							if (reg_prefix.length() == 0 || reg_prefix.charAt(0) == '\0') {
-								//System.out.printf("  DW_CFA_expression: %s%s (", reg_prefix, Definition.dwarf_regnames_i386[(int) reg]);
+								//System.out.printf("  DW_CFA_expression: %s%s (", reg_prefix, regnames[(int) reg]);
 								decode_location_expression(eh_frame_bytes, eh_addr_size, 0, -1, ul, 0, ehFrameSection);
 								//System.out.printf(")\n");
 								fc.fieDetailsKeys.add("DW_CFA_expression");
@@ -618,7 +673,7 @@ public class Dwarf {
 								break;
 							}
 							if (reg_prefix.length() == 0 || reg_prefix.charAt(0) == '\0') {
-								//System.out.printf("  DW_CFA_val_expression: %s%s (", reg_prefix, Definition.dwarf_regnames_i386[(int) reg]);
+								//System.out.printf("  DW_CFA_val_expression: %s%s (", reg_prefix, regnames[(int) reg]);
 								decode_location_expression(eh_frame_bytes, eh_addr_size, 0, -1, ul, 0, ehFrameSection);
 								//System.out.printf(")\n");
 								fc.fieDetailsKeys.add("DW_CFA_val_expression");
@@ -637,9 +692,9 @@ public class Dwarf {
 								reg_prefix = bad_reg;
 							}
 							if (reg_prefix.length() == 0 || reg_prefix.charAt(0) == '\0') {
-								//System.out.printf("  DW_CFA_offset_extended_sf: %s%s at cfa%+ld\n", reg_prefix, Definition.dwarf_regnames_i386[(int) reg], (long) (l * fc.data_factor));
+								//System.out.printf("  DW_CFA_offset_extended_sf: %s%s at cfa%+ld\n", reg_prefix, regnames[(int) reg], (long) (l * fc.data_factor));
 								fc.fieDetailsKeys.add("DW_CFA_offset_extended_sf");
-								fc.fieDetails.add(new Object[] { reg_prefix, Definition.dwarf_regnames_i386[(int) reg], (long) (l * fc.data_factor) });
+								fc.fieDetails.add(new Object[] { reg_prefix, regnames[(int) reg], (long) (l * fc.data_factor) });
 							}
 							if (reg_prefix.length() == 0 || reg_prefix.charAt(0) == '\0') {
 								fc.col_type[(int) reg] = Definition.DW_CFA_offset;
@@ -654,9 +709,9 @@ public class Dwarf {
 								reg_prefix = bad_reg;
 							}
 							if (reg_prefix.length() == 0 || reg_prefix.charAt(0) == '\0') {
-								//System.out.printf("  DW_CFA_val_offset_sf: %s%s at cfa%+ld\n", reg_prefix, Definition.dwarf_regnames_i386[(int) reg], (long) (l * fc.data_factor));
+								//System.out.printf("  DW_CFA_val_offset_sf: %s%s at cfa%+ld\n", reg_prefix, regnames[(int) reg], (long) (l * fc.data_factor));
 								fc.fieDetailsKeys.add("DW_CFA_val_offset_sf");
-								fc.fieDetails.add(new Object[] { reg_prefix, Definition.dwarf_regnames_i386[(int) reg], (long) (l * fc.data_factor) });
+								fc.fieDetails.add(new Object[] { reg_prefix, regnames[(int) reg], (long) (l * fc.data_factor) });
 							}
 							if (reg_prefix.length() == 0 || reg_prefix.charAt(0) == '\0') {
 								fc.col_type[(int) reg] = Definition.DW_CFA_val_offset;
@@ -670,9 +725,9 @@ public class Dwarf {
 							fc.cfa_offset = fc.cfa_offset * fc.data_factor;
 							fc.cfa_exp = 0;
 
-							//System.out.printf("  DW_CFA_def_cfa_sf: %s ofs %d\n", Definition.dwarf_regnames_i386[fc.cfa_reg], (int) fc.cfa_offset);
+							//System.out.printf("  DW_CFA_def_cfa_sf: %s ofs %d\n", regnames[fc.cfa_reg], (int) fc.cfa_offset);
 							fc.fieDetailsKeys.add("DW_CFA_def_cfa_sf");
-							fc.fieDetails.add(new Object[] { Definition.dwarf_regnames_i386[fc.cfa_reg], (int) fc.cfa_offset });
+							fc.fieDetails.add(new Object[] { regnames[fc.cfa_reg], (int) fc.cfa_offset });
 							break;
 						case Definition.DW_CFA_def_cfa_offset_sf:
 							fc.cfa_offset = DwarfLib.getSLEB128(eh_frame_bytes);
@@ -709,9 +764,9 @@ public class Dwarf {
 								reg_prefix = bad_reg;
 							}
 							if (reg_prefix.length() == 0 || reg_prefix.charAt(0) == '\0') {
-								//System.out.printf("  DW_CFA_GNU_negative_offset_extended: %s%s at cfa%+ld\n", reg_prefix, Definition.dwarf_regnames_i386[(int) reg],(long) (l * fc.data_factor));
+								//System.out.printf("  DW_CFA_GNU_negative_offset_extended: %s%s at cfa%+ld\n", reg_prefix, regnames[(int) reg],(long) (l * fc.data_factor));
 								fc.fieDetailsKeys.add("DW_CFA_GNU_negative_offset_extended");
-								fc.fieDetails.add(new Object[] { reg_prefix, Definition.dwarf_regnames_i386[(int) reg], (long) (l * fc.data_factor) });
+								fc.fieDetails.add(new Object[] { reg_prefix, regnames[(int) reg], (long) (l * fc.data_factor) });
 							}
 							if (reg_prefix.length() == 0 || reg_prefix.charAt(0) == '\0') {
 								fc.col_type[(int) reg] = Definition.DW_CFA_offset;
@@ -724,9 +779,9 @@ public class Dwarf {
 						}
 					}
 				}
-			} else if (SectionFinder.getSection(file, ".debug_frame") != null) {
-				ehFrameSection = SectionFinder.getSection(file, ".debug_frame");
-				eh_frame_bytes = SectionFinder.findSectionByte(ehdr, file, ".debug_frame");
+			} else if (elfImage.getSectionHeader(".debug_frame") != null) {
+				ehFrameSection = elfImage.getSectionHeader(".debug_frame");
+				eh_frame_bytes = elfImage.getSection(ehFrameSection, false);
 
 				//System.out.println("eh_frame_bytes=" + eh_frame_bytes.limit());
 				//System.out.println(ehFrameSection.sh_size);
@@ -737,23 +792,27 @@ public class Dwarf {
 				int max_regs = 0;
 				String bad_reg = "bad register: ";
 				int encoded_ptr_size = 4;
+				String regnames[] = addressSize == 8 ? Definition.dwarf_regnames_x86_64 : Definition.dwarf_regnames_i386;
 
 				while (start < end && eh_frame_bytes.position() < eh_frame_bytes.capacity()) {
 					int saved_start = eh_frame_bytes.position();
 					long length = eh_frame_bytes.getInt() & 0xffffffffL;
-					if (length == 0xffffffff) {
-						length = CommonLib.get64BitsInt(eh_frame_bytes).longValue();
-						offset_size = 8;
+					if (length == 0) {
+						// zero terminator, linkers put one at the end of .eh_frame
+						continue;
+					}
+					if (length == 0xffffffffL) {
+						length = eh_frame_bytes.getLong();
 						initial_length_size = 12;
 					} else {
-						offset_size = 4;
 						initial_length_size = 4;
 					}
 
 					long block_end = saved_start + length + initial_length_size;
-					int cieID = (int) (eh_frame_bytes.getInt() & 0xffffffffL);
+					// the CIE pointer is offset sized, all ones for a CIE in both formats
+					int cieID = (int) byte_get(eh_frame_bytes, initial_length_size == 12 ? 8 : 4);
 
-					int eh_addr_size = 4;
+					int eh_addr_size = addressSize;
 
 					FrameChunk fc;
 					FrameChunk remembered_state = null;
@@ -930,9 +989,9 @@ public class Dwarf {
 								reg_prefix = bad_reg;
 							}
 							if (reg_prefix != null) {
-								//System.out.printf("  DW_CFA_offset: r(%d) %s%s at cfa %d\n", opa, reg_prefix, Definition.dwarf_regnames_i386[opa], roffs * fc.data_factor);
+								//System.out.printf("  DW_CFA_offset: r(%d) %s%s at cfa %d\n", opa, reg_prefix, regnames[opa], roffs * fc.data_factor);
 								fc.fieDetailsKeys.add("DW_CFA_offset");
-								fc.fieDetails.add(new Object[] { "r" + opa, reg_prefix + Definition.dwarf_regnames_i386[opa], roffs * fc.data_factor });
+								fc.fieDetails.add(new Object[] { "r" + opa, reg_prefix + regnames[opa], roffs * fc.data_factor });
 							}
 							if (reg_prefix == null) {
 								fc.col_type[opa] = Definition.DW_CFA_offset;
@@ -943,9 +1002,9 @@ public class Dwarf {
 							if (opa >= cie.ncols || opa >= fc.ncols) {
 								reg_prefix = bad_reg;
 							}
-							//System.out.printf("  DW_CFA_restore: %s%s\n", reg_prefix, Definition.dwarf_regnames_i386[opa]);
+							//System.out.printf("  DW_CFA_restore: %s%s\n", reg_prefix, regnames[opa]);
 							fc.fieDetailsKeys.add("DW_CFA_restore");
-							fc.fieDetails.add(new Object[] { reg_prefix, Definition.dwarf_regnames_i386[opa] });
+							fc.fieDetails.add(new Object[] { reg_prefix, regnames[opa] });
 							if (reg_prefix.length() == 0 || reg_prefix.charAt(0) == '\0') {
 								fc.col_type[opa] = cie.col_type[opa];
 								fc.col_offset[opa] = cie.col_offset[opa];
@@ -955,10 +1014,10 @@ public class Dwarf {
 							}
 							break;
 						case Definition.DW_CFA_set_loc:
-							long vma = get_encoded_value(eh_frame_bytes, fc.fde_encoding, ehFrameSection, (int) block_end);
+							long vma = get_encoded_value(eh_frame_bytes, fc.fde_encoding, ehFrameSection, eh_addr_size);
 							//System.out.printf("  DW_CFA_set_loc: %x\n", vma);
 							fc.fieDetailsKeys.add("DW_CFA_set_loc");
-							fc.fieDetails.add(new Object[] { reg_prefix, Definition.dwarf_regnames_i386[opa] });
+							fc.fieDetails.add(new Object[] { reg_prefix, regnames[opa] });
 							fc.pc_begin = vma;
 							break;
 						case Definition.DW_CFA_advance_loc1:
@@ -993,9 +1052,9 @@ public class Dwarf {
 								reg_prefix = bad_reg;
 							}
 							if (reg_prefix.length() == 0 || reg_prefix.charAt(0) == '\0') {
-								//System.out.printf("  DW_CFA_offset_extended: %s%s at cfa%+ld\n", reg_prefix, Definition.dwarf_regnames_i386[(int) reg], roffs * fc.data_factor);
+								//System.out.printf("  DW_CFA_offset_extended: %s%s at cfa%+ld\n", reg_prefix, regnames[(int) reg], roffs * fc.data_factor);
 								fc.fieDetailsKeys.add("DW_CFA_offset_extended");
-								fc.fieDetails.add(new Object[] { reg_prefix, Definition.dwarf_regnames_i386[(int) reg], roffs * fc.data_factor });
+								fc.fieDetails.add(new Object[] { reg_prefix, regnames[(int) reg], roffs * fc.data_factor });
 							}
 							if (reg_prefix.length() == 0 || reg_prefix.charAt(0) == '\0') {
 								fc.col_type[(int) reg] = Definition.DW_CFA_offset;
@@ -1010,9 +1069,9 @@ public class Dwarf {
 								reg_prefix = bad_reg;
 							}
 							if (reg_prefix.length() == 0 || reg_prefix.charAt(0) == '\0') {
-								//System.out.printf("  DW_CFA_val_offset: %s%s at cfa%+ld\n", reg_prefix, Definition.dwarf_regnames_i386[(int) reg], roffs * fc.data_factor);
+								//System.out.printf("  DW_CFA_val_offset: %s%s at cfa%+ld\n", reg_prefix, regnames[(int) reg], roffs * fc.data_factor);
 								fc.fieDetailsKeys.add("DW_CFA_val_offset");
-								fc.fieDetails.add(new Object[] { reg_prefix, Definition.dwarf_regnames_i386[(int) reg], roffs * fc.data_factor });
+								fc.fieDetails.add(new Object[] { reg_prefix, regnames[(int) reg], roffs * fc.data_factor });
 							}
 							if (reg_prefix.length() == 0 || reg_prefix.charAt(0) == '\0') {
 								fc.col_type[(int) reg] = Definition.DW_CFA_val_offset;
@@ -1025,9 +1084,9 @@ public class Dwarf {
 								reg_prefix = bad_reg;
 							}
 							if (reg_prefix.length() == 0 || reg_prefix.charAt(0) == '\0') {
-								//System.out.printf("  DW_CFA_restore_extended: %s%s\n", reg_prefix, Definition.dwarf_regnames_i386[(int) reg]);
+								//System.out.printf("  DW_CFA_restore_extended: %s%s\n", reg_prefix, regnames[(int) reg]);
 								fc.fieDetailsKeys.add("DW_CFA_restore_extended");
-								fc.fieDetails.add(new Object[] { reg_prefix, Definition.dwarf_regnames_i386[(int) reg] });
+								fc.fieDetails.add(new Object[] { reg_prefix, regnames[(int) reg] });
 							}
 							if (reg_prefix.length() == 0 || reg_prefix.charAt(0) == '\0') {
 								fc.col_type[(int) reg] = cie.col_type[(int) reg];
@@ -1040,9 +1099,9 @@ public class Dwarf {
 								reg_prefix = bad_reg;
 							}
 							if (reg_prefix.length() == 0 || reg_prefix.charAt(0) == '\0') {
-								//System.out.printf("  DW_CFA_undefined: %s%s\n", reg_prefix, Definition.dwarf_regnames_i386[(int) reg]);
+								//System.out.printf("  DW_CFA_undefined: %s%s\n", reg_prefix, regnames[(int) reg]);
 								fc.fieDetailsKeys.add("DW_CFA_undefined");
-								fc.fieDetails.add(new Object[] { reg_prefix, Definition.dwarf_regnames_i386[(int) reg] });
+								fc.fieDetails.add(new Object[] { reg_prefix, regnames[(int) reg] });
 							}
 							if (reg_prefix.length() == 0 || reg_prefix.charAt(0) == '\0') {
 								fc.col_type[(int) reg] = Definition.DW_CFA_undefined;
@@ -1055,9 +1114,9 @@ public class Dwarf {
 								reg_prefix = bad_reg;
 							}
 							if (reg_prefix.length() == 0 || reg_prefix.charAt(0) == '\0') {
-								//System.out.printf("  DW_CFA_same_value: %s%s\n", reg_prefix, Definition.dwarf_regnames_i386[(int) reg]);
+								//System.out.printf("  DW_CFA_same_value: %s%s\n", reg_prefix, regnames[(int) reg]);
 								fc.fieDetailsKeys.add("DW_CFA_same_value");
-								fc.fieDetails.add(new Object[] { reg_prefix, Definition.dwarf_regnames_i386[(int) reg] });
+								fc.fieDetails.add(new Object[] { reg_prefix, regnames[(int) reg] });
 							}
 							if (reg_prefix.length() == 0 || reg_prefix.charAt(0) == '\0') {
 								fc.col_type[(int) reg] = Definition.DW_CFA_same_value;
@@ -1071,9 +1130,9 @@ public class Dwarf {
 								reg_prefix = bad_reg;
 							}
 							if (reg_prefix.length() == 0 || reg_prefix.charAt(0) == '\0') {
-								//System.out.printf("  DW_CFA_register: %s%s in ", reg_prefix, Definition.dwarf_regnames_i386[(int) reg]);
+								//System.out.printf("  DW_CFA_register: %s%s in ", reg_prefix, regnames[(int) reg]);
 								fc.fieDetailsKeys.add("DW_CFA_register");
-								fc.fieDetails.add(new Object[] { reg_prefix, Definition.dwarf_regnames_i386[(int) reg] });
+								fc.fieDetails.add(new Object[] { reg_prefix, regnames[(int) reg] });
 							}
 							if (reg_prefix.length() == 0 || reg_prefix.charAt(0) == '\0') {
 								fc.col_type[(int) reg] = Definition.DW_CFA_register;
@@ -1121,16 +1180,16 @@ public class Dwarf {
 							long cfa_reg = DwarfLib.getULEB128(eh_frame_bytes);
 							long cfa_offset = DwarfLib.getULEB128(eh_frame_bytes);
 							//long cfa_exp = 0;
-							//System.out.println("  DW_CFA_def_cfa: r" + cfa_reg + " " + Definition.dwarf_regnames_i386[(int) cfa_reg] + " ofs " + cfa_offset);
+							//System.out.println("  DW_CFA_def_cfa: r" + cfa_reg + " " + regnames[(int) cfa_reg] + " ofs " + cfa_offset);
 							fc.fieDetailsKeys.add("DW_CFA_def_cfa");
-							fc.fieDetails.add(new Object[] { Definition.dwarf_regnames_i386[(int) cfa_reg], " ofs ", cfa_offset });
+							fc.fieDetails.add(new Object[] { regnames[(int) cfa_reg], " ofs ", cfa_offset });
 							break;
 						case Definition.DW_CFA_def_cfa_register:
 							fc.cfa_reg = (int) DwarfLib.getULEB128(eh_frame_bytes);
 							fc.cfa_exp = 0;
-							//System.out.printf("  DW_CFA_def_cfa_register: %s\n", Definition.dwarf_regnames_i386[fc.cfa_reg]);
+							//System.out.printf("  DW_CFA_def_cfa_register: %s\n", regnames[fc.cfa_reg]);
 							fc.fieDetailsKeys.add("DW_CFA_def_cfa_register");
-							fc.fieDetails.add(new Object[] { Definition.dwarf_regnames_i386[fc.cfa_reg] });
+							fc.fieDetails.add(new Object[] { regnames[fc.cfa_reg] });
 							break;
 						case Definition.DW_CFA_def_cfa_offset:
 							fc.cfa_offset = DwarfLib.getULEB128(eh_frame_bytes);
@@ -1178,7 +1237,7 @@ public class Dwarf {
 								break;
 							}
 							if (reg_prefix.length() == 0 || reg_prefix.charAt(0) == '\0') {
-								//System.out.printf("  DW_CFA_expression: %s%s (", reg_prefix, Definition.dwarf_regnames_i386[(int) reg]);
+								//System.out.printf("  DW_CFA_expression: %s%s (", reg_prefix, regnames[(int) reg]);
 								decode_location_expression(eh_frame_bytes, eh_addr_size, 0, -1, ul, 0, ehFrameSection);
 								//System.out.printf(")\n");
 								fc.fieDetailsKeys.add("DW_CFA_expression");
@@ -1203,7 +1262,7 @@ public class Dwarf {
 								break;
 							}
 							if (reg_prefix.length() == 0 || reg_prefix.charAt(0) == '\0') {
-								//System.out.printf("  DW_CFA_val_expression: %s%s (", reg_prefix, Definition.dwarf_regnames_i386[(int) reg]);
+								//System.out.printf("  DW_CFA_val_expression: %s%s (", reg_prefix, regnames[(int) reg]);
 								decode_location_expression(eh_frame_bytes, eh_addr_size, 0, -1, ul, 0, ehFrameSection);
 								//System.out.printf(")\n");
 								fc.fieDetailsKeys.add("DW_CFA_val_expression");
@@ -1222,9 +1281,9 @@ public class Dwarf {
 								reg_prefix = bad_reg;
 							}
 							if (reg_prefix.length() == 0 || reg_prefix.charAt(0) == '\0') {
-								//System.out.printf("  DW_CFA_offset_extended_sf: %s%s at cfa%+ld\n", reg_prefix, Definition.dwarf_regnames_i386[(int) reg], (long) (l * fc.data_factor));
+								//System.out.printf("  DW_CFA_offset_extended_sf: %s%s at cfa%+ld\n", reg_prefix, regnames[(int) reg], (long) (l * fc.data_factor));
 								fc.fieDetailsKeys.add("DW_CFA_offset_extended_sf");
-								fc.fieDetails.add(new Object[] { reg_prefix, Definition.dwarf_regnames_i386[(int) reg], (long) (l * fc.data_factor) });
+								fc.fieDetails.add(new Object[] { reg_prefix, regnames[(int) reg], (long) (l * fc.data_factor) });
 							}
 							if (reg_prefix.length() == 0 || reg_prefix.charAt(0) == '\0') {
 								fc.col_type[(int) reg] = Definition.DW_CFA_offset;
@@ -1239,9 +1298,9 @@ public class Dwarf {
 								reg_prefix = bad_reg;
 							}
 							if (reg_prefix.length() == 0 || reg_prefix.charAt(0) == '\0') {
-								//System.out.printf("  DW_CFA_val_offset_sf: %s%s at cfa%+ld\n", reg_prefix, Definition.dwarf_regnames_i386[(int) reg], (long) (l * fc.data_factor));
+								//System.out.printf("  DW_CFA_val_offset_sf: %s%s at cfa%+ld\n", reg_prefix, regnames[(int) reg], (long) (l * fc.data_factor));
 								fc.fieDetailsKeys.add("DW_CFA_val_offset_sf");
-								fc.fieDetails.add(new Object[] { reg_prefix, Definition.dwarf_regnames_i386[(int) reg], (long) (l * fc.data_factor) });
+								fc.fieDetails.add(new Object[] { reg_prefix, regnames[(int) reg], (long) (l * fc.data_factor) });
 							}
 							if (reg_prefix.length() == 0 || reg_prefix.charAt(0) == '\0') {
 								fc.col_type[(int) reg] = Definition.DW_CFA_val_offset;
@@ -1255,9 +1314,9 @@ public class Dwarf {
 							fc.cfa_offset = fc.cfa_offset * fc.data_factor;
 							fc.cfa_exp = 0;
 
-							//System.out.printf("  DW_CFA_def_cfa_sf: %s ofs %d\n", Definition.dwarf_regnames_i386[fc.cfa_reg], (int) fc.cfa_offset);
+							//System.out.printf("  DW_CFA_def_cfa_sf: %s ofs %d\n", regnames[fc.cfa_reg], (int) fc.cfa_offset);
 							fc.fieDetailsKeys.add("DW_CFA_def_cfa_sf");
-							fc.fieDetails.add(new Object[] { Definition.dwarf_regnames_i386[fc.cfa_reg], (int) fc.cfa_offset });
+							fc.fieDetails.add(new Object[] { regnames[fc.cfa_reg], (int) fc.cfa_offset });
 							break;
 						case Definition.DW_CFA_def_cfa_offset_sf:
 							fc.cfa_offset = DwarfLib.getSLEB128(eh_frame_bytes);
@@ -1294,9 +1353,9 @@ public class Dwarf {
 								reg_prefix = bad_reg;
 							}
 							if (reg_prefix.length() == 0 || reg_prefix.charAt(0) == '\0') {
-								//System.out.printf("  DW_CFA_GNU_negative_offset_extended: %s%s at cfa%+ld\n", reg_prefix, Definition.dwarf_regnames_i386[(int) reg],(long) (l * fc.data_factor));
+								//System.out.printf("  DW_CFA_GNU_negative_offset_extended: %s%s at cfa%+ld\n", reg_prefix, regnames[(int) reg],(long) (l * fc.data_factor));
 								fc.fieDetailsKeys.add("DW_CFA_GNU_negative_offset_extended");
-								fc.fieDetails.add(new Object[] { reg_prefix, Definition.dwarf_regnames_i386[(int) reg], (long) (l * fc.data_factor) });
+								fc.fieDetails.add(new Object[] { reg_prefix, regnames[(int) reg], (long) (l * fc.data_factor) });
 							}
 							if (reg_prefix.length() == 0 || reg_prefix.charAt(0) == '\0') {
 								fc.col_type[(int) reg] = Definition.DW_CFA_offset;
@@ -1314,34 +1373,69 @@ public class Dwarf {
 				System.exit(410);
 			}
 
-			// parse .debug_loc
-			debug_loc = SectionFinder.findSectionByte(ehdr, file, ".debug_loc");
+			if (lazyLoading) {
+				debugLocPending = true;
+			} else {
+				int r = parseDebugLoc();
+				if (r > 0) {
+					return r;
+				}
+			}
+		} catch (OutOfMemoryError e) {
+			e.printStackTrace();
+			loadingMessage = file.getAbsolutePath() + " : out of memory error";
+			return 19;
+		}
+		isLoading = false;
+		return 0;
+	}
+
+	/**
+	 * Location lists of .debug_loc, decoded on the first call when the file
+	 * was opened with lazyLoading.
+	 */
+	public Vector<DebugLocEntry> getDebugLocEntries() {
+		if (debugLocPending) {
+			synchronized (this) {
+				if (debugLocPending) {
+					parseDebugLoc();
+					debugLocPending = false;
+				}
+			}
+		}
+		return debugLocEntries;
+	}
+
+	private int parseDebugLoc() {
+		long start;
+		long end;
+		debug_loc = elfImage.getSection(".debug_loc");
 
 //						int compileUnitIndex = 0;
-			while (debug_loc != null && debug_loc.hasRemaining()) {
-				int debugLocOffset = debug_loc.position();
-				start = debug_loc.getInt();
-				end = debug_loc.getInt();
-				if (start == 0 && end == 0) {
-					//System.out.println("<End of list>\n");
+		while (debug_loc != null && debug_loc.hasRemaining()) {
+			int debugLocOffset = debug_loc.position();
+			start = byte_get(debug_loc, addressSize);
+			end = byte_get(debug_loc, addressSize);
+			if (start == 0 && end == 0) {
+				//System.out.println("<End of list>\n");
 //										compileUnitIndex++;
-					//System.out.println(compileUnitIndex);
-					continue;
-				}
-				int blockSize = debug_loc.getShort();
-				if (blockSize < 0) {
-					break;
-				}
-				byte[] block = new byte[blockSize];
-				debug_loc.get(block);
+				//System.out.println(compileUnitIndex);
+				continue;
+			}
+			int blockSize = debug_loc.getShort();
+			if (blockSize < 0) {
+				break;
+			}
+			byte[] block = new byte[blockSize];
+			debug_loc.get(block);
 
-				//if (DwarfGlobal.debug) {
-				//System.out.println("---------------------------");
-				//System.out.println(Integer.toHexString(start) + "," + Integer.toHexString(end) + "," + blockSize + "," + Hex.encodeHexString(block) + " , "+ Definition.getOPName(0xff & block[0]));
-				//}
+			//if (DwarfGlobal.debug) {
+			//System.out.println("---------------------------");
+			//System.out.println(Integer.toHexString(start) + "," + Integer.toHexString(end) + "," + blockSize + "," + Hex.encodeHexString(block) + " , "+ Definition.getOPName(0xff & block[0]));
+			//}
 
-				DebugLocEntry debugLocEntry = new DebugLocEntry();
-				//				System.out.println(compileUnitIndex + " = " + start);
+			DebugLocEntry debugLocEntry = new DebugLocEntry();
+			//				System.out.println(compileUnitIndex + " = " + start);
 //								long base_address = 0;
 //								System.out.println(compileUnits.size());
 //								if (compileUnits.get(compileUnitIndex).getDebugInfoEntryByName("DW_TAG_compile_unit").size() > 0
@@ -1349,655 +1443,644 @@ public class Dwarf {
 //									base_address = (Long) compileUnits.get(compileUnitIndex).getDebugInfoEntryByName("DW_TAG_compile_unit").get(0).debugInfoAbbrevEntries.get("DW_AT_low_pc").value;
 //								}
 //								System.out.println(base_address);
-				debugLocEntry.offset = debugLocOffset;
-				debugLocEntry.start = start;
-				debugLocEntry.end = end;
-				debugLocEntry.blockSize = blockSize;
-				debugLocEntry.blocks = block;
-				debugLocEntry.unsignedBlocks = CommonLib.unsignedByteArray(block);
-				debugLocEntry.name = Definition.getOPName(0xff & block[0]);
-
-				int offset = 0;
-				int loc_len = debugLocEntry.blockSize;
+			debugLocEntry.offset = debugLocOffset;
+			debugLocEntry.start = start;
+			debugLocEntry.end = end;
+			debugLocEntry.blockSize = blockSize;
+			debugLocEntry.blocks = block;
+			debugLocEntry.unsignedBlocks = CommonLib.unsignedByteArray(block);
+			debugLocEntry.name = blockSize == 0 ? "" : Definition.getOPName(0xff & block[0]);
+
+			int offset = 0;
+			int loc_len = debugLocEntry.blockSize;
+			while (offset < loc_len) {
+				debugLocEntry.op_count = 0;
 				while (offset < loc_len) {
-					debugLocEntry.op_count = 0;
-					while (offset < loc_len) {
-						long operand1 = 0;
-						long operand2 = 0;
-						int atom = 0;
-
-						debugLocEntry.op_count++;
-						atom = debugLocEntry.blocks[offset] & 0xff;
-						offset++;
-						if (DwarfGlobal.debug) {
-							//System.out.println(Definition.getOPName(atom));
-						}
-						switch (atom) {
-						case Definition.DW_OP_reg0:
-						case Definition.DW_OP_reg1:
-						case Definition.DW_OP_reg2:
-						case Definition.DW_OP_reg3:
-						case Definition.DW_OP_reg4:
-						case Definition.DW_OP_reg5:
-						case Definition.DW_OP_reg6:
-						case Definition.DW_OP_reg7:
-						case Definition.DW_OP_reg8:
-						case Definition.DW_OP_reg9:
-						case Definition.DW_OP_reg10:
-						case Definition.DW_OP_reg11:
-						case Definition.DW_OP_reg12:
-						case Definition.DW_OP_reg13:
-						case Definition.DW_OP_reg14:
-						case Definition.DW_OP_reg15:
-						case Definition.DW_OP_reg16:
-						case Definition.DW_OP_reg17:
-						case Definition.DW_OP_reg18:
-						case Definition.DW_OP_reg19:
-						case Definition.DW_OP_reg20:
-						case Definition.DW_OP_reg21:
-						case Definition.DW_OP_reg22:
-						case Definition.DW_OP_reg23:
-						case Definition.DW_OP_reg24:
-						case Definition.DW_OP_reg25:
-						case Definition.DW_OP_reg26:
-						case Definition.DW_OP_reg27:
-						case Definition.DW_OP_reg28:
-						case Definition.DW_OP_reg29:
-						case Definition.DW_OP_reg30:
-						case Definition.DW_OP_reg31:
-							break;
-
-						case Definition.DW_OP_regx:
-							operand1 = DwarfLib.getULEB128(ByteBuffer.wrap(Arrays.copyOfRange(debugLocEntry.blocks, offset, debugLocEntry.blocks.length)));
-							//							operand1 = _dwarf_decode_u_leb128(loc_ptr, &leb128_length);
-							//							loc_ptr = loc_ptr + leb128_length;
-							offset = offset + DwarfLib.getULEB128Count(ByteBuffer.wrap(Arrays.copyOfRange(debugLocEntry.blocks, offset, debugLocEntry.blocks.length)));
-							break;
-
-						case Definition.DW_OP_lit0:
-						case Definition.DW_OP_lit1:
-						case Definition.DW_OP_lit2:
-						case Definition.DW_OP_lit3:
-						case Definition.DW_OP_lit4:
-						case Definition.DW_OP_lit5:
-						case Definition.DW_OP_lit6:
-						case Definition.DW_OP_lit7:
-						case Definition.DW_OP_lit8:
-						case Definition.DW_OP_lit9:
-						case Definition.DW_OP_lit10:
-						case Definition.DW_OP_lit11:
-						case Definition.DW_OP_lit12:
-						case Definition.DW_OP_lit13:
-						case Definition.DW_OP_lit14:
-						case Definition.DW_OP_lit15:
-						case Definition.DW_OP_lit16:
-						case Definition.DW_OP_lit17:
-						case Definition.DW_OP_lit18:
-						case Definition.DW_OP_lit19:
-						case Definition.DW_OP_lit20:
-						case Definition.DW_OP_lit21:
-						case Definition.DW_OP_lit22:
-						case Definition.DW_OP_lit23:
-						case Definition.DW_OP_lit24:
-						case Definition.DW_OP_lit25:
-						case Definition.DW_OP_lit26:
-						case Definition.DW_OP_lit27:
-						case Definition.DW_OP_lit28:
-						case Definition.DW_OP_lit29:
-						case Definition.DW_OP_lit30:
-						case Definition.DW_OP_lit31:
-							operand1 = atom - Definition.DW_OP_lit0;
-							break;
-
-						case Definition.DW_OP_addr:
-							//READ_UNALIGNED(dbg, operand1, Dwarf_Unsigned, loc_ptr, addressSize);
-							if (addressSize == 4) {
-								operand1 = CommonLib.getInt(debugLocEntry.blocks, offset);
-							} else {
-								operand1 = CommonLib.getLong(CommonLib.byteArrayToIntArray(debugLocEntry.blocks), offset);
-							}
-							//							loc_ptr += addressSize;
-							offset += addressSize;
-							break;
-
-						case Definition.DW_OP_const1u:
-							operand1 = 0xff & debugLocEntry.blocks[offset];
-							offset = offset + 1;
-							break;
+					long operand1 = 0;
+					long operand2 = 0;
+					int atom = 0;
 
-						case Definition.DW_OP_const1s:
+					debugLocEntry.op_count++;
+					atom = debugLocEntry.blocks[offset] & 0xff;
+					offset++;
+					if (DwarfGlobal.debug) {
+						//System.out.println(Definition.getOPName(atom));
+					}
+					switch (atom) {
+					case Definition.DW_OP_reg0:
+					case Definition.DW_OP_reg1:
+					case Definition.DW_OP_reg2:
+					case Definition.DW_OP_reg3:
+					case Definition.DW_OP_reg4:
+					case Definition.DW_OP_reg5:
+					case Definition.DW_OP_reg6:
+					case Definition.DW_OP_reg7:
+					case Definition.DW_OP_reg8:
+					case Definition.DW_OP_reg9:
+					case Definition.DW_OP_reg10:
+					case Definition.DW_OP_reg11:
+					case Definition.DW_OP_reg12:
+					case Definition.DW_OP_reg13:
+					case Definition.DW_OP_reg14:
+					case Definition.DW_OP_reg15:
+					case Definition.DW_OP_reg16:
+					case Definition.DW_OP_reg17:
+					case Definition.DW_OP_reg18:
+					case Definition.DW_OP_reg19:
+					case Definition.DW_OP_reg20:
+					case Definition.DW_OP_reg21:
+					case Definition.DW_OP_reg22:
+					case Definition.DW_OP_reg23:
+					case Definition.DW_OP_reg24:
+					case Definition.DW_OP_reg25:
+					case Definition.DW_OP_reg26:
+					case Definition.DW_OP_reg27:
+					case Definition.DW_OP_reg28:
+					case Definition.DW_OP_reg29:
+					case Definition.DW_OP_reg30:
+					case Definition.DW_OP_reg31:
+						break;
+
+					case Definition.DW_OP_regx:
+						operand1 = DwarfLib.getULEB128(ByteBuffer.wrap(Arrays.copyOfRange(debugLocEntry.blocks, offset, debugLocEntry.blocks.length)));
+						//							operand1 = _dwarf_decode_u_leb128(loc_ptr, &leb128_length);
+						//							loc_ptr = loc_ptr + leb128_length;
+						offset = offset + DwarfLib.getULEB128Count(ByteBuffer.wrap(Arrays.copyOfRange(debugLocEntry.blocks, offset, debugLocEntry.blocks.length)));
+						break;
+
+					case Definition.DW_OP_lit0:
+					case Definition.DW_OP_lit1:
+					case Definition.DW_OP_lit2:
+					case Definition.DW_OP_lit3:
+					case Definition.DW_OP_lit4:
+					case Definition.DW_OP_lit5:
+					case Definition.DW_OP_lit6:
+					case Definition.DW_OP_lit7:
+					case Definition.DW_OP_lit8:
+					case Definition.DW_OP_lit9:
+					case Definition.DW_OP_lit10:
+					case Definition.DW_OP_lit11:
+					case Definition.DW_OP_lit12:
+					case Definition.DW_OP_lit13:
+					case Definition.DW_OP_lit14:
+					case Definition.DW_OP_lit15:
+					case Definition.DW_OP_lit16:
+					case Definition.DW_OP_lit17:
+					case Definition.DW_OP_lit18:
+					case Definition.DW_OP_lit19:
+					case Definition.DW_OP_lit20:
+					case Definition.DW_OP_lit21:
+					case Definition.DW_OP_lit22:
+					case Definition.DW_OP_lit23:
+					case Definition.DW_OP_lit24:
+					case Definition.DW_OP_lit25:
+					case Definition.DW_OP_lit26:
+					case Definition.DW_OP_lit27:
+					case Definition.DW_OP_lit28:
+					case Definition.DW_OP_lit29:
+					case Definition.DW_OP_lit30:
+					case Definition.DW_OP_lit31:
+						operand1 = atom - Definition.DW_OP_lit0;
+						break;
+
+					case Definition.DW_OP_addr:
+						//READ_UNALIGNED(dbg, operand1, Dwarf_Unsigned, loc_ptr, addressSize);
+						if (addressSize == 4) {
+							operand1 = CommonLib.getInt(debugLocEntry.blocks, offset);
+						} else {
+							operand1 = CommonLib.getLong(CommonLib.byteArrayToIntArray(debugLocEntry.blocks), offset);
+						}
+						//							loc_ptr += addressSize;
+						offset += addressSize;
+						break;
+
+					case Definition.DW_OP_const1u:
+						operand1 = 0xff & debugLocEntry.blocks[offset];
+						offset = offset + 1;
+						break;
+
+					case Definition.DW_OP_const1s:
+						operand1 = debugLocEntry.blocks[offset];
+						//SIGN_EXTEND(operand1, 1);
+						offset = offset + 1;
+						break;
+
+					case Definition.DW_OP_const2u:
+						//							READ_UNALIGNED(dbg, operand1, Dwarf_Unsigned, loc_ptr, 2);
+						operand1 = CommonLib.getShort(CommonLib.byteArrayToIntArray(debugLocEntry.blocks), offset);
+						//							loc_ptr = loc_ptr + 2;
+						offset = offset + 2;
+						break;
+
+					case Definition.DW_OP_const2s:
+						//							READ_UNALIGNED(dbg, operand1, Dwarf_Unsigned, loc_ptr, 2);
+						operand1 = CommonLib.getShort(CommonLib.byteArrayToIntArray(debugLocEntry.blocks), offset);
+						//SIGN_EXTEND(operand1, 2);
+						//loc_ptr = loc_ptr + 2;
+						offset = offset + 2;
+						break;
+
+					case Definition.DW_OP_const4u:
+						//READ_UNALIGNED(dbg, operand1, Dwarf_Unsigned, loc_ptr, 4);
+						operand1 = CommonLib.getInt(debugLocEntry.blocks, offset);
+						//loc_ptr = loc_ptr + 4;
+						offset = offset + 4;
+						break;
+
+					case Definition.DW_OP_const4s:
+						//READ_UNALIGNED(dbg, operand1, Dwarf_Unsigned, loc_ptr, 4);
+						operand1 = CommonLib.getInt(debugLocEntry.blocks, offset);
+						//SIGN_EXTEND(operand1, 4);
+						//loc_ptr = loc_ptr + 4;
+						offset = offset + 4;
+						break;
+
+					case Definition.DW_OP_const8u:
+						//READ_UNALIGNED(dbg, operand1, Dwarf_Unsigned, loc_ptr, 8);
+						operand1 = CommonLib.getLong(CommonLib.byteArrayToIntArray(debugLocEntry.blocks), offset);
+						//loc_ptr = loc_ptr + 8;
+						offset = offset + 8;
+						break;
+
+					case Definition.DW_OP_const8s:
+						//READ_UNALIGNED(dbg, operand1, Dwarf_Unsigned, loc_ptr, 8);
+						operand1 = CommonLib.getLong(CommonLib.byteArrayToIntArray(debugLocEntry.blocks), offset);
+						//loc_ptr = loc_ptr + 8;
+						offset = offset + 8;
+						break;
+
+					case Definition.DW_OP_constu:
+						//operand1 = _dwarf_decode_u_leb128(loc_ptr, &leb128_length);
+						operand1 = DwarfLib.getULEB128(ByteBuffer.wrap(Arrays.copyOfRange(debugLocEntry.blocks, offset, debugLocEntry.blocks.length)));
+						//loc_ptr = loc_ptr + leb128_length;
+						//offset = offset + leb128_length;
+						offset = offset + DwarfLib.getULEB128Count(ByteBuffer.wrap(Arrays.copyOfRange(debugLocEntry.blocks, offset, debugLocEntry.blocks.length)));
+						break;
+
+					case Definition.DW_OP_consts:
+						//operand1 = _dwarf_decode_s_leb128(loc_ptr, &leb128_length);
+						operand1 = DwarfLib.getSLEB128(ByteBuffer.wrap(Arrays.copyOfRange(debugLocEntry.blocks, offset, debugLocEntry.blocks.length)));
+						//loc_ptr = loc_ptr + leb128_length;
+						//offset = offset + leb128_length;
+						offset = offset + DwarfLib.getSLEB128Count(ByteBuffer.wrap(Arrays.copyOfRange(debugLocEntry.blocks, offset, debugLocEntry.blocks.length)));
+						break;
+
+					case Definition.DW_OP_fbreg:
+						//operand1 = _dwarf_decode_s_leb128(loc_ptr, &leb128_length);
+						operand1 = DwarfLib.getSLEB128(ByteBuffer.wrap(Arrays.copyOfRange(debugLocEntry.blocks, offset, debugLocEntry.blocks.length)));
+						//loc_ptr = loc_ptr + leb128_length;
+						//offset = offset + leb128_length;
+						offset = offset + DwarfLib.getSLEB128Count(ByteBuffer.wrap(Arrays.copyOfRange(debugLocEntry.blocks, offset, debugLocEntry.blocks.length)));
+						break;
+					case Definition.DW_OP_breg0:
+					case Definition.DW_OP_breg1:
+					case Definition.DW_OP_breg2:
+					case Definition.DW_OP_breg3:
+					case Definition.DW_OP_breg4:
+					case Definition.DW_OP_breg5:
+					case Definition.DW_OP_breg6:
+					case Definition.DW_OP_breg7:
+					case Definition.DW_OP_breg8:
+					case Definition.DW_OP_breg9:
+					case Definition.DW_OP_breg10:
+					case Definition.DW_OP_breg11:
+					case Definition.DW_OP_breg12:
+					case Definition.DW_OP_breg13:
+					case Definition.DW_OP_breg14:
+					case Definition.DW_OP_breg15:
+					case Definition.DW_OP_breg16:
+					case Definition.DW_OP_breg17:
+					case Definition.DW_OP_breg18:
+					case Definition.DW_OP_breg19:
+					case Definition.DW_OP_breg20:
+					case Definition.DW_OP_breg21:
+					case Definition.DW_OP_breg22:
+					case Definition.DW_OP_breg23:
+					case Definition.DW_OP_breg24:
+					case Definition.DW_OP_breg25:
+					case Definition.DW_OP_breg26:
+					case Definition.DW_OP_breg27:
+					case Definition.DW_OP_breg28:
+					case Definition.DW_OP_breg29:
+					case Definition.DW_OP_breg30:
+					case Definition.DW_OP_breg31:
+						//operand1 = _dwarf_decode_s_leb128(loc_ptr, &leb128_length);
+						operand1 = DwarfLib.getSLEB128(ByteBuffer.wrap(Arrays.copyOfRange(debugLocEntry.blocks, offset, debugLocEntry.blocks.length)));
+						//loc_ptr = loc_ptr + leb128_length;
+						//offset = offset + leb128_length;
+						offset = offset + DwarfLib.getSLEB128Count(ByteBuffer.wrap(Arrays.copyOfRange(debugLocEntry.blocks, offset, debugLocEntry.blocks.length)));
+						break;
+
+					case Definition.DW_OP_bregx:
+						/* uleb reg num followed by sleb offset */
+						//operand1 = _dwarf_decode_u_leb128(loc_ptr, &leb128_length);
+						operand1 = DwarfLib.getULEB128(ByteBuffer.wrap(Arrays.copyOfRange(debugLocEntry.blocks, offset, debugLocEntry.blocks.length)));
+						//loc_ptr = loc_ptr + leb128_length;
+						//offset = offset + leb128_length;
+						offset = offset + DwarfLib.getULEB128Count(ByteBuffer.wrap(Arrays.copyOfRange(debugLocEntry.blocks, offset, debugLocEntry.blocks.length)));
+
+						//operand2 = _dwarf_decode_s_leb128(loc_ptr, &leb128_length);
+						operand2 = DwarfLib.getSLEB128(ByteBuffer.wrap(Arrays.copyOfRange(debugLocEntry.blocks, offset, debugLocEntry.blocks.length)));
+						//loc_ptr = loc_ptr + leb128_length;
+						//offset = offset + leb128_length;
+						offset = offset + DwarfLib.getSLEB128Count(ByteBuffer.wrap(Arrays.copyOfRange(debugLocEntry.blocks, offset, debugLocEntry.blocks.length)));
+						break;
+
+					case Definition.DW_OP_dup:
+					case Definition.DW_OP_drop:
+						break;
+
+					case Definition.DW_OP_pick:
+						//operand1 = *(Dwarf_Small *) loc_ptr;
+						operand1 = debugLocEntry.blocks[offset];
+						//loc_ptr = loc_ptr + 1;
+						offset = offset + 1;
+						break;
+
+					case Definition.DW_OP_over:
+					case Definition.DW_OP_swap:
+					case Definition.DW_OP_rot:
+					case Definition.DW_OP_deref:
+						break;
+
+					case Definition.DW_OP_deref_size:
+						//operand1 = *(Dwarf_Small *) loc_ptr;
+						operand1 = debugLocEntry.blocks[offset];
+						//loc_ptr = loc_ptr + 1;
+						offset = offset + 1;
+						break;
+
+					case Definition.DW_OP_xderef:
+						break;
+
+					case Definition.DW_OP_xderef_size:
+						//operand1 = *(Dwarf_Small *) loc_ptr;
+						operand1 = debugLocEntry.blocks[offset];
+						//loc_ptr = loc_ptr + 1;
+						offset = offset + 1;
+						break;
+
+					case Definition.DW_OP_abs:
+					case Definition.DW_OP_and:
+					case Definition.DW_OP_div:
+					case Definition.DW_OP_minus:
+					case Definition.DW_OP_mod:
+					case Definition.DW_OP_mul:
+					case Definition.DW_OP_neg:
+					case Definition.DW_OP_not:
+					case Definition.DW_OP_or:
+					case Definition.DW_OP_plus:
+						break;
+
+					case Definition.DW_OP_plus_uconst:
+						//operand1 = _dwarf_decode_u_leb128(loc_ptr, &leb128_length);
+						operand1 = DwarfLib.getULEB128(ByteBuffer.wrap(Arrays.copyOfRange(debugLocEntry.blocks, offset, debugLocEntry.blocks.length)));
+						//loc_ptr = loc_ptr + leb128_length;
+						//offset = offset + leb128_length;
+						offset = offset + DwarfLib.getULEB128Count(ByteBuffer.wrap(Arrays.copyOfRange(debugLocEntry.blocks, offset, debugLocEntry.blocks.length)));
+						break;
+
+					case Definition.DW_OP_shl:
+					case Definition.DW_OP_shr:
+					case Definition.DW_OP_shra:
+					case Definition.DW_OP_xor:
+						break;
+
+					case Definition.DW_OP_le:
+					case Definition.DW_OP_ge:
+					case Definition.DW_OP_eq:
+					case Definition.DW_OP_lt:
+					case Definition.DW_OP_gt:
+					case Definition.DW_OP_ne:
+						break;
+
+					case Definition.DW_OP_skip:
+					case Definition.DW_OP_bra:
+						//READ_UNALIGNED(dbg, operand1, Dwarf_Unsigned, loc_ptr, 2);
+						operand1 = CommonLib.getShort(CommonLib.byteArrayToIntArray(debugLocEntry.blocks), offset);
+						//loc_ptr = loc_ptr + 2;
+						offset = offset + 2;
+						break;
+
+					case Definition.DW_OP_piece:
+						//operand1 = _dwarf_decode_u_leb128(loc_ptr, &leb128_length);
+						operand1 = DwarfLib.getULEB128(ByteBuffer.wrap(Arrays.copyOfRange(debugLocEntry.blocks, offset, debugLocEntry.blocks.length)));
+						//loc_ptr = loc_ptr + leb128_length;
+						//offset = offset + leb128_length;
+						offset = offset + DwarfLib.getULEB128Count(ByteBuffer.wrap(Arrays.copyOfRange(debugLocEntry.blocks, offset, debugLocEntry.blocks.length)));
+						break;
+
+					case Definition.DW_OP_nop:
+						break;
+					case Definition.DW_OP_push_object_address: /* DWARF3 */
+						break;
+					case Definition.DW_OP_call2: /* DWARF3 */
+						//READ_UNALIGNED(dbg, operand1, Dwarf_Unsigned, loc_ptr, 2);
+						operand1 = CommonLib.getShort(CommonLib.byteArrayToIntArray(debugLocEntry.blocks), offset);
+						//loc_ptr = loc_ptr + 2;
+						offset = offset + 2;
+						break;
+
+					case Definition.DW_OP_call4: /* DWARF3 */
+						//READ_UNALIGNED(dbg, operand1, Dwarf_Unsigned, loc_ptr, 4);
+						operand1 = CommonLib.getInt(debugLocEntry.blocks, offset);
+						//loc_ptr = loc_ptr + 4;
+						offset = offset + 4;
+						break;
+					case Definition.DW_OP_call_ref: /* DWARF3 */
+						//READ_UNALIGNED(dbg, operand1, Dwarf_Unsigned, loc_ptr, offset_size);
+						if (offset_size == 4) {
+							operand1 = CommonLib.getInt(debugLocEntry.blocks, offset);
+						} else if (offset_size == 8) {
+							operand1 = CommonLib.getLong(CommonLib.byteArrayToIntArray(debugLocEntry.blocks), offset);
+						}
+						//loc_ptr = loc_ptr + offset_size;
+						offset = offset + offset_size;
+						break;
+
+					case Definition.DW_OP_form_tls_address: /* DWARF3f */
+						break;
+					case Definition.DW_OP_call_frame_cfa: /* DWARF3f */
+						break;
+					case Definition.DW_OP_bit_piece: /* DWARF3f */
+						/* uleb size in bits followed by uleb offset in bits */
+						//operand1 = _dwarf_decode_u_leb128(loc_ptr, &leb128_length);
+						operand1 = DwarfLib.getULEB128(ByteBuffer.wrap(Arrays.copyOfRange(debugLocEntry.blocks, offset, debugLocEntry.blocks.length)));
+						//loc_ptr = loc_ptr + leb128_length;
+						//offset = offset + leb128_length;
+						offset = offset + DwarfLib.getULEB128Count(ByteBuffer.wrap(Arrays.copyOfRange(debugLocEntry.blocks, offset, debugLocEntry.blocks.length)));
+
+						//operand2 = _dwarf_decode_u_leb128(loc_ptr, &leb128_length);
+						operand2 = DwarfLib.getULEB128(ByteBuffer.wrap(Arrays.copyOfRange(debugLocEntry.blocks, offset, debugLocEntry.blocks.length)));
+						//loc_ptr = loc_ptr + leb128_length;
+						//offset = offset + leb128_length;
+						offset = offset + DwarfLib.getULEB128Count(ByteBuffer.wrap(Arrays.copyOfRange(debugLocEntry.blocks, offset, debugLocEntry.blocks.length)));
+						break;
+
+					/*  The operator means: push the currently computed
+					 (by the operations encountered so far in this
+					 expression) onto the expression stack as the offset
+					 in thread-local-storage of the variable. */
+					case Definition.DW_OP_GNU_push_tls_address: /* 0xe0  */
+						/* Believed to have no operands. */
+						/* Unimplemented in gdb 7.5.1 ? */
+						break;
+					case Definition.DW_OP_GNU_deref_type: /* 0xf6 */
+						/* die offset (uleb128). */
+						//operand1 = _dwarf_decode_u_leb128(loc_ptr, &leb128_length);
+						operand1 = DwarfLib.getULEB128(ByteBuffer.wrap(Arrays.copyOfRange(debugLocEntry.blocks, offset, debugLocEntry.blocks.length)));
+						//loc_ptr = loc_ptr + leb128_length;
+						//offset = offset + leb128_length;
+						offset = offset + DwarfLib.getULEB128Count(ByteBuffer.wrap(Arrays.copyOfRange(debugLocEntry.blocks, offset, debugLocEntry.blocks.length)));
+						break;
+
+					case Definition.DW_OP_implicit_value: /* DWARF4 0xa0 */
+						/*  uleb length of value bytes followed by that
+						 number of bytes of the value. */
+						//operand1 = _dwarf_decode_u_leb128(loc_ptr, &leb128_length);
+						operand1 = DwarfLib.getULEB128(ByteBuffer.wrap(Arrays.copyOfRange(debugLocEntry.blocks, offset, debugLocEntry.blocks.length)));
+						//loc_ptr = loc_ptr + leb128_length;
+						//offset = offset + leb128_length;
+						offset = offset + DwarfLib.getULEB128Count(ByteBuffer.wrap(Arrays.copyOfRange(debugLocEntry.blocks, offset, debugLocEntry.blocks.length)));
+
+						/*  Second operand is block of 'operand1' bytes of stuff. */
+						/*  This using the second operand as a pointer
+						 is quite ugly. */
+						/*  This gets an ugly compiler warning. Sorry. */
+						//operand2 = (Dwarf_Unsigned) loc_ptr;
+						operand2 = CommonLib.getLong(CommonLib.byteArrayToIntArray(debugLocEntry.blocks), offset);
+						offset = (int) (offset + operand1);
+						//loc_ptr = loc_ptr + operand1;
+						break;
+					case Definition.DW_OP_stack_value: /* DWARF4 */
+						break;
+					case Definition.DW_OP_GNU_uninit: /* 0xf0 */
+						/* Unimplemented in gdb 7.5.1  */
+						/*  Carolyn Tice: Follws a DW_OP_reg or DW_OP_regx
+						 and marks the reg as being uninitialized. */
+						break;
+					case Definition.DW_OP_GNU_encoded_addr: { /*  0xf1 */
+						/*  Richard Henderson: The operand is an absolute
+						 address.  The first byte of the value
+						 is an encoding length: 0 2 4 or 8.  If zero
+						 it means the following is address-size.
+						 The address then follows immediately for
+						 that number of bytes. */
+						int length = 0;
+						//int reares = read_encoded_addr(loc_ptr, dbg, &operand1, &length, error);
+						int reares;
+						switch (addressSize) {
+						case 1:
 							operand1 = debugLocEntry.blocks[offset];
-							//SIGN_EXTEND(operand1, 1);
-							offset = offset + 1;
-							break;
-
-						case Definition.DW_OP_const2u:
-							//							READ_UNALIGNED(dbg, operand1, Dwarf_Unsigned, loc_ptr, 2);
-							operand1 = CommonLib.getShort(CommonLib.byteArrayToIntArray(debugLocEntry.blocks), offset);
-							//							loc_ptr = loc_ptr + 2;
-							offset = offset + 2;
+							offset += length;
 							break;
 
-						case Definition.DW_OP_const2s:
-							//							READ_UNALIGNED(dbg, operand1, Dwarf_Unsigned, loc_ptr, 2);
+						case 2:
+							//								READ_UNALIGNED(dbg, operand, Dwarf_Unsigned, loc_ptr, 2);
+							//								*val_out = operand;
+							//								len += 2;
 							operand1 = CommonLib.getShort(CommonLib.byteArrayToIntArray(debugLocEntry.blocks), offset);
-							//SIGN_EXTEND(operand1, 2);
-							//loc_ptr = loc_ptr + 2;
 							offset = offset + 2;
 							break;
-
-						case Definition.DW_OP_const4u:
-							//READ_UNALIGNED(dbg, operand1, Dwarf_Unsigned, loc_ptr, 4);
-							operand1 = CommonLib.getInt(debugLocEntry.blocks, offset);
-							//loc_ptr = loc_ptr + 4;
-							offset = offset + 4;
-							break;
-
-						case Definition.DW_OP_const4s:
-							//READ_UNALIGNED(dbg, operand1, Dwarf_Unsigned, loc_ptr, 4);
+						case 4:
+							//READ_UNALIGNED(dbg, operand, Dwarf_Unsigned, loc_ptr, 4);
+							//*val_out = operand;
+							//len += 4;
 							operand1 = CommonLib.getInt(debugLocEntry.blocks, offset);
-							//SIGN_EXTEND(operand1, 4);
-							//loc_ptr = loc_ptr + 4;
 							offset = offset + 4;
 							break;
-
-						case Definition.DW_OP_const8u:
-							//READ_UNALIGNED(dbg, operand1, Dwarf_Unsigned, loc_ptr, 8);
-							operand1 = CommonLib.getLong(CommonLib.byteArrayToIntArray(debugLocEntry.blocks), offset);
-							//loc_ptr = loc_ptr + 8;
-							offset = offset + 8;
-							break;
-
-						case Definition.DW_OP_const8s:
-							//READ_UNALIGNED(dbg, operand1, Dwarf_Unsigned, loc_ptr, 8);
+						case 8:
+							//READ_UNALIGNED(dbg, operand, Dwarf_Unsigned, loc_ptr, 8);
+							//*val_out = operand;
+							//len += 8;
 							operand1 = CommonLib.getLong(CommonLib.byteArrayToIntArray(debugLocEntry.blocks), offset);
-							//loc_ptr = loc_ptr + 8;
 							offset = offset + 8;
 							break;
-
-						case Definition.DW_OP_constu:
-							//operand1 = _dwarf_decode_u_leb128(loc_ptr, &leb128_length);
-							operand1 = DwarfLib.getULEB128(ByteBuffer.wrap(Arrays.copyOfRange(debugLocEntry.blocks, offset, debugLocEntry.blocks.length)));
-							//loc_ptr = loc_ptr + leb128_length;
-							//offset = offset + leb128_length;
-							offset = offset + DwarfLib.getULEB128Count(ByteBuffer.wrap(Arrays.copyOfRange(debugLocEntry.blocks, offset, debugLocEntry.blocks.length)));
-							break;
-
-						case Definition.DW_OP_consts:
-							//operand1 = _dwarf_decode_s_leb128(loc_ptr, &leb128_length);
-							operand1 = DwarfLib.getSLEB128(ByteBuffer.wrap(Arrays.copyOfRange(debugLocEntry.blocks, offset, debugLocEntry.blocks.length)));
-							//loc_ptr = loc_ptr + leb128_length;
-							//offset = offset + leb128_length;
-							offset = offset + DwarfLib.getSLEB128Count(ByteBuffer.wrap(Arrays.copyOfRange(debugLocEntry.blocks, offset, debugLocEntry.blocks.length)));
-							break;
-
-						case Definition.DW_OP_fbreg:
-							//operand1 = _dwarf_decode_s_leb128(loc_ptr, &leb128_length);
-							operand1 = DwarfLib.getSLEB128(ByteBuffer.wrap(Arrays.copyOfRange(debugLocEntry.blocks, offset, debugLocEntry.blocks.length)));
-							//loc_ptr = loc_ptr + leb128_length;
-							//offset = offset + leb128_length;
-							offset = offset + DwarfLib.getSLEB128Count(ByteBuffer.wrap(Arrays.copyOfRange(debugLocEntry.blocks, offset, debugLocEntry.blocks.length)));
-							break;
-						case Definition.DW_OP_breg0:
-						case Definition.DW_OP_breg1:
-						case Definition.DW_OP_breg2:
-						case Definition.DW_OP_breg3:
-						case Definition.DW_OP_breg4:
-						case Definition.DW_OP_breg5:
-						case Definition.DW_OP_breg6:
-						case Definition.DW_OP_breg7:
-						case Definition.DW_OP_breg8:
-						case Definition.DW_OP_breg9:
-						case Definition.DW_OP_breg10:
-						case Definition.DW_OP_breg11:
-						case Definition.DW_OP_breg12:
-						case Definition.DW_OP_breg13:
-						case Definition.DW_OP_breg14:
-						case Definition.DW_OP_breg15:
-						case Definition.DW_OP_breg16:
-						case Definition.DW_OP_breg17:
-						case Definition.DW_OP_breg18:
-						case Definition.DW_OP_breg19:
-						case Definition.DW_OP_breg20:
-						case Definition.DW_OP_breg21:
-						case Definition.DW_OP_breg22:
-						case Definition.DW_OP_breg23:
-						case Definition.DW_OP_breg24:
-						case Definition.DW_OP_breg25:
-						case Definition.DW_OP_breg26:
-						case Definition.DW_OP_breg27:
-						case Definition.DW_OP_breg28:
-						case Definition.DW_OP_breg29:
-						case Definition.DW_OP_breg30:
-						case Definition.DW_OP_breg31:
-							//operand1 = _dwarf_decode_s_leb128(loc_ptr, &leb128_length);
-							operand1 = DwarfLib.getSLEB128(ByteBuffer.wrap(Arrays.copyOfRange(debugLocEntry.blocks, offset, debugLocEntry.blocks.length)));
-							//loc_ptr = loc_ptr + leb128_length;
-							//offset = offset + leb128_length;
-							offset = offset + DwarfLib.getSLEB128Count(ByteBuffer.wrap(Arrays.copyOfRange(debugLocEntry.blocks, offset, debugLocEntry.blocks.length)));
-							break;
-
-						case Definition.DW_OP_bregx:
-							/* uleb reg num followed by sleb offset */
-							//operand1 = _dwarf_decode_u_leb128(loc_ptr, &leb128_length);
-							operand1 = DwarfLib.getULEB128(ByteBuffer.wrap(Arrays.copyOfRange(debugLocEntry.blocks, offset, debugLocEntry.blocks.length)));
-							//loc_ptr = loc_ptr + leb128_length;
-							//offset = offset + leb128_length;
-							offset = offset + DwarfLib.getULEB128Count(ByteBuffer.wrap(Arrays.copyOfRange(debugLocEntry.blocks, offset, debugLocEntry.blocks.length)));
-
-							//operand2 = _dwarf_decode_s_leb128(loc_ptr, &leb128_length);
-							operand2 = DwarfLib.getSLEB128(ByteBuffer.wrap(Arrays.copyOfRange(debugLocEntry.blocks, offset, debugLocEntry.blocks.length)));
-							//loc_ptr = loc_ptr + leb128_length;
-							//offset = offset + leb128_length;
-							offset = offset + DwarfLib.getSLEB128Count(ByteBuffer.wrap(Arrays.copyOfRange(debugLocEntry.blocks, offset, debugLocEntry.blocks.length)));
-							break;
-
-						case Definition.DW_OP_dup:
-						case Definition.DW_OP_drop:
-							break;
-
-						case Definition.DW_OP_pick:
-							//operand1 = *(Dwarf_Small *) loc_ptr;
-							operand1 = debugLocEntry.blocks[offset];
-							//loc_ptr = loc_ptr + 1;
-							offset = offset + 1;
-							break;
-
-						case Definition.DW_OP_over:
-						case Definition.DW_OP_swap:
-						case Definition.DW_OP_rot:
-						case Definition.DW_OP_deref:
-							break;
-
-						case Definition.DW_OP_deref_size:
-							//operand1 = *(Dwarf_Small *) loc_ptr;
-							operand1 = debugLocEntry.blocks[offset];
-							//loc_ptr = loc_ptr + 1;
-							offset = offset + 1;
-							break;
-
-						case Definition.DW_OP_xderef:
-							break;
-
-						case Definition.DW_OP_xderef_size:
-							//operand1 = *(Dwarf_Small *) loc_ptr;
-							operand1 = debugLocEntry.blocks[offset];
-							//loc_ptr = loc_ptr + 1;
-							offset = offset + 1;
-							break;
-
-						case Definition.DW_OP_abs:
-						case Definition.DW_OP_and:
-						case Definition.DW_OP_div:
-						case Definition.DW_OP_minus:
-						case Definition.DW_OP_mod:
-						case Definition.DW_OP_mul:
-						case Definition.DW_OP_neg:
-						case Definition.DW_OP_not:
-						case Definition.DW_OP_or:
-						case Definition.DW_OP_plus:
-							break;
-
-						case Definition.DW_OP_plus_uconst:
-							//operand1 = _dwarf_decode_u_leb128(loc_ptr, &leb128_length);
-							operand1 = DwarfLib.getULEB128(ByteBuffer.wrap(Arrays.copyOfRange(debugLocEntry.blocks, offset, debugLocEntry.blocks.length)));
-							//loc_ptr = loc_ptr + leb128_length;
-							//offset = offset + leb128_length;
-							offset = offset + DwarfLib.getULEB128Count(ByteBuffer.wrap(Arrays.copyOfRange(debugLocEntry.blocks, offset, debugLocEntry.blocks.length)));
-							break;
-
-						case Definition.DW_OP_shl:
-						case Definition.DW_OP_shr:
-						case Definition.DW_OP_shra:
-						case Definition.DW_OP_xor:
-							break;
-
-						case Definition.DW_OP_le:
-						case Definition.DW_OP_ge:
-						case Definition.DW_OP_eq:
-						case Definition.DW_OP_lt:
-						case Definition.DW_OP_gt:
-						case Definition.DW_OP_ne:
-							break;
-
-						case Definition.DW_OP_skip:
-						case Definition.DW_OP_bra:
-							//READ_UNALIGNED(dbg, operand1, Dwarf_Unsigned, loc_ptr, 2);
-							operand1 = CommonLib.getShort(CommonLib.byteArrayToIntArray(debugLocEntry.blocks), offset);
-							//loc_ptr = loc_ptr + 2;
-							offset = offset + 2;
-							break;
-
-						case Definition.DW_OP_piece:
-							//operand1 = _dwarf_decode_u_leb128(loc_ptr, &leb128_length);
-							operand1 = DwarfLib.getULEB128(ByteBuffer.wrap(Arrays.copyOfRange(debugLocEntry.blocks, offset, debugLocEntry.blocks.length)));
-							//loc_ptr = loc_ptr + leb128_length;
-							//offset = offset + leb128_length;
-							offset = offset + DwarfLib.getULEB128Count(ByteBuffer.wrap(Arrays.copyOfRange(debugLocEntry.blocks, offset, debugLocEntry.blocks.length)));
-							break;
-
-						case Definition.DW_OP_nop:
-							break;
-						case Definition.DW_OP_push_object_address: /* DWARF3 */
-							break;
-						case Definition.DW_OP_call2: /* DWARF3 */
-							//READ_UNALIGNED(dbg, operand1, Dwarf_Unsigned, loc_ptr, 2);
-							operand1 = CommonLib.getShort(CommonLib.byteArrayToIntArray(debugLocEntry.blocks), offset);
-							//loc_ptr = loc_ptr + 2;
-							offset = offset + 2;
-							break;
-
-						case Definition.DW_OP_call4: /* DWARF3 */
-							//READ_UNALIGNED(dbg, operand1, Dwarf_Unsigned, loc_ptr, 4);
+						default:
+							/* We do not know how much to read. */
+							//_dwarf_error(dbg, error, DW_DLE_GNU_OPCODE_ERROR);
+							return Definition.DW_DLV_ERROR;
+						}
+						;
+
+						//							if (reares != Definition.DW_DLV_OK) {
+						//								/*  Oops. The caller will notice and
+						//								 will issue DW_DLV_ERROR. */
+						//								return Definition.DW_DLV_OK;
+						//							}
+						//							loc_ptr += length;
+						//							offset += length;
+					}
+						break;
+					case Definition.DW_OP_implicit_pointer: /* DWARF5 */
+					case Definition.DW_OP_GNU_implicit_pointer: { /* 0xf2 */
+						/*  Jakub Jelinek: The value is an optimized-out
+						 pointer value. Represented as
+						 an offset_size DIE offset
+						 (a simple unsigned integer) in DWARF3,4
+						 followed by a signed leb128 offset.
+						 For DWARF2, it is actually pointer size
+						 (address size).
+						 http://www.dwarfstd.org/ShowIssue.php?issue=100831.1 */
+						//Dwarf_Small iplen = offset_size;
+						//if (version_stamp == CURRENT_VERSION_STAMP /* 2 */) {
+						//	iplen = addressSize;
+						//}
+						//READ_UNALIGNED(dbg, operand1, Dwarf_Unsigned, loc_ptr, iplen);
+						//loc_ptr = loc_ptr + iplen;
+
+						if (addressSize == 4) {
 							operand1 = CommonLib.getInt(debugLocEntry.blocks, offset);
-							//loc_ptr = loc_ptr + 4;
 							offset = offset + 4;
-							break;
-						case Definition.DW_OP_call_ref: /* DWARF3 */
-							//READ_UNALIGNED(dbg, operand1, Dwarf_Unsigned, loc_ptr, offset_size);
-							if (offset_size == 4) {
-								operand1 = CommonLib.getInt(debugLocEntry.blocks, offset);
-							} else if (offset_size == 8) {
-								operand1 = CommonLib.getLong(CommonLib.byteArrayToIntArray(debugLocEntry.blocks), offset);
-							}
-							//loc_ptr = loc_ptr + offset_size;
-							offset = offset + offset_size;
-							break;
-
-						case Definition.DW_OP_form_tls_address: /* DWARF3f */
-							break;
-						case Definition.DW_OP_call_frame_cfa: /* DWARF3f */
-							break;
-						case Definition.DW_OP_bit_piece: /* DWARF3f */
-							/* uleb size in bits followed by uleb offset in bits */
-							//operand1 = _dwarf_decode_u_leb128(loc_ptr, &leb128_length);
-							operand1 = DwarfLib.getULEB128(ByteBuffer.wrap(Arrays.copyOfRange(debugLocEntry.blocks, offset, debugLocEntry.blocks.length)));
-							//loc_ptr = loc_ptr + leb128_length;
-							//offset = offset + leb128_length;
-							offset = offset + DwarfLib.getULEB128Count(ByteBuffer.wrap(Arrays.copyOfRange(debugLocEntry.blocks, offset, debugLocEntry.blocks.length)));
-
-							//operand2 = _dwarf_decode_u_leb128(loc_ptr, &leb128_length);
-							operand2 = DwarfLib.getULEB128(ByteBuffer.wrap(Arrays.copyOfRange(debugLocEntry.blocks, offset, debugLocEntry.blocks.length)));
-							//loc_ptr = loc_ptr + leb128_length;
-							//offset = offset + leb128_length;
-							offset = offset + DwarfLib.getULEB128Count(ByteBuffer.wrap(Arrays.copyOfRange(debugLocEntry.blocks, offset, debugLocEntry.blocks.length)));
-							break;
-
-						/*  The operator means: push the currently computed
-						 (by the operations encountered so far in this
-						 expression) onto the expression stack as the offset
-						 in thread-local-storage of the variable. */
-						case Definition.DW_OP_GNU_push_tls_address: /* 0xe0  */
-							/* Believed to have no operands. */
-							/* Unimplemented in gdb 7.5.1 ? */
-							break;
-						case Definition.DW_OP_GNU_deref_type: /* 0xf6 */
-							/* die offset (uleb128). */
-							//operand1 = _dwarf_decode_u_leb128(loc_ptr, &leb128_length);
-							operand1 = DwarfLib.getULEB128(ByteBuffer.wrap(Arrays.copyOfRange(debugLocEntry.blocks, offset, debugLocEntry.blocks.length)));
-							//loc_ptr = loc_ptr + leb128_length;
-							//offset = offset + leb128_length;
-							offset = offset + DwarfLib.getULEB128Count(ByteBuffer.wrap(Arrays.copyOfRange(debugLocEntry.blocks, offset, debugLocEntry.blocks.length)));
-							break;
-
-						case Definition.DW_OP_implicit_value: /* DWARF4 0xa0 */
-							/*  uleb length of value bytes followed by that
-							 number of bytes of the value. */
-							//operand1 = _dwarf_decode_u_leb128(loc_ptr, &leb128_length);
-							operand1 = DwarfLib.getULEB128(ByteBuffer.wrap(Arrays.copyOfRange(debugLocEntry.blocks, offset, debugLocEntry.blocks.length)));
-							//loc_ptr = loc_ptr + leb128_length;
-							//offset = offset + leb128_length;
-							offset = offset + DwarfLib.getULEB128Count(ByteBuffer.wrap(Arrays.copyOfRange(debugLocEntry.blocks, offset, debugLocEntry.blocks.length)));
-
-							/*  Second operand is block of 'operand1' bytes of stuff. */
-							/*  This using the second operand as a pointer
-							 is quite ugly. */
-							/*  This gets an ugly compiler warning. Sorry. */
-							//operand2 = (Dwarf_Unsigned) loc_ptr;
-							operand2 = CommonLib.getLong(CommonLib.byteArrayToIntArray(debugLocEntry.blocks), offset);
-							offset = (int) (offset + operand1);
-							//loc_ptr = loc_ptr + operand1;
-							break;
-						case Definition.DW_OP_stack_value: /* DWARF4 */
-							break;
-						case Definition.DW_OP_GNU_uninit: /* 0xf0 */
-							/* Unimplemented in gdb 7.5.1  */
-							/*  Carolyn Tice: Follws a DW_OP_reg or DW_OP_regx
-							 and marks the reg as being uninitialized. */
-							break;
-						case Definition.DW_OP_GNU_encoded_addr: { /*  0xf1 */
-							/*  Richard Henderson: The operand is an absolute
-							 address.  The first byte of the value
-							 is an encoding length: 0 2 4 or 8.  If zero
-							 it means the following is address-size.
-							 The address then follows immediately for
-							 that number of bytes. */
-							int length = 0;
-							//int reares = read_encoded_addr(loc_ptr, dbg, &operand1, &length, error);
-							int reares;
-							switch (addressSize) {
-							case 1:
-								operand1 = debugLocEntry.blocks[offset];
-								offset += length;
-								break;
-
-							case 2:
-								//								READ_UNALIGNED(dbg, operand, Dwarf_Unsigned, loc_ptr, 2);
-								//								*val_out = operand;
-								//								len += 2;
-								operand1 = CommonLib.getShort(CommonLib.byteArrayToIntArray(debugLocEntry.blocks), offset);
-								offset = offset + 2;
-								break;
-							case 4:
-								//READ_UNALIGNED(dbg, operand, Dwarf_Unsigned, loc_ptr, 4);
-								//*val_out = operand;
-								//len += 4;
-								operand1 = CommonLib.getInt(debugLocEntry.blocks, offset);
-								offset = offset + 4;
-								break;
-							case 8:
-								//READ_UNALIGNED(dbg, operand, Dwarf_Unsigned, loc_ptr, 8);
-								//*val_out = operand;
-								//len += 8;
-								operand1 = CommonLib.getLong(CommonLib.byteArrayToIntArray(debugLocEntry.blocks), offset);
-								offset = offset + 8;
-								break;
-							default:
-								/* We do not know how much to read. */
-								//_dwarf_error(dbg, error, DW_DLE_GNU_OPCODE_ERROR);
-								return Definition.DW_DLV_ERROR;
-							}
-							;
-
-							//							if (reares != Definition.DW_DLV_OK) {
-							//								/*  Oops. The caller will notice and
-							//								 will issue DW_DLV_ERROR. */
-							//								return Definition.DW_DLV_OK;
-							//							}
-							//							loc_ptr += length;
-							//							offset += length;
-						}
-							break;
-						case Definition.DW_OP_implicit_pointer: /* DWARF5 */
-						case Definition.DW_OP_GNU_implicit_pointer: { /* 0xf2 */
-							/*  Jakub Jelinek: The value is an optimized-out
-							 pointer value. Represented as
-							 an offset_size DIE offset
-							 (a simple unsigned integer) in DWARF3,4
-							 followed by a signed leb128 offset.
-							 For DWARF2, it is actually pointer size
-							 (address size).
-							 http://www.dwarfstd.org/ShowIssue.php?issue=100831.1 */
-							//Dwarf_Small iplen = offset_size;
-							//if (version_stamp == CURRENT_VERSION_STAMP /* 2 */) {
-							//	iplen = addressSize;
-							//}
-							//READ_UNALIGNED(dbg, operand1, Dwarf_Unsigned, loc_ptr, iplen);
-							//loc_ptr = loc_ptr + iplen;
-
-							if (addressSize == 4) {
-								operand1 = CommonLib.getInt(debugLocEntry.blocks, offset);
-								offset = offset + 4;
-							} else if (addressSize == 8) {
-								operand1 = CommonLib.getInt(debugLocEntry.blocks, offset);
-								offset = offset + 8;
-							}
-
-							//offset = offset + iplen;
-
-							//operand2 = _dwarf_decode_s_leb128(loc_ptr, &leb128_length);
-							//loc_ptr = loc_ptr + leb128_length;
-							//offset = offset + leb128_length;
-
-							operand2 = DwarfLib.getSLEB128(ByteBuffer.wrap(Arrays.copyOfRange(debugLocEntry.blocks, offset, debugLocEntry.blocks.length)));
-							offset = offset + DwarfLib.getSLEB128Count(ByteBuffer.wrap(Arrays.copyOfRange(debugLocEntry.blocks, offset, debugLocEntry.blocks.length)));
+						} else if (addressSize == 8) {
+							operand1 = CommonLib.getInt(debugLocEntry.blocks, offset);
+							offset = offset + 8;
 						}
 
-							break;
-						case Definition.DW_OP_GNU_entry_value: /* 0xf3 */
-							/*  Jakub Jelinek: A register reused really soon,
-							 but the value is unchanged.  So to represent
-							 that value we have a uleb128 size followed
-							 by a DWARF expression block that size.
-							 http://www.dwarfstd.org/ShowIssue.php?issue=100909.1 */
-
-							/*  uleb length of value bytes followed by that
-							 number of bytes of the value. */
-							//operand1 = _dwarf_decode_u_leb128(loc_ptr, &leb128_length);
-							//loc_ptr = loc_ptr + leb128_length;
-							//offset = offset + leb128_length;
-							operand1 = DwarfLib.getULEB128(ByteBuffer.wrap(Arrays.copyOfRange(debugLocEntry.blocks, offset, debugLocEntry.blocks.length)));
-							offset = offset + DwarfLib.getULEB128Count(ByteBuffer.wrap(Arrays.copyOfRange(debugLocEntry.blocks, offset, debugLocEntry.blocks.length)));
-
-							/*  Second operand is block of 'operand1' bytes of stuff. */
-							/*  This using the second operand as a pointer
-							 is quite ugly. */
-							/*  This gets an ugly compiler warning. Sorry. */
-							//operand2 = (Dwarf_Unsigned) loc_ptr;
-
-							int size = debugLocEntry.blocks.length - offset;
-							if (size == 2) {
-								operand2 = CommonLib.getShort(CommonLib.byteArrayToIntArray(debugLocEntry.blocks), offset);
-							} else if (size == 4) {
-								operand2 = CommonLib.getInt(CommonLib.byteArrayToIntArray(debugLocEntry.blocks), offset);
-							} else if (size == 8) {
-								operand2 = CommonLib.getLong(CommonLib.byteArrayToIntArray(debugLocEntry.blocks), offset);
-							} else {
-								operand2 = debugLocEntry.blocks[offset];
-							}
+						//offset = offset + iplen;
 
-							//offset = offset + operand1;
-							//loc_ptr = loc_ptr + operand1;
-							offset = (int) (offset + operand1);
-							break;
-						case Definition.DW_OP_GNU_const_type: /* 0xf4 */
-						{
-							int blocklen = 0;
-							/* die offset as uleb. */
-							//operand1 = _dwarf_decode_u_leb128(loc_ptr, &leb128_length);
-							operand1 = DwarfLib.getULEB128(ByteBuffer.wrap(Arrays.copyOfRange(debugLocEntry.blocks, offset, debugLocEntry.blocks.length)));
+						//operand2 = _dwarf_decode_s_leb128(loc_ptr, &leb128_length);
+						//loc_ptr = loc_ptr + leb128_length;
+						//offset = offset + leb128_length;
 
-							//loc_ptr = loc_ptr + leb128_length;
-							//offset = offset + leb128_length;
-							offset = offset + DwarfLib.getULEB128Count(ByteBuffer.wrap(Arrays.copyOfRange(debugLocEntry.blocks, offset, debugLocEntry.blocks.length)));
+						operand2 = DwarfLib.getSLEB128(ByteBuffer.wrap(Arrays.copyOfRange(debugLocEntry.blocks, offset, debugLocEntry.blocks.length)));
+						offset = offset + DwarfLib.getSLEB128Count(ByteBuffer.wrap(Arrays.copyOfRange(debugLocEntry.blocks, offset, debugLocEntry.blocks.length)));
+					}
 
-							/*  Next byte is size of data block.
-							 We pass the length and block via a a pointer
-							 to the length byte. */
-							//operand2 = (Dwarf_Unsigned) loc_ptr;
+						break;
+					case Definition.DW_OP_GNU_entry_value: /* 0xf3 */
+						/*  Jakub Jelinek: A register reused really soon,
+						 but the value is unchanged.  So to represent
+						 that value we have a uleb128 size followed
+						 by a DWARF expression block that size.
+						 http://www.dwarfstd.org/ShowIssue.php?issue=100909.1 */
+
+						/*  uleb length of value bytes followed by that
+						 number of bytes of the value. */
+						//operand1 = _dwarf_decode_u_leb128(loc_ptr, &leb128_length);
+						//loc_ptr = loc_ptr + leb128_length;
+						//offset = offset + leb128_length;
+						operand1 = DwarfLib.getULEB128(ByteBuffer.wrap(Arrays.copyOfRange(debugLocEntry.blocks, offset, debugLocEntry.blocks.length)));
+						offset = offset + DwarfLib.getULEB128Count(ByteBuffer.wrap(Arrays.copyOfRange(debugLocEntry.blocks, offset, debugLocEntry.blocks.length)));
+
+						/*  Second operand is block of 'operand1' bytes of stuff. */
+						/*  This using the second operand as a pointer
+						 is quite ugly. */
+						/*  This gets an ugly compiler warning. Sorry. */
+						//operand2 = (Dwarf_Unsigned) loc_ptr;
+
+						int size = debugLocEntry.blocks.length - offset;
+						if (size == 2) {
+							operand2 = CommonLib.getShort(CommonLib.byteArrayToIntArray(debugLocEntry.blocks), offset);
+						} else if (size == 4) {
+							operand2 = CommonLib.getInt(CommonLib.byteArrayToIntArray(debugLocEntry.blocks), offset);
+						} else if (size == 8) {
 							operand2 = CommonLib.getLong(CommonLib.byteArrayToIntArray(debugLocEntry.blocks), offset);
-
-							//blocklen = *(Dwarf_Small *) loc_ptr;
-							blocklen = debugLocEntry.blocks[offset];
-
-							//loc_ptr = loc_ptr + 1;
-							offset = offset + 1;
-							/* Following that is data block of bytes. */
-							offset = offset + blocklen;
-							//loc_ptr = loc_ptr + blocklen;
+						} else {
+							operand2 = debugLocEntry.blocks[offset];
 						}
-							break;
-						case Definition.DW_OP_GNU_regval_type: /* 0xf5 */
-							/* reg num uleb*/
-							//operand1 = _dwarf_decode_u_leb128(loc_ptr, &leb128_length);
-							operand1 = DwarfLib.getULEB128(ByteBuffer.wrap(Arrays.copyOfRange(debugLocEntry.blocks, offset, debugLocEntry.blocks.length)));
-
-							//loc_ptr = loc_ptr + leb128_length;
-							//offset = offset + leb128_length;
-							/* cu die off uleb*/
-							//operand2 = _dwarf_decode_u_leb128(loc_ptr, &leb128_length);
-							operand1 = DwarfLib.getULEB128(ByteBuffer.wrap(Arrays.copyOfRange(debugLocEntry.blocks, offset, debugLocEntry.blocks.length)));
-							//loc_ptr = loc_ptr + leb128_length;
-							//offset = offset + leb128_length;
-
-							offset = offset + DwarfLib.getULEB128Count(ByteBuffer.wrap(Arrays.copyOfRange(debugLocEntry.blocks, offset, debugLocEntry.blocks.length)));
-
-							break;
-						case Definition.DW_OP_GNU_convert: /* 0xf7 */
-						case Definition.DW_OP_GNU_reinterpret: /* 0xf9 */
-							/* die offset  or zero */
-							//operand1 = _dwarf_decode_u_leb128(loc_ptr, &leb128_length);
-							operand1 = DwarfLib.getULEB128(ByteBuffer.wrap(Arrays.copyOfRange(debugLocEntry.blocks, offset, debugLocEntry.blocks.length)));
 
-							//loc_ptr = loc_ptr + leb128_length;
-							//offset = offset + leb128_length;
-							offset = offset + DwarfLib.getULEB128Count(ByteBuffer.wrap(Arrays.copyOfRange(debugLocEntry.blocks, offset, debugLocEntry.blocks.length)));
-							break;
-						case Definition.DW_OP_GNU_parameter_ref: /* 0xfa */
-							/* 4 byte unsigned int */
-							//READ_UNALIGNED(dbg, operand1, Dwarf_Unsigned, loc_ptr, 4);
-							operand1 = CommonLib.getInt(debugLocEntry.blocks, offset);
-							//loc_ptr = loc_ptr + 4;
-							offset = offset + 4;
-							break;
-						case Definition.DW_OP_addrx: /* DWARF5 */
-						case Definition.DW_OP_GNU_addr_index: /* 0xfb DebugFission */
-							/*  Index into .debug_addr. The value in .debug_addr
-							 is an address. */
-							//operand1 = _dwarf_decode_u_leb128(loc_ptr, &leb128_length);
-							operand1 = DwarfLib.getULEB128(ByteBuffer.wrap(Arrays.copyOfRange(debugLocEntry.blocks, offset, debugLocEntry.blocks.length)));
-
-							//loc_ptr = loc_ptr + leb128_length;
-							//offset = offset + leb128_length;
-							offset = offset + DwarfLib.getULEB128Count(ByteBuffer.wrap(Arrays.copyOfRange(debugLocEntry.blocks, offset, debugLocEntry.blocks.length)));
-							break;
-						case Definition.DW_OP_constx: /* DWARF5 */
-						case Definition.DW_OP_GNU_const_index: /* 0xfc DebugFission */
-							/*  Index into .debug_addr. The value in .debug_addr
-							 is a constant that fits in an address. */
-							//operand1 = _dwarf_decode_u_leb128(loc_ptr, &leb128_length);
-							operand1 = DwarfLib.getULEB128(ByteBuffer.wrap(Arrays.copyOfRange(debugLocEntry.blocks, offset, debugLocEntry.blocks.length)));
-							//loc_ptr = loc_ptr + leb128_length;
-							//offset = offset + leb128_length;
-							offset = offset + DwarfLib.getULEB128Count(ByteBuffer.wrap(Arrays.copyOfRange(debugLocEntry.blocks, offset, debugLocEntry.blocks.length)));
-							break;
-						default:
-							/*  Some memory does leak here.  */
-							//_dwarf_error(dbg, error, DW_DLE_LOC_EXPR_BAD);
-							System.err.println("DW_DLE_LOC_EXPR_BAD");
-							return Definition.DW_DLV_ERROR;
-						}
+						//offset = offset + operand1;
+						//loc_ptr = loc_ptr + operand1;
+						offset = (int) (offset + operand1);
+						break;
+					case Definition.DW_OP_GNU_const_type: /* 0xf4 */
+					{
+						int blocklen = 0;
+						/* die offset as uleb. */
+						//operand1 = _dwarf_decode_u_leb128(loc_ptr, &leb128_length);
+						operand1 = DwarfLib.getULEB128(ByteBuffer.wrap(Arrays.copyOfRange(debugLocEntry.blocks, offset, debugLocEntry.blocks.length)));
+
+						//loc_ptr = loc_ptr + leb128_length;
+						//offset = offset + leb128_length;
+						offset = offset + DwarfLib.getULEB128Count(ByteBuffer.wrap(Arrays.copyOfRange(debugLocEntry.blocks, offset, debugLocEntry.blocks.length)));
+
+						/*  Next byte is size of data block.
+						 We pass the length and block via a a pointer
+						 to the length byte. */
+						//operand2 = (Dwarf_Unsigned) loc_ptr;
+						operand2 = CommonLib.getLong(CommonLib.byteArrayToIntArray(debugLocEntry.blocks), offset);
+
+						//blocklen = *(Dwarf_Small *) loc_ptr;
+						blocklen = debugLocEntry.blocks[offset];
+
+						//loc_ptr = loc_ptr + 1;
+						offset = offset + 1;
+						/* Following that is data block of bytes. */
+						offset = offset + blocklen;
+						//loc_ptr = loc_ptr + blocklen;
+					}
+						break;
+					case Definition.DW_OP_GNU_regval_type: /* 0xf5 */
+						/* reg num uleb*/
+						//operand1 = _dwarf_decode_u_leb128(loc_ptr, &leb128_length);
+						operand1 = DwarfLib.getULEB128(ByteBuffer.wrap(Arrays.copyOfRange(debugLocEntry.blocks, offset, debugLocEntry.blocks.length)));
+
+						//loc_ptr = loc_ptr + leb128_length;
+						//offset = offset + leb128_length;
+						/* cu die off uleb*/
+						//operand2 = _dwarf_decode_u_leb128(loc_ptr, &leb128_length);
+						operand1 = DwarfLib.getULEB128(ByteBuffer.wrap(Arrays.copyOfRange(debugLocEntry.blocks, offset, debugLocEntry.blocks.length)));
+						//loc_ptr = loc_ptr + leb128_length;
+						//offset = offset + leb128_length;
+
+						offset = offset + DwarfLib.getULEB128Count(ByteBuffer.wrap(Arrays.copyOfRange(debugLocEntry.blocks, offset, debugLocEntry.blocks.length)));
+
+						break;
+					case Definition.DW_OP_GNU_convert: /* 0xf7 */
+					case Definition.DW_OP_GNU_reinterpret: /* 0xf9 */
+						/* die offset  or zero */
+						//operand1 = _dwarf_decode_u_leb128(loc_ptr, &leb128_length);
+						operand1 = DwarfLib.getULEB128(ByteBuffer.wrap(Arrays.copyOfRange(debugLocEntry.blocks, offset, debugLocEntry.blocks.length)));
+
+						//loc_ptr = loc_ptr + leb128_length;
+						//offset = offset + leb128_length;
+						offset = offset + DwarfLib.getULEB128Count(ByteBuffer.wrap(Arrays.copyOfRange(debugLocEntry.blocks, offset, debugLocEntry.blocks.length)));
+						break;
+					case Definition.DW_OP_GNU_parameter_ref: /* 0xfa */
+						/* 4 byte unsigned int */
+						//READ_UNALIGNED(dbg, operand1, Dwarf_Unsigned, loc_ptr, 4);
+						operand1 = CommonLib.getInt(debugLocEntry.blocks, offset);
+						//loc_ptr = loc_ptr + 4;
+						offset = offset + 4;
+						break;
+					case Definition.DW_OP_addrx: /* DWARF5 */
+					case Definition.DW_OP_GNU_addr_index: /* 0xfb DebugFission */
+						/*  Index into .debug_addr. The value in .debug_addr
+						 is an address. */
+						//operand1 = _dwarf_decode_u_leb128(loc_ptr, &leb128_length);
+						operand1 = DwarfLib.getULEB128(ByteBuffer.wrap(Arrays.copyOfRange(debugLocEntry.blocks, offset, debugLocEntry.blocks.length)));
+
+						//loc_ptr = loc_ptr + leb128_length;
+						//offset = offset + leb128_length;
+						offset = offset + DwarfLib.getULEB128Count(ByteBuffer.wrap(Arrays.copyOfRange(debugLocEntry.blocks, offset, debugLocEntry.blocks.length)));
+						break;
+					case Definition.DW_OP_constx: /* DWARF5 */
+					case Definition.DW_OP_GNU_const_index: /* 0xfc DebugFission */
+						/*  Index into .debug_addr. The value in .debug_addr
+						 is a constant that fits in an address. */
+						//operand1 = _dwarf_decode_u_leb128(loc_ptr, &leb128_length);
+						operand1 = DwarfLib.getULEB128(ByteBuffer.wrap(Arrays.copyOfRange(debugLocEntry.blocks, offset, debugLocEntry.blocks.length)));
+						//loc_ptr = loc_ptr + leb128_length;
+						//offset = offset + leb128_length;
+						offset = offset + DwarfLib.getULEB128Count(ByteBuffer.wrap(Arrays.copyOfRange(debugLocEntry.blocks, offset, debugLocEntry.blocks.length)));
+						break;
+					default:
+						/*  Some memory does leak here.  */
+						//_dwarf_error(dbg, error, DW_DLE_LOC_EXPR_BAD);
+						System.err.println("DW_DLE_LOC_EXPR_BAD");
+						return Definition.DW_DLV_ERROR;
 					}
 				}
-				debugLocEntries.add(debugLocEntry);
 			}
-			// end parse debug_loc
-		} catch (OutOfMemoryError e) {
-			e.printStackTrace();
-			loadingMessage = file.getAbsolutePath() + " : out of memory error";
-			return 19;
-		} catch (IOException e) {
-			e.printStackTrace();
-			loadingMessage = file.getAbsolutePath() + " : IO exception";
-			return 2;
+			debugLocEntries.add(debugLocEntry);
 		}
-		isLoading = false;
 		return 0;
 	}
 
 	private void decode_location_expression(ByteBuffer eh_frame_bytes2, int eh_addr_size, int i, int j, long ul, int k, Elf32_Shdr ehFrameSection) {
-		System.err.println("ERROR: not support decode_location_expression");
-		System.exit(400);
+		// expressions are not decoded yet, skip them; every x86_64 plt fde has one
+		eh_frame_bytes2.position((int) (eh_frame_bytes2.position() + ul));
 	}
 
 	private int frame_need_space(FrameChunk fc, int reg) {
@@ -2082,17 +2165,19 @@ public class Dwarf {
 		}
 
 		int oldPosition = byteBuffer.position();
-		if ((encoding & Definition.DW_EH_PE_signed) > 0) {
-			val = byte_get_signed(byteBuffer, size);
-		} else {
-			//val = byte_get(byteBuffer, size);
-			val = byte_get(byteBuffer, size);
+		//val = byte_get(byteBuffer, size);
+		val = byte_get(byteBuffer, size);
+		if ((encoding & Definition.DW_EH_PE_signed) > 0 && size < 8) {
+			// sign extend to 64 bits, a pc relative sdata4 is negative quite often
+			val = (val << (64 - size * 8)) >> (64 - size * 8);
 		}
 
 		byteBuffer.position(oldPosition);
 
 		if ((encoding & 0x70) == Definition.DW_EH_PE_pcrel) {
 			val += section.sh_addr + byteBuffer.position();
+		}
+		if (eh_addr_size == 4) {
 			val &= 0xffffffffL;
 		}
 
@@ -2179,372 +2264,362 @@ public class Dwarf {
 		return true;
 	}
 
-	private static Vector<Elf32_Sym> parseSymtab(ByteBuffer symtab, ByteBuffer strtab) {
+	private static Vector<Elf32_Sym> parseSymtab(ByteBuffer symtab, ByteBuffer strtab, boolean is64Bits) {
 		Vector<Elf32_Sym> symbols = new Vector<Elf32_Sym>();
-		while (symtab.remaining() >= 16) {
-			Elf32_Sym symbol = new Elf32_Sym();
-			symbol.st_name = symtab.getInt();
-			symbol.st_value = symtab.getInt();
-			symbol.st_size = symtab.getInt();
-			symbol.st_info = symtab.get();
-			symbol.st_other = symtab.get();
-			symbol.st_shndx = symtab.getShort();
+		if (symtab == null) {
+			return symbols;
+		}
+		int size = is64Bits ? Elf64_Sym.sizeof() : Elf32_Sym.sizeof();
+		while (symtab.remaining() >= size) {
+			Elf32_Sym symbol = is64Bits ? new Elf64_Sym() : new Elf32_Sym();
+			symbol.read(symtab);
 			symbol.name = DwarfLib.getString(strtab, symbol.st_name);
 			symbols.add(symbol);
 		}
 		return symbols;
 	}
 
+	/**
+	 * Reads every table of .debug_abbrev into abbrevTables, tables with the
+	 * same bytes as one read before, here or in another file sharing
+	 * sharedAbbrevTables, are that same AbbrevTable.
+	 */
 	private LinkedHashMap<Integer, LinkedHashMap<Integer, Abbrev>> parseDebugAbbrev(ByteBuffer debug_abbrev_bytes) {
 		LinkedHashMap<Integer, LinkedHashMap<Integer, Abbrev>> vector = new LinkedHashMap<Integer, LinkedHashMap<Integer, Abbrev>>();
-		LinkedHashMap<Integer, Abbrev> abbrevList = new LinkedHashMap<Integer, Abbrev>();
-
-		int acumalateOffset = debug_abbrev_bytes.position();
+		abbrevTables.clear();
 		while (debug_abbrev_bytes.hasRemaining()) {
-			Abbrev abbrev = new Abbrev();
-			int number = (int) DwarfLib.getULEB128(debug_abbrev_bytes);
-			if (number == 0) {
-				vector.put(acumalateOffset, abbrevList);
-				abbrevList = new LinkedHashMap<Integer, Abbrev>();
-				acumalateOffset = debug_abbrev_bytes.position();
-				continue;
-			}
-			int tag = (int) DwarfLib.getULEB128(debug_abbrev_bytes);
-			int has_children = debug_abbrev_bytes.get();
-			abbrev.number = number;
-			abbrev.tag = tag;
-			if (has_children == Definition.DW_CHILDREN_yes) {
-				abbrev.has_children = true;
+			int start = debug_abbrev_bytes.position();
+			// find the end first, a table seen before is then looked up without being read
+			if (!AbbrevTable.skip(debug_abbrev_bytes)) {
+				break;
 			}
-
-			abbrev.entries.clear();
-
-			while (true) {
-				AbbrevEntry abbrevEntry = new AbbrevEntry();
-				//				tag = debug_abbrev_bytes.get();
-				tag = (int) DwarfLib.getULEB128(debug_abbrev_bytes);
-				int form = (int) DwarfLib.getULEB128(debug_abbrev_bytes);
-				//				int form = debug_abbrev_bytes.get();
-				if (tag == 0 && form == 0) {
-					break;
+			ByteBuffer b = debug_abbrev_bytes.duplicate();
+			b.limit(debug_abbrev_bytes.position());
+			b.position(start);
+			ByteBuffer key = b.slice();
+			AbbrevTable table = sharedAbbrevTables.get(key);
+			if (table == null) {
+				table = AbbrevTable.read(key.duplicate());
+				AbbrevTable shared = sharedAbbrevTables.putIfAbsent(key, table);
+				if (shared != null) {
+					table = shared;
 				}
-				abbrevEntry.at = tag;
-				abbrevEntry.form = form;
-				abbrev.entries.add(abbrevEntry);
 			}
-			abbrevList.put(number, abbrev);
+			abbrevTables.put(start, table);
+			vector.put(start, table.abbrevs);
 		}
 		return vector;
 	}
 
-	private int parseDebugInfo(Elf32_Shdr debugInfoSection, ByteBuffer debugInfoBytes) throws OutOfMemoryError {
+	private int parseDebugInfo(Elf32_Shdr debugInfoSection, final ByteBuffer debugInfoBytes) throws OutOfMemoryError {
 		if (abbrevList == null) {
 			throw new IllegalArgumentException("abbrevList is null, please call parseDebugAbbrev() first");
 		}
-		int r = calculationRelocation(debugInfoSection, debugInfoBytes, ".rel.debug_info");
+		int r = calculationRelocation(debugInfoSection, debugInfoBytes);
 		if (r > 0) {
 			return r;
 		}
-		int start = 0;
-		int initial_length_size = 0;
+		// read every unit header first, the units can then be decoded independently
 		while (debugInfoBytes.remaining() > 11) {
 			CompileUnit cu = new CompileUnit();
 			cu.offset = debugInfoBytes.position();
 			cu.length = debugInfoBytes.getInt();
-			cu.version = debugInfoBytes.getShort();
-			cu.abbrev_offset = debugInfoBytes.getInt();
-			cu.addr_size = debugInfoBytes.get();
-			compileUnits.add(cu);
-
+			// 64 bits dwarf, the real length follows the escape, section offsets are 8 bytes
 			if (cu.length == 0xffffffff) {
 				cu.length = (int) debugInfoBytes.getLong();
-				initial_length_size = 12;
+				cu.offset_size = 8;
 			} else {
-				initial_length_size = 4;
+				cu.offset_size = 4;
+			}
+			cu.version = debugInfoBytes.getShort();
+			// dwarf 5 moved abbrev_offset and addr_size, the rest of the header would be misread
+			if (cu.version < 2 || cu.version > 4) {
+				System.err.println("unit 0x" + Integer.toHexString(cu.offset) + " has unsupported dwarf version " + cu.version);
+				return 20;
+			}
+			cu.abbrev_offset = (int) byte_get(debugInfoBytes, cu.offset_size);
+			cu.addr_size = debugInfoBytes.get();
+			cu.abbrevTable = abbrevTables.get(cu.abbrev_offset);
+			if (cu.abbrevTable == null) {
+				System.err.println("unit 0x" + Integer.toHexString(cu.offset) + " has no abbrev table at 0x" + Integer.toHexString(cu.abbrev_offset));
+				return 21;
 			}
+			cu.dwarf = this;
+			compileUnits.add(cu);
 			//if (DwarfGlobal.debug) {
 			//System.out.println(Integer.toHexString(debugInfoBytes.position()) + " " + cu);
 			//}
 
-			//			DebugInfoEntry currentDebugInfoEntry = null;
-			Stack<Vector<DebugInfoEntry>> originalDebugInfoEntry = new Stack<Vector<DebugInfoEntry>>();
-			Vector<DebugInfoEntry> currentDebugInfoEntry = cu.debugInfoEntries;
-			//Stack<Long> siblingValue = new Stack<Long>();
-
-			while (debugInfoBytes.position() <= cu.offset + cu.length + 1) {
-				loadingMessage = "parsing .debug_info " + debugInfoBytes.position() + " bytes";
-				DebugInfoEntry debugInfoEntry = new DebugInfoEntry();
-
-				debugInfoEntry.position = debugInfoBytes.position();
-				debugInfoEntry.abbrevNo = (int) DwarfLib.getULEB128(debugInfoBytes);
-				Abbrev abbrev = abbrevList.get(cu.abbrev_offset).get(debugInfoEntry.abbrevNo);
-
-				//				if (siblingValue.size() > 0 && debugInfoEntry.position == siblingValue.peek()) {
-				//					currentDebugInfoEntry = originalDebugInfoEntry.pop();
-				//					siblingValue.pop();
-				//				} 
-				if (debugInfoEntry.abbrevNo == 0) {
-					currentDebugInfoEntry = originalDebugInfoEntry.pop();
-				}
-				if (abbrev == null) {
-					continue;
-				}
-				debugInfoEntry.name = Definition.getTagName(abbrev.tag);
-
-				//System.out.println("-------------------");
-				for (AbbrevEntry entry : abbrev.entries) {
-					loadingMessage = "parsing .debug_info " + debugInfoBytes.position() + " bytes";
-
-					DebugInfoAbbrevEntry debugInfoAbbrevEntry = new DebugInfoAbbrevEntry();
-					debugInfoAbbrevEntry.name = Definition.getATName(entry.at);
-					if (debugInfoAbbrevEntry.name == null) {
-						debugInfoAbbrevEntry.name = "Unknown AT value " + entry.at;
-					}
-					debugInfoAbbrevEntry.form = entry.form;
-					debugInfoAbbrevEntry.formStr = Definition.getFormName(entry.form);
-					debugInfoAbbrevEntry.position = debugInfoBytes.position();
-
-					debugInfoEntry.debugInfoAbbrevEntries.put(debugInfoAbbrevEntry.name, debugInfoAbbrevEntry);
-					//System.out.println(Integer.toHexString(debugInfoAbbrevEntry.position) + " = " + debugInfoAbbrevEntry.name);
-
-					if (entry.form == Definition.DW_FORM_string) {
-						byte temp;
-						String value = "";
-						while ((temp = debugInfoBytes.get()) != 0) {
-							value += ((char) temp);
-						}
-						if (DwarfGlobal.debug) {
-							//System.out.print("\t:\t" + value);
-						}
-						debugInfoAbbrevEntry.value = value;
-					} else if (entry.form == Definition.DW_FORM_addr) {
-						if (cu.addr_size == 4) {
-							long address = debugInfoBytes.getInt();
-							debugInfoAbbrevEntry.value = address;
-						} else {
-							debugInfoAbbrevEntry.value = null;
-							System.err.println("debugInfoAbbrevEntry.value = null");
-						}
-					} else if (entry.form == Definition.DW_FORM_strp) {
-						int stringOffset = debugInfoBytes.getInt();
-						String s = DwarfLib.getString(debug_bytes, stringOffset);
-						if (DwarfGlobal.debug) {
-							//System.out.printf("\t(indirect string, offset: %x):\t%s", stringOffset, s);
-						}
-						debugInfoAbbrevEntry.value = s;
-					} else if (entry.form == Definition.DW_FORM_data1) {
-						int data = debugInfoBytes.get() & 0xff;
-						debugInfoAbbrevEntry.value = data;
-						if (DwarfGlobal.debug) {
-							//System.out.print("\t:\t" + data);
-						}
-					} else if (entry.form == Definition.DW_FORM_data2) {
-						short data = debugInfoBytes.getShort();
-						debugInfoAbbrevEntry.value = Integer.toHexString(data);
-						if (DwarfGlobal.debug) {
-							//System.out.print("\t:\t" + data);
-						}
-					} else if (entry.form == Definition.DW_FORM_data4) {
-						int data = debugInfoBytes.getInt();
-						debugInfoAbbrevEntry.value = Integer.toHexString(data);
-						if (DwarfGlobal.debug) {
-							//System.out.print("\t:\t" + data);
-						}
-					} else if (entry.form == Definition.DW_FORM_data8) {
-						long data = debugInfoBytes.getLong();
-						debugInfoAbbrevEntry.value = Long.toHexString(data);
-						if (DwarfGlobal.debug) {
-							//System.out.print("\t:\t" + data + cu.offset);
-						}
-					} else if (entry.form == Definition.DW_FORM_ref1) {
-						byte data = debugInfoBytes.get();
-						debugInfoAbbrevEntry.value = Integer.toHexString(data + cu.offset);
-						if (DwarfGlobal.debug) {
-							//System.out.print("\t:\t" + data + cu.offset);
-						}
-					} else if (entry.form == Definition.DW_FORM_ref2) {
-						short data = debugInfoBytes.getShort();
-						debugInfoAbbrevEntry.value = Integer.toHexString(data + cu.offset);
-						if (DwarfGlobal.debug) {
-							//System.out.print("\t:\t" + data + cu.offset);
-						}
-					} else if (entry.form == Definition.DW_FORM_ref4) {
-						int data = debugInfoBytes.getInt();
-						debugInfoAbbrevEntry.value = Integer.toHexString(data + cu.offset);
-						if (DwarfGlobal.debug) {
-							//System.out.printf("\t:\t%x %x", data, data + cu.offset);
-						}
-					} else if (entry.form == Definition.DW_FORM_ref8) {
-						long data = debugInfoBytes.getLong();
-						debugInfoAbbrevEntry.value = Long.toHexString(data + cu.offset);
-						if (DwarfGlobal.debug) {
-							//System.out.print("\t:\t" + data);
-						}
-					} else if (entry.form == Definition.DW_FORM_block) {
-						long size = DwarfLib.getULEB128(debugInfoBytes);
-						byte bytes[] = new byte[(int) size];
-						if (DwarfGlobal.debug) {
-							//System.out.print("\t:\t");
-						}
-						for (int z = 0; z < size; z++) {
-							bytes[z] = (byte) (debugInfoBytes.get() & 0xff);
-							if (DwarfGlobal.debug) {
-								//System.out.printf("%x\t", bytes[z]);
-							}
-						}
-						debugInfoAbbrevEntry.value = bytes;
-					} else if (entry.form == Definition.DW_FORM_block1) {
-						int size = debugInfoBytes.get() & 0xff;
-						byte bytes[] = new byte[(int) size];
-						if (DwarfGlobal.debug) {
-							//System.out.print("\t:\t");
-						}
-						for (int z = 0; z < size; z++) {
-							bytes[z] = (byte) (debugInfoBytes.get() & 0xff);
-							if (DwarfGlobal.debug) {
-								//System.out.printf("%x\t", bytes[z]);
-							}
-						}
-						debugInfoAbbrevEntry.value = bytes;
-					} else if (entry.form == Definition.DW_FORM_block2) {
-						short size = debugInfoBytes.getShort();
-						byte bytes[] = new byte[(int) size];
-						if (DwarfGlobal.debug) {
-							//System.out.print("\t:\t");
-						}
-						for (int z = 0; z < size; z++) {
-							bytes[z] = (byte) (debugInfoBytes.get() & 0xff);
-							if (DwarfGlobal.debug) {
-								//System.out.printf("%x\t", bytes[z]);
-							}
-						}
-						debugInfoAbbrevEntry.value = bytes;
-					} else if (entry.form == Definition.DW_FORM_block4) {
-						int size = debugInfoBytes.getInt();
-						byte bytes[] = new byte[(int) size];
-						if (DwarfGlobal.debug) {
-							//System.out.print("\t:\t");
-						}
-						for (int z = 0; z < size; z++) {
-							bytes[z] = (byte) (debugInfoBytes.get() & 0xff);
-							if (DwarfGlobal.debug) {
-								//System.out.printf("%x\t", bytes[z]);
-							}
-						}
-						debugInfoAbbrevEntry.value = bytes;
-					} else if (entry.form == Definition.DW_FORM_ref_udata) {
-						long data = DwarfLib.getULEB128(debugInfoBytes);
-						debugInfoAbbrevEntry.value = data;
-						if (DwarfGlobal.debug) {
-							//System.out.print("\t:\t" + data);
-						}
-					} else if (entry.form == Definition.DW_FORM_flag) {
-						byte flag = debugInfoBytes.get();
-						debugInfoAbbrevEntry.value = flag;
-						if (DwarfGlobal.debug) {
-							//System.out.print("\t:\t" + flag);
-						}
-					} else if (entry.form == Definition.DW_FORM_sec_offset) {
-						int value = debugInfoBytes.getInt();
-						debugInfoAbbrevEntry.value = value;
-						if (DwarfGlobal.debug) {
-							//System.out.print("\t:\t" + value);
-						}
-					} else if (entry.form == Definition.DW_FORM_flag_present) {
-						//						byte value = debugInfoBytes.get();
-						debugInfoAbbrevEntry.value = 1;
-						if (DwarfGlobal.debug) {
-							//System.out.print("\t:\t1");
-						}
-					} else if (entry.form == Definition.DW_FORM_exprloc) {
-						long size = DwarfLib.getULEB128(debugInfoBytes);
-						byte bytes[] = new byte[(int) size];
-						if (DwarfGlobal.debug) {
-							//System.out.print("\t:\t");
-						}
-						debugInfoAbbrevEntry.value = "";
-						for (int z = 0; z < size; z++) {
-							bytes[z] = (byte) (debugInfoBytes.get() & 0xff);
-							debugInfoAbbrevEntry.value += (bytes[z] & 0xFF) + ",";
-							if (DwarfGlobal.debug) {
-								//System.out.print(bytes[z] + "\t");
-							}
-						}
-					} else if (entry.form == Definition.DW_FORM_sdata) {
-						long data = DwarfLib.getSLEB128(debugInfoBytes);
-						debugInfoAbbrevEntry.value = data;
-						if (DwarfGlobal.debug) {
-							//System.out.print("\t:\t" + data);
-						}
-					} else if (entry.form == Definition.DW_FORM_udata) {
-						long data = DwarfLib.getULEB128(debugInfoBytes);
-						debugInfoAbbrevEntry.value = data;
-						if (DwarfGlobal.debug) {
-							//System.out.print("\t:\t" + data);
-						}
-					} else {
-						System.err.println(" unsupport DW_FORM_? = 0x" + Integer.toHexString(entry.form));
-						return 3;
-					}
+			debugInfoBytes.position(cu.getEnd());
+		}
+		compileUnitOffsets = new int[compileUnits.size()];
+		for (int x = 0; x < compileUnitOffsets.length; x++) {
+			compileUnitOffsets[x] = compileUnits.get(x).offset;
+		}
 
-					if (debugInfoEntry.name.equals("DW_TAG_compile_unit")) {
-						if (debugInfoAbbrevEntry.name.equals("DW_AT_producer")) {
-							cu.DW_AT_producer = String.valueOf(debugInfoAbbrevEntry.value);
-						} else if (debugInfoAbbrevEntry.name.equals("DW_AT_language")) {
-							cu.DW_AT_language = (int) Long.parseLong(debugInfoAbbrevEntry.value.toString(), 16);
-						} else if (debugInfoAbbrevEntry.name.equals("DW_AT_name")) {
-							cu.DW_AT_name = String.valueOf(debugInfoAbbrevEntry.value);
-						} else if (debugInfoAbbrevEntry.name.equals("DW_AT_comp_dir")) {
-							cu.DW_AT_comp_dir = String.valueOf(debugInfoAbbrevEntry.value);
-						} else if (debugInfoAbbrevEntry.name.equals("DW_AT_low_pc")) {
-							cu.DW_AT_low_pc = Long.parseLong(debugInfoAbbrevEntry.value.toString(), 10);
-						} else if (debugInfoAbbrevEntry.name.equals("DW_AT_high_pc")) {
-							cu.DW_AT_high_pc = Long.parseLong(debugInfoAbbrevEntry.value.toString(), 16);
-						} else if (debugInfoAbbrevEntry.name.equals("DW_AT_stmt_list")) {
-							cu.DW_AT_stmt_list = String.valueOf(debugInfoAbbrevEntry.value);
-						}
-					}
+		if (lazyLoading) {
+			for (CompileUnit cu : compileUnits) {
+				parseCompileUnitRoot(cu, debugInfoBytes);
+			}
+			return 0;
+		}
 
-					//if (DwarfGlobal.debug) {
-					//System.out.println();
-					//}
-				}
-				currentDebugInfoEntry.add(debugInfoEntry);
-				//				DebugInfoAbbrevEntry debugInfoAbbrevEntry = debugInfoEntry.debugInfoAbbrevEntries.get("DW_AT_sibling");
-				//				if (debugInfoAbbrevEntry != null) {
-				//					originalDebugInfoEntry.push(currentDebugInfoEntry);
-				//					currentDebugInfoEntry = debugInfoEntry.debugInfoEntries;
-				//					siblingValue.push(CommonLib.convertFilesize("0x" + debugInfoAbbrevEntry.value));
-				//				}  
-				if (abbrev.has_children) {
-					originalDebugInfoEntry.push(currentDebugInfoEntry);
-					currentDebugInfoEntry = debugInfoEntry.debugInfoEntries;
+		if (forkJoinPool == null || compileUnits.size() < 2) {
+			for (CompileUnit cu : compileUnits) {
+				r = parseCompileUnit(cu, debugInfoBytes);
+				if (r > 0) {
+					return r;
 				}
-
 			}
+			return 0;
+		}
 
-			start += cu.length + initial_length_size;
-			debugInfoBytes.position(start);
+		Vector<ForkJoinTask<Integer>> tasks = new Vector<ForkJoinTask<Integer>>();
+		for (final CompileUnit cu : compileUnits) {
+			tasks.add(forkJoinPool.submit(new Callable<Integer>() {
+				@Override
+				public Integer call() {
+					return parseCompileUnit(cu, debugInfoBytes);
+				}
+			}));
+		}
+		// report the first failure in section order, like the sequential loop
+		for (ForkJoinTask<Integer> task : tasks) {
+			r = task.join();
+			if (r > 0) {
+				return r;
+			}
 		}
 		return 0;
 	}
 
-	private int calculationRelocation(Elf32_Shdr debugInfoSection, ByteBuffer debugInfoBytes, String relocationInfoSectionName) {
-		int originalPosition = debugInfoBytes.position();
-		if (ehdr.e_type != Elf_Common.ET_REL) {
-			return 0;
+	/**
+	 * Decodes the entries of one unit and copies the root attributes into the
+	 * CompileUnit fields. Only reads shared state, so units can be decoded on
+	 * different threads.
+	 */
+	private int parseCompileUnit(CompileUnit cu, ByteBuffer debugInfoBytes) {
+		int r = parseCompileUnitEntries(cu, debugInfoBytes);
+		if (r > 0) {
+			return r;
+		}
+		for (DebugInfoEntry debugInfoEntry : cu.getDebugInfoEntryByTag(Definition.DW_TAG_compile_unit)) {
+			readCompileUnitAttributes(cu, debugInfoEntry);
 		}
+		return 0;
+	}
 
-		Elf32_Shdr debugInfoRelSection = null;
-		for (Elf32_Shdr s : SectionFinder.getAllRelocationSection(file)) {
-			if (s.sh_info == debugInfoSection.number) {
-				debugInfoRelSection = s;
-				break;
+	/**
+	 * Only reads the root entry of a unit, the rest is decoded by the
+	 * CompileUnit the first time it is asked for entries or lines.
+	 */
+	private void parseCompileUnitRoot(CompileUnit cu, ByteBuffer debugInfoBytes) {
+		DebugInfoTable table = new DebugInfoTable(cu, cu.abbrevTable, debugInfoBytes, debugStrings, inlineStrings);
+		ByteBuffer b = table.newCursor();
+		b.position(cu.getEntriesOffset());
+		int abbrevNo = (int) DwarfLib.getULEB128(b);
+		Abbrev abbrev = table.abbrevs.get(abbrevNo);
+		if (abbrev != null && abbrev.tag == Definition.DW_TAG_compile_unit) {
+			table.add(cu.getEntriesOffset(), abbrevNo, false);
+			readCompileUnitAttributes(cu, table.get(0));
+		}
+		cu.debugInfoPending = true;
+		cu.linesPending = true;
+	}
+
+	/**
+	 * Builds the entry table of a unit, the root attributes are left alone.
+	 */
+	int parseCompileUnitEntries(CompileUnit cu, ByteBuffer debugInfoBytes) {
+		loadingMessage = "parsing .debug_info " + cu.offset + " bytes";
+		DebugInfoTable table = new DebugInfoTable(cu, cu.abbrevTable, debugInfoBytes, debugStrings, inlineStrings);
+		int r;
+		if (forkJoinPool != null && cu.length > splitUnitSize) {
+			r = parseSplitCompileUnit(cu, table, debugInfoBytes);
+		} else {
+			r = table.parse(cu.getEntriesOffset(), cu.getEnd());
+		}
+		if (r > 0) {
+			return r;
+		}
+		table.trim();
+		cu.debugInfoTable = table;
+		return 0;
+	}
+
+	/**
+	 * Decodes the line programs of all units, on forkJoinPool if there is
+	 * one. Each distinct program is decoded once, by the first unit pointing
+	 * at it, and the units after it share the result, so the outcome does not
+	 * depend on scheduling.
+	 */
+	private int parseLinePrograms() {
+		int r;
+		if (forkJoinPool == null || compileUnits.size() < 2) {
+			for (CompileUnit cu : compileUnits) {
+				r = parseLineProgram(cu);
+				if (r > 0) {
+					return r;
+				}
 			}
+			return 0;
+		}
+
+		Vector<ForkJoinTask<Integer>> tasks = new Vector<ForkJoinTask<Integer>>();
+		Vector<CompileUnit> sharing = new Vector<CompileUnit>();
+		HashSet<Long> offsets = new HashSet<Long>();
+		for (final CompileUnit cu : compileUnits) {
+			if (cu.DW_AT_stmt_list == -1 || !offsets.add(cu.DW_AT_stmt_list)) {
+				sharing.add(cu);
+				continue;
+			}
+			tasks.add(forkJoinPool.submit(new Callable<Integer>() {
+				@Override
+				public Integer call() {
+					return parseLineProgram(cu);
+				}
+			}));
+		}
+		// report the first failure in section order, like the sequential loop
+		for (ForkJoinTask<Integer> task : tasks) {
+			r = task.join();
+			if (r > 0) {
+				return r;
+			}
+		}
+		for (CompileUnit cu : sharing) {
+			r = parseLineProgram(cu);
+			if (r > 0) {
+				return r;
+			}
+		}
+		return 0;
+	}
+
+	/**
+	 * Decodes the line program DW_AT_stmt_list of a unit points at. Units
+	 * pointing at the same program share one decoded header.
+	 */
+	int parseLineProgram(CompileUnit cu) {
+		if (cu.DW_AT_stmt_list == -1 || debug_line_bytes == null) {
+			return 0;
+		}
+		long offset = cu.DW_AT_stmt_list;
+		if (offset < 0 || offset >= debug_line_bytes.limit()) {
+			System.err.println("DW_AT_stmt_list 0x" + Long.toHexString(offset) + " of unit 0x" + Integer.toHexString(cu.offset) + " is outside .debug_line");
+			return 16;
+		}
+		DwarfDebugLineHeader header = lineHeaders.get(offset);
+		if (header != null) {
+			cu.dwarfDebugLineHeader = header;
+			return 0;
+		}
+		ByteBuffer b = debug_line_bytes.duplicate().order(ByteOrder.nativeOrder());
+		b.position((int) offset);
+		int r = parseHeader(b, cu, memoryOffset);
+		if (r > 0 || cu.dwarfDebugLineHeader == null) {
+			return r;
+		}
+		header = lineHeaders.putIfAbsent(offset, cu.dwarfDebugLineHeader);
+		if (header != null) {
+			// another thread decoded it first
+			cu.dwarfDebugLineHeader = header;
+		}
+		// the flag is read after the header is published, so a compressLineTables() running meanwhile either sees the header or set the flag before this
+		if (compressLineTables) {
+			header = cu.dwarfDebugLineHeader;
+			header.lineTable = header.lineTable.compress(keepLineColumns);
+		}
+		return 0;
+	}
+
+	private void readCompileUnitAttributes(CompileUnit cu, DebugInfoEntry debugInfoEntry) {
+		cu.DW_AT_producer = debugInfoEntry.getString(Definition.DW_AT_producer);
+		if (debugInfoEntry.hasAttribute(Definition.DW_AT_language)) {
+			cu.DW_AT_language = (int) debugInfoEntry.getUnsigned(Definition.DW_AT_language);
+		}
+		cu.DW_AT_name = debugInfoEntry.getString(Definition.DW_AT_name);
+		cu.DW_AT_comp_dir = debugInfoEntry.getString(Definition.DW_AT_comp_dir);
+		if (debugInfoEntry.hasAttribute(Definition.DW_AT_low_pc)) {
+			cu.DW_AT_low_pc = debugInfoEntry.getUnsigned(Definition.DW_AT_low_pc);
+		}
+		if (debugInfoEntry.hasAttribute(Definition.DW_AT_high_pc)) {
+			cu.DW_AT_high_pc = debugInfoEntry.getUnsigned(Definition.DW_AT_high_pc);
+			// DW_AT_high_pc is kept as a length, before dwarf 4 it is an address
+			if (debugInfoEntry.getForm(Definition.DW_AT_high_pc) == Definition.DW_FORM_addr) {
+				cu.DW_AT_high_pc -= cu.DW_AT_low_pc;
+			}
+		}
+		if (debugInfoEntry.hasAttribute(Definition.DW_AT_ranges)) {
+			cu.DW_AT_ranges = debugInfoEntry.getUnsigned(Definition.DW_AT_ranges);
+		}
+		if (debugInfoEntry.hasAttribute(Definition.DW_AT_stmt_list)) {
+			cu.DW_AT_stmt_list = debugInfoEntry.getUnsigned(Definition.DW_AT_stmt_list);
+		}
+	}
+
+	/**
+	 * Decodes runs of top level subtrees of one big unit on the pool and
+	 * stitches them under the root entry in section order. Units whose
+	 * children cannot be pre-scanned are decoded in one go.
+	 */
+	private int parseSplitCompileUnit(final CompileUnit cu, final DebugInfoTable table, final ByteBuffer debugInfoBytes) {
+		int chunkSize = Math.max(1, cu.length / (forkJoinPool.getParallelism() * 4));
+		int bounds[] = table.splitChildren(cu.getEntriesOffset(), cu.getEnd(), chunkSize);
+		if (bounds == null) {
+			return table.parse(cu.getEntriesOffset(), cu.getEnd());
+		}
+		// the root stays open, the runs are appended as its children
+		int r = table.parse(cu.getEntriesOffset(), bounds[0]);
+		if (r > 0) {
+			return r;
+		}
+		final DebugInfoTable parts[] = new DebugInfoTable[bounds.length - 1];
+		Vector<ForkJoinTask<Integer>> tasks = new Vector<ForkJoinTask<Integer>>();
+		for (int x = 0; x < parts.length; x++) {
+			final int part = x;
+			final int start = bounds[x];
+			final int end = bounds[x + 1];
+			ForkJoinTask<Integer> task = ForkJoinTask.adapt(new Callable<Integer>() {
+				@Override
+				public Integer call() {
+					parts[part] = new DebugInfoTable(cu, table.abbrevs, debugInfoBytes, debugStrings, inlineStrings);
+					return parts[part].parse(start, end);
+				}
+			});
+			// already on a worker when units are decoded in parallel
+			if (ForkJoinTask.getPool() == forkJoinPool) {
+				task.fork();
+			} else {
+				forkJoinPool.execute(task);
+			}
+			tasks.add(task);
+		}
+		for (int x = 0; x < parts.length; x++) {
+			r = tasks.get(x).join();
+			if (r > 0) {
+				return r;
+			}
+			table.append(parts[x]);
+		}
+		return table.parse(bounds[bounds.length - 1], cu.getEnd());
+	}
+
+	private int calculationRelocation(Elf32_Shdr debugInfoSection, ByteBuffer debugInfoBytes) {
+		int originalPosition = debugInfoBytes.position();
+		if (ehdr.e_type != Elf_Common.ET_REL) {
+			return 0;
 		}
+
+		Elf32_Shdr debugInfoRelSection = elfImage.sectionTable.getRelocationSection(debugInfoSection.number);
 		if (debugInfoRelSection != null) {
 			try {
-				ByteBuffer byteBuffer = SectionFinder.findSectionByte(ehdr, file, relocationInfoSectionName);
+				ByteBuffer byteBuffer = elfImage.getSection(debugInfoRelSection, false);
+				if (ehdr.is64Bits()) {
+					int r = calculationRelocation64(debugInfoRelSection, byteBuffer, debugInfoBytes);
+					debugInfoBytes.position(originalPosition);
+					return r;
+				}
 				int size = Integer.MAX_VALUE;
 				if (debugInfoRelSection.sh_type == Elf_Common.SHT_RELA) {
 					size = 12;
@@ -2563,6 +2638,9 @@ public class Dwarf {
 					int info = byteBuffer.getInt();
 
 					int addend = 0;
+					if (debugInfoRelSection.sh_type == Elf_Common.SHT_RELA) {
+						addend = byteBuffer.getInt();
+					}
 
 					int relocationType = Elf_Common.ELF32_R_TYPE(info);
 
@@ -2588,7 +2666,7 @@ public class Dwarf {
 
 					if (debugInfoBytes.remaining() >= 4) {
 						debugInfoBytes.position(offset);
-						int value = symbols.get(Elf_Common.ELF32_R_SYM(info)).st_value + addend;
+						int value = (int) (symbols.get(Elf_Common.ELF32_R_SYM(info)).st_value + addend);
 						debugInfoBytes.putInt(value);
 						debugInfoBytes.position(temp);
 						if (DwarfGlobal.debug) {
@@ -2611,19 +2689,88 @@ public class Dwarf {
 		return 0;
 	}
 
-	private int parseHeader(ByteBuffer debugLineBytes, CompileUnit compileUnit, long memoryOffset) {
+	// only x86-64 relocation types are known, other machines would be left with unrelocated sections
+	private int calculationRelocation64(Elf32_Shdr relocationSection, ByteBuffer relocationBytes, ByteBuffer debugInfoBytes) {
+		if (ehdr.e_machine != Definition.EM_X86_64) {
+			System.err.println("64 bits relocation not supported for machine " + ehdr.e_machine);
+			return 22;
+		}
+		boolean hasAddend = relocationSection.sh_type == Elf_Common.SHT_RELA;
+		int size = hasAddend ? Elf64_Rela.sizeof() : 16;
+		Elf64_Rela rela = new Elf64_Rela();
+		while (relocationBytes.remaining() >= size) {
+			rela.read(relocationBytes, hasAddend);
+			int relocationType = rela.getType();
+			int width;
+			if (relocationType == Elf_Common.R_X86_64_64) {
+				width = 8;
+			} else if (relocationType == Elf_Common.R_X86_64_32 || relocationType == Elf_Common.R_X86_64_32S) {
+				width = 4;
+			} else {
+				continue;
+			}
+			int offset = (int) rela.r_offset;
+			if (offset < 0 || offset + width > debugInfoBytes.limit() || rela.getSymbol() >= symbols.size()) {
+				continue;
+			}
+			long addend = rela.r_addend;
+			if (!hasAddend) {
+				addend = width == 8 ? debugInfoBytes.getLong(offset) : debugInfoBytes.getInt(offset);
+			}
+			long value = symbols.get(rela.getSymbol()).st_value + addend;
+			if (width == 8) {
+				debugInfoBytes.putLong(offset, value);
+			} else {
+				debugInfoBytes.putInt(offset, (int) value);
+			}
+		}
+		return 0;
+	}
+
+	/**
+	 * The file table of the line program of a unit, without decoding its
+	 * rows if it is not decoded yet: then the header comes with an empty
+	 * line table. Null if the unit has no line program or its header does
+	 * not decode.
+	 */
+	DwarfDebugLineHeader getLineFileTable(CompileUnit cu) {
+		if (!cu.linesPending) {
+			return cu.dwarfDebugLineHeader;
+		}
+		long offset = cu.DW_AT_stmt_list;
+		if (offset < 0 || debug_line_bytes == null || offset >= debug_line_bytes.limit()) {
+			return null;
+		}
+		DwarfDebugLineHeader header = lineHeaders.get(offset);
+		if (header != null) {
+			return header;
+		}
+		ByteBuffer b = debug_line_bytes.duplicate().order(ByteOrder.nativeOrder());
+		b.position((int) offset);
+		header = new DwarfDebugLineHeader();
+		return parseLineHeader(b, cu, header) > 0 ? null : header;
+	}
+
+	// reads the header up to and including the file table, leaves the cursor at the first opcode
+	private int parseLineHeader(ByteBuffer debugLineBytes, CompileUnit compileUnit, DwarfDebugLineHeader dwarfDebugLineHeader) {
 		try {
 			final int begin = debugLineBytes.position();
 
-			DwarfDebugLineHeader dwarfDebugLineHeader = new DwarfDebugLineHeader();
 			dwarfDebugLineHeader.offset = debugLineBytes.position();
 			dwarfDebugLineHeader.total_length = (long) debugLineBytes.getInt() & 0xFFFFFFFFL;
+			int initial_length_size = 4;
+			int line_offset_size = 4;
+			if (dwarfDebugLineHeader.total_length == 0xffffffffL) {
+				dwarfDebugLineHeader.total_length = debugLineBytes.getLong();
+				initial_length_size = 12;
+				line_offset_size = 8;
+			}
 			dwarfDebugLineHeader.version = debugLineBytes.getShort() & 0xFFFF;
-			dwarfDebugLineHeader.prologue_length = (long) debugLineBytes.getInt() & 0xFFFFFFFFL;
+			dwarfDebugLineHeader.prologue_length = byte_get(debugLineBytes, line_offset_size);
 			dwarfDebugLineHeader.minimum_instruction_length = debugLineBytes.get() & 0xFF;
 
-			final int end = (int) (begin + dwarfDebugLineHeader.total_length + 4);
-			final int prologue_end = (int) (begin + dwarfDebugLineHeader.prologue_length + 9);
+			dwarfDebugLineHeader.end = (int) (begin + dwarfDebugLineHeader.total_length + initial_length_size);
+			final int prologue_end = (int) (begin + initial_length_size + 2 + line_offset_size + dwarfDebugLineHeader.prologue_length - 1);
 
 			if (dwarfDebugLineHeader.version >= 4) {
 				dwarfDebugLineHeader.max_ops_per_insn = debugLineBytes.get();
@@ -2655,6 +2802,15 @@ public class Dwarf {
 				}
 			}
 
+			// include directories as path table ids, 0 is the comp_dir
+			String compDir = compileUnit.DW_AT_comp_dir == null ? "." : compileUnit.DW_AT_comp_dir;
+			int directoryIds[] = new int[dwarfDebugLineHeader.dirnames.size() + 1];
+			directoryIds[0] = sourcePaths.internDirectory(compDir);
+			for (int x = 1; x < directoryIds.length; x++) {
+				String dirname = dwarfDebugLineHeader.dirnames.get(x - 1);
+				directoryIds[x] = sourcePaths.internDirectory(new File(dirname).isAbsolute() ? dirname : compDir + File.separator + dirname);
+			}
+
 			// Read the file names.
 			int entryNo = 1;
 			while (debugLineBytes.hasRemaining() && debugLineBytes.position() < prologue_end) {
@@ -2666,20 +2822,14 @@ public class Dwarf {
 				long u3 = DwarfLib.getULEB128(debugLineBytes);
 				f.entryNo = entryNo;
 
-				try {
-					if (u1 == 0) {
-						f.file = new File(compileUnit.DW_AT_comp_dir + File.separator + fname);
-					} else if (new File(dwarfDebugLineHeader.dirnames.get((int) u1 - 1)).isAbsolute()) {
-						f.file = new File(dwarfDebugLineHeader.dirnames.get((int) u1 - 1) + File.separator + fname);
-					} else {
-						f.file = new File(compileUnit.DW_AT_comp_dir + File.separator + dwarfDebugLineHeader.dirnames.get((int) u1 - 1) + File.separator + fname);
-					}
-					if (DwarfGlobal.debug && !f.file.exists()) {
-						System.err.println(f.file.getAbsolutePath() + " is not exist");
-					}
-				} catch (Exception ex) {
-					ex.printStackTrace();
-					//System.out.println(u1);
+				if (u1 < 0 || u1 >= directoryIds.length) {
+					System.err.println("file " + fname + " has invalid directory " + u1);
+					u1 = 0;
+				}
+				f.pathTable = sourcePaths;
+				f.pathId = sourcePaths.intern(directoryIds[(int) u1], fname);
+				if (DwarfGlobal.debug && !f.getFile().exists()) {
+					System.err.println(f.getPath() + " is not exist");
 				}
 				f.dir = u1;
 				f.time = u2;
@@ -2697,12 +2847,30 @@ public class Dwarf {
 
 			debugLineBytes.get();
 
-			BigInteger address = BigInteger.ZERO;
-			long file_num = 0;
+			return 0;
+		} catch (Exception ex) {
+			compileUnit.decodeError = ex;
+			return 18;
+		}
+	}
+
+	private int parseHeader(ByteBuffer debugLineBytes, CompileUnit compileUnit, long memoryOffset) {
+		DwarfDebugLineHeader dwarfDebugLineHeader = new DwarfDebugLineHeader();
+		int r = parseLineHeader(debugLineBytes, compileUnit, dwarfDebugLineHeader);
+		if (r > 0) {
+			return r;
+		}
+		try {
+			final int end = dwarfDebugLineHeader.end;
+
+			long address = 0;
+			long file_num = 1;
 			int line_num = 1;
 			long column_num = 0;
 			boolean is_stmt = dwarfDebugLineHeader.default_is_stmt;
 			boolean basic_block = false;
+			boolean is_prologue_end = false;
+			boolean is_epilogue_begin = false;
 			int op_index = 0;
 			boolean end_sequence = false;
 			int last_file_entry = 0;
@@ -2714,12 +2882,19 @@ public class Dwarf {
 				int opcode = debugLineBytes.get() & 0xff;
 				if (opcode >= dwarfDebugLineHeader.opcode_base) {
 					opcode -= dwarfDebugLineHeader.opcode_base;
-					int advance_address = ((opcode / dwarfDebugLineHeader.line_range) * dwarfDebugLineHeader.minimum_instruction_length);
-					address = address.add(BigInteger.valueOf(advance_address));
+					int operation_advance = opcode / dwarfDebugLineHeader.line_range;
+					long advance_address;
+					if (dwarfDebugLineHeader.max_ops_per_insn == 1) {
+						advance_address = operation_advance * dwarfDebugLineHeader.minimum_instruction_length;
+					} else {
+						advance_address = ((op_index + operation_advance) / dwarfDebugLineHeader.max_ops_per_insn) * dwarfDebugLineHeader.minimum_instruction_length;
+						op_index = (op_index + operation_advance) % dwarfDebugLineHeader.max_ops_per_insn;
+					}
+					address += advance_address;
 					int advance_line = ((opcode % dwarfDebugLineHeader.line_range) + dwarfDebugLineHeader.line_base);
 					line_num += advance_line;
 					if (DwarfGlobal.debug) {
-						//System.out.println("Special opcode:" + opcode + ",\tadvance address by " + advance_address + " to 0x" + address.toString(16) + ", line by " + advance_line+ " to " + line_num);
+						//System.out.println("Special opcode:" + opcode + ",\tadvance address by " + advance_address + " to 0x" + Long.toHexString(address) + ", line by " + advance_line+ " to " + line_num);
 					}
 				} else if (opcode == Dwarf_Standard_Opcode_Type.DW_LNS_extended_op) {
 					long size = DwarfLib.getULEB128(debugLineBytes);
@@ -2727,61 +2902,74 @@ public class Dwarf {
 						//System.out.println("Error: DW_LNS_extended_op size=0");
 						return 11;
 					}
+					final int extended_end = (int) (debugLineBytes.position() + size);
 					int code = debugLineBytes.get();
 					if (code == Dwarf_line_number_x_ops.DW_LNE_end_sequence) {
 						if (DwarfGlobal.debug) {
 							//System.out.println("Extended opcode:" + code + " End of sequence");
 						}
-						address = BigInteger.ZERO;
+						// the row closing the sequence, its address is the first one past it
+						dwarfDebugLineHeader.lineTable.add(address + memoryOffset, (int) file_num, line_num, (int) column_num, LineTable.END_SEQUENCE);
+						address = 0;
 						op_index = 0;
 						file_num = 1;
 						line_num = 1;
 						column_num = 0;
 						is_stmt = dwarfDebugLineHeader.default_is_stmt;
 						basic_block = false;
+						is_prologue_end = false;
+						is_epilogue_begin = false;
 						end_sequence = false;
 						last_file_entry = 0;
+						debugLineBytes.position(extended_end);
 						continue;
 					} else if (code == Dwarf_line_number_x_ops.DW_LNE_set_address) {
-						address = BigInteger.valueOf(debugLineBytes.getInt());
+						// the operand is a target address, 4 or 8 bytes
+						address = byte_get(debugLineBytes, (int) size - 1);
 						op_index = 0;
 						if (DwarfGlobal.debug) {
-							//System.out.println("Extended opcode:" + code + ": set Address to 0x" + address.toString(16));
+							//System.out.println("Extended opcode:" + code + ": set Address to 0x" + Long.toHexString(address));
 						}
-						//					continue;
+						debugLineBytes.position(extended_end);
+						continue;
 					} else if (code == Dwarf_line_number_x_ops.DW_LNE_define_file) {
 						int dir_index = 0;
 
 						++last_file_entry;
+						debugLineBytes.position(extended_end);
+						continue;
 					} else if (code == Dwarf_line_number_x_ops.DW_LNE_set_discriminator) {
-						int discriminator = debugLineBytes.get();
+						long discriminator = DwarfLib.getULEB128(debugLineBytes);
 						if (DwarfGlobal.debug) {
 							//System.out.println("Extended opcode:" + code + ",\tset discriminator=" + discriminator);
 						}
+						debugLineBytes.position(extended_end);
 						continue;
 					} else {
 						if (DwarfGlobal.debug) {
 							//System.out.println("error, wrong size in address,\topcode=" + opcode + ", code=" + code);
 						}
+						// unknown or vendor extended opcode, skip its operands
+						debugLineBytes.position(extended_end);
+						continue;
 					}
 				} else if (opcode == Dwarf_Standard_Opcode_Type.DW_LNS_copy) {
 					if (DwarfGlobal.debug) {
 						//System.out.println("Copy");
 					}
-					is_stmt = false;
 				} else if (opcode == Dwarf_Standard_Opcode_Type.DW_LNS_advance_pc) {
 					long adjust;
 					if (dwarfDebugLineHeader.max_ops_per_insn == 1) {
 						long advance_address = DwarfLib.getULEB128(debugLineBytes);
 						adjust = dwarfDebugLineHeader.minimum_instruction_length * advance_address;
-						address = address.add(BigInteger.valueOf(adjust));
+						address += adjust;
 					} else {
 						adjust = DwarfLib.getULEB128(debugLineBytes);
-						address = BigInteger.valueOf(((op_index + adjust) / dwarfDebugLineHeader.max_ops_per_insn) * dwarfDebugLineHeader.minimum_instruction_length);
+						address += ((op_index + adjust) / dwarfDebugLineHeader.max_ops_per_insn) * dwarfDebugLineHeader.minimum_instruction_length;
 						op_index = (int) ((op_index + adjust) % dwarfDebugLineHeader.max_ops_per_insn);
 					}
 					if (DwarfGlobal.debug) {
-						//System.out.println("advance pc by " + adjust + ", address=" + address.toString(16));
+						//System.out.println("advance pc by " + adjust + ", address=" + Long.toHexString(address));
 					}
 
 					continue;
@@ -2794,7 +2982,7 @@ public class Dwarf {
 					continue;
 				} else if (opcode == Dwarf_Standard_Opcode_Type.DW_LNS_set_file) {
 					long fileno = DwarfLib.getULEB128(debugLineBytes);
-					file_num = fileno - 1;
+					file_num = fileno;
 					if (DwarfGlobal.debug) {
 						//System.out.println("set file, file=" + file_num);
 					}
@@ -2805,6 +2993,7 @@ public class Dwarf {
 					if (DwarfGlobal.debug) {
 						//System.out.println("set column, column=" + column_num);
 					}
+					continue;
 				} else if (opcode == Dwarf_Standard_Opcode_Type.DW_LNS_negate_stmt) {
 					is_stmt = !is_stmt;
 					if (DwarfGlobal.debug) {
@@ -2816,34 +3005,45 @@ public class Dwarf {
 					if (DwarfGlobal.debug) {
 						//System.out.println("set basic_block, basic_block=" + basic_block);
 					}
+					continue;
 				} else if (opcode == Dwarf_Standard_Opcode_Type.DW_LNS_fixed_advance_pc) {
-					int advance_address = debugLineBytes.getInt();
-					address = address.add(BigInteger.valueOf(advance_address));
+					// the operand is a uhalf
+					int advance_address = debugLineBytes.getShort() & 0xffff;
+					address += advance_address;
 					op_index = 0;
 					if (DwarfGlobal.debug) {
-						//System.out.println("fixed advance pc, address=" + address.toString(16));
+						//System.out.println("fixed advance pc, address=" + Long.toHexString(address));
 					}
+					continue;
 				} else if (opcode == Dwarf_Standard_Opcode_Type.DW_LNS_const_add_pc) {
 					long advance_address;
 
 					if (dwarfDebugLineHeader.max_ops_per_insn == 1) {
 						advance_address = (dwarfDebugLineHeader.minimum_instruction_length * ((255 - dwarfDebugLineHeader.opcode_base) / dwarfDebugLineHeader.line_range));
-						address = address.add(BigInteger.valueOf(advance_address));
+						address += advance_address;
 					} else {
 						long adjust = ((255 - dwarfDebugLineHeader.opcode_base) / dwarfDebugLineHeader.line_range);
 						advance_address = dwarfDebugLineHeader.minimum_instruction_length * ((op_index + adjust) / dwarfDebugLineHeader.max_ops_per_insn);
-						address = address.add(BigInteger.valueOf(advance_address));
+						address += advance_address;
 						op_index = (int) ((op_index + adjust) % dwarfDebugLineHeader.max_ops_per_insn);
 					}
 
 					if (DwarfGlobal.debug) {
-						//System.out.println("Advance PC by constant " + advance_address + " to 0x" + address.toString(16));
+						//System.out.println("Advance PC by constant " + advance_address + " to 0x" + Long.toHexString(address));
 					}
 
 					continue;
 				} else if (opcode == Dwarf_Standard_Opcode_Type.DW_LNS_set_prologue_end) {
+					is_prologue_end = true;
 					continue;
 				} else if (opcode == Dwarf_Standard_Opcode_Type.DW_LNS_set_epilogue_begin) {
+					is_epilogue_begin = true;
+					continue;
+				} else if (opcode < dwarfDebugLineHeader.opcode_base) {
+					// DW_LNS_set_isa or an opcode of a newer version, the header tells how many operands to skip
+					for (int x = 0; x < dwarfDebugLineHeader.standard_opcode_lengths[opcode - 1]; x++) {
+						DwarfLib.getULEB128(debugLineBytes);
+					}
 					continue;
 				} else {
 					if (DwarfGlobal.debug) {
@@ -2852,21 +3052,21 @@ public class Dwarf {
 					return 14;
 				}
 
-				DwarfLine dwarfLine = new DwarfLine();
-				dwarfLine.address = address.add(BigInteger.valueOf(memoryOffset));
-				dwarfLine.file_num = file_num;
-				dwarfLine.line_num = line_num;
-				dwarfLine.column_num = column_num;
-				dwarfLine.is_stmt = is_stmt;
-				dwarfLine.basic_block = basic_block;
-				dwarfDebugLineHeader.lines.add(dwarfLine);
+				// special opcodes and DW_LNS_copy append a row
+				int flags = (is_stmt ? LineTable.IS_STMT : 0) | (basic_block ? LineTable.BASIC_BLOCK : 0) | (is_prologue_end ? LineTable.PROLOGUE_END : 0)
+						| (is_epilogue_begin ? LineTable.EPILOGUE_BEGIN : 0);
+				dwarfDebugLineHeader.lineTable.add(address + memoryOffset, (int) file_num, line_num, (int) column_num, flags);
+				basic_block = false;
+				is_prologue_end = false;
+				is_epilogue_begin = false;
 			}
-			Collections.sort(dwarfDebugLineHeader.lines);
+			dwarfDebugLineHeader.lineTable.build();
 			debugLineBytes.position(end);
 
 			compileUnit.dwarfDebugLineHeader = dwarfDebugLineHeader;
 			return 0;
 		} catch (Exception ex) {
+			compileUnit.decodeError = ex;
 			return 18;
 		}
 	}
@@ -2881,42 +3081,620 @@ public class Dwarf {
 		return super.toString();
 	}
 
-	//	int hashCode = -99999;
-	//	Hashtable<Long, CompileUnit> ht;
+	/**
+	 * The fewest addresses getInlineFrames(long[]) hands to one task of the
+	 * forkJoinPool, 1024 by default.
+	 */
+	public void setSymbolizeChunkSize(int addresses) {
+		if (addresses <= 0) {
+			throw new IllegalArgumentException("symbolizeChunkSize must be positive, got " + addresses);
+		}
+		symbolizeChunkSize = addresses;
+	}
+
+	public int getSymbolizeChunkSize() {
+		return symbolizeChunkSize;
+	}
+
+	/**
+	 * Puts a cache of entries results each in front of getCompileUnit,
+	 * getContainingSubProgram, getLine, getInlineFrames and
+	 * DwarfLib.getParameters, 0 removes the caches. Cached frame lists are
+	 * unmodifiable and DwarfLib.getParameters returns a copy of the cached
+	 * table; the units, entries, lines and frames in cached results are
+	 * shared between callers and must not be changed.
+	 */
+	public void setAddressCacheSize(int entries) {
+		if (entries <= 0) {
+			compileUnitCache = null;
+			subProgramCache = null;
+			lineCache = null;
+			inlineFramesCache = null;
+			parametersCache = null;
+			return;
+		}
+		compileUnitCache = new AddressCache<CompileUnit>(entries, new AddressCache.Loader<CompileUnit>() {
+			@Override
+			public CompileUnit load(long address) {
+				return compileUnitRanges.find(address);
+			}
+		});
+		subProgramCache = new AddressCache<DebugInfoEntry>(entries, new AddressCache.Loader<DebugInfoEntry>() {
+			@Override
+			public DebugInfoEntry load(long address) {
+				return findSubProgram(address);
+			}
+		});
+		lineCache = new AddressCache<DwarfLine>(entries, new AddressCache.Loader<DwarfLine>() {
+			@Override
+			public DwarfLine load(long address) {
+				return findLine(address);
+			}
+		});
+		inlineFramesCache = new AddressCache<List<DwarfInlineFrame>>(entries, new AddressCache.Loader<List<DwarfInlineFrame>>() {
+			@Override
+			public List<DwarfInlineFrame> load(long address) {
+				return Collections.unmodifiableList(findInlineFrames(address));
+			}
+		});
+		parametersCache = new AddressCache<Map<String, DwarfParameter>>(entries, new AddressCache.Loader<Map<String, DwarfParameter>>() {
+			@Override
+			public Map<String, DwarfParameter> load(long address) {
+				Hashtable<String, DwarfParameter> parameters = DwarfLib.getParameters(Dwarf.this, address);
+				return parameters == null ? null : Collections.unmodifiableMap(parameters);
+			}
+		});
+	}
+
+	/**
+	 * Keeps line tables block compressed, see LineTable.compress(), the ones
+	 * decoded so far and the ones lazy loading decodes later. Each header's
+	 * table is replaced by a compressed copy, queries running meanwhile, and
+	 * snapshots, see either the old table or the new one. Rows for the same
+	 * file and line are merged, so a looked up row may start below the
+	 * address asked for.
+	 */
+	public void compressLineTables(boolean keepColumns) {
+		keepLineColumns = keepColumns;
+		compressLineTables = true;
+		for (CompileUnit cu : compileUnits) {
+			DwarfDebugLineHeader header = cu.dwarfDebugLineHeader;
+			if (header != null) {
+				header.lineTable = header.lineTable.compress(keepColumns);
+			}
+		}
+	}
+
+	/**
+	 * Hit and miss counts of the address caches, null when they are off.
+	 */
+	public String getAddressCacheStatistics() {
+		if (compileUnitCache == null) {
+			return null;
+		}
+		return "compile unit: " + compileUnitCache + "\nsubprogram: " + subProgramCache + "\nline: " + lineCache + "\ninline frames: " + inlineFramesCache + "\nparameters: " + parametersCache;
+	}
 
 	public CompileUnit getCompileUnit(long address) {
-		//		if (hashCode != compileUnits.hashCode()) {
-		//			ht = new Hashtable<Long, CompileUnit>();
-		//			hashCode = compileUnits.hashCode();
-		//		}
-		//		if (ht.containsKey(address)) {
-		//			return ht.get(address);
-		//		}
+		AddressCache<CompileUnit> cache = compileUnitCache;
+		if (cache != null) {
+			return cache.get(address);
+		}
+		return compileUnitRanges.find(address);
+	}
+
+	/**
+	 * The unit starting at the given .debug_info offset, or null.
+	 */
+	public CompileUnit getCompileUnitByOffset(int offset) {
+		CompileUnit cu = getCompileUnitContaining(offset);
+		if (cu == null || cu.offset != offset) {
+			return null;
+		}
+		return cu;
+	}
+
+	/**
+	 * The unit whose bytes include the given .debug_info offset, or null.
+	 * Units are kept in section order so this is a binary search.
+	 */
+	public CompileUnit getCompileUnitContaining(int offset) {
+		int x = Arrays.binarySearch(compileUnitOffsets, offset);
+		if (x < 0) {
+			// the unit starting before the offset
+			x = -x - 2;
+		}
+		if (x < 0) {
+			return null;
+		}
+		CompileUnit cu = compileUnits.get(x);
+		if (offset >= cu.getEnd()) {
+			return null;
+		}
+		return cu;
+	}
+
+	/**
+	 * The entry at any .debug_info offset, in whichever unit holds it, e.g.
+	 * the target of a DW_FORM_ref_addr. Null if no entry starts there.
+	 */
+	public DebugInfoEntry getDebugInfoEntryByOffset(int offset) {
+		CompileUnit cu = getCompileUnitContaining(offset);
+		if (cu == null) {
+			return null;
+		}
+		DebugInfoTable table = cu.getDebugInfoTable();
+		if (table == null) {
+			return null;
+		}
+		return table.get(table.indexOf(offset));
+	}
+
+	/**
+	 * Indexes the address ranges of all units from .debug_aranges. Units
+	 * without a set there use DW_AT_ranges or low/high pc of their root, so
+	 * no entries have to be decoded.
+	 */
+	private AddressRangeIndex<CompileUnit> buildCompileUnitRanges(boolean relocatable) {
+		AddressRangeIndex<CompileUnit> index = new AddressRangeIndex<CompileUnit>();
+		HashSet<CompileUnit> covered = new HashSet<CompileUnit>();
+		Elf32_Shdr arangesSection = elfImage.getSectionHeader(".debug_aranges");
+		if (arangesSection != null) {
+			ByteBuffer aranges = elfImage.getSection(arangesSection, relocatable);
+			if (calculationRelocation(arangesSection, aranges) > 0) {
+				// unrelocated sets would give wrong addresses, the units' own ranges are used instead
+				aranges.position(aranges.limit());
+			}
+			while (aranges.remaining() > 4) {
+				int setStart = aranges.position();
+				long length = aranges.getInt() & 0xffffffffL;
+				int setOffsetSize = 4;
+				if (length == 0xffffffffL) {
+					length = aranges.getLong();
+					setOffsetSize = 8;
+				}
+				int setEnd = (int) (aranges.position() + length);
+				aranges.getShort();
+				CompileUnit cu = getCompileUnitByOffset((int) byte_get(aranges, setOffsetSize));
+				int setAddressSize = aranges.get();
+				aranges.get();
+				// tuples are aligned to twice the address size from the start of the set
+				int tupleSize = setAddressSize * 2;
+				int padding = (aranges.position() - setStart) % tupleSize;
+				if (padding != 0) {
+					aranges.position(aranges.position() + tupleSize - padding);
+				}
+				while (aranges.position() + tupleSize <= setEnd) {
+					long address = byte_get(aranges, setAddressSize);
+					long rangeLength = byte_get(aranges, setAddressSize);
+					if (address == 0 && rangeLength == 0) {
+						break;
+					}
+					if (cu != null) {
+						index.add(address, address + rangeLength, cu);
+						covered.add(cu);
+					}
+				}
+				aranges.position(setEnd);
+			}
+		}
+
+		Elf32_Shdr rangesSection = elfImage.getSectionHeader(".debug_ranges");
+		if (rangesSection != null) {
+			debug_ranges_bytes = elfImage.getSection(rangesSection, relocatable);
+			if (calculationRelocation(rangesSection, debug_ranges_bytes) > 0) {
+				debug_ranges_bytes = null;
+			}
+		}
 		for (CompileUnit cu : compileUnits) {
-			if (address >= cu.DW_AT_high_pc && address <= (cu.DW_AT_high_pc + cu.DW_AT_low_pc - 1)) {
-				//				ht.put(address, cu);
-				return cu;
+			if (covered.contains(cu)) {
+				continue;
+			}
+			if (cu.DW_AT_ranges == -1) {
+				index.add(cu.DW_AT_low_pc, cu.DW_AT_low_pc + cu.DW_AT_high_pc, cu);
+				continue;
+			}
+			long ranges[] = getRanges(cu, cu.DW_AT_ranges);
+			for (int x = 0; x < ranges.length; x += 2) {
+				index.add(ranges[x], ranges[x + 1], cu);
 			}
 		}
-		return null;
+		index.build();
+		return index;
 	}
 
+	/**
+	 * Reads the .debug_ranges list at the given offset as begin, end pairs.
+	 * Entries are relative to a base address, initially the unit's low pc.
+	 */
+	public long[] getRanges(CompileUnit cu, long offset) {
+		if (debug_ranges_bytes == null || offset < 0 || offset >= debug_ranges_bytes.limit()) {
+			return new long[0];
+		}
+		ByteBuffer ranges = debug_ranges_bytes.duplicate().order(ByteOrder.nativeOrder());
+		ranges.position((int) offset);
+		long pairs[] = new long[8];
+		int size = 0;
+		long baseAddress = cu.DW_AT_low_pc;
+		long maxAddress = cu.addr_size == 8 ? -1 : 0xffffffffL;
+		while (ranges.remaining() >= cu.addr_size * 2) {
+			long begin = byte_get(ranges, cu.addr_size);
+			long end = byte_get(ranges, cu.addr_size);
+			if (begin == 0 && end == 0) {
+				break;
+			}
+			if (begin == maxAddress) {
+				baseAddress = end;
+				continue;
+			}
+			if (size == pairs.length) {
+				pairs = Arrays.copyOf(pairs, size * 2);
+			}
+			pairs[size++] = baseAddress + begin;
+			pairs[size++] = baseAddress + end;
+		}
+		return Arrays.copyOf(pairs, size);
+	}
+
+	/**
+	 * The subprograms, lexical blocks and inlined subroutines containing an
+	 * address, innermost first. Empty if no unit covers the address.
+	 */
+	public Vector<DebugInfoEntry> getScopes(long address) {
+		CompileUnit cu = getCompileUnit(address);
+		if (cu == null) {
+			return new Vector<DebugInfoEntry>();
+		}
+		return cu.getScopes(address);
+	}
+
+	/**
+	 * The top level entries of the unit whose DW_AT_low_pc is the address,
+	 * null if no unit starts there.
+	 */
 	public Vector<DebugInfoEntry> getSubProgram(long address) {
-		for (CompileUnit compileUnit : compileUnits) {
-			if (compileUnit.DW_AT_low_pc == address) {
-				return compileUnit.debugInfoEntries;
+		CompileUnit cu = getCompileUnit(address);
+		if (cu == null || cu.DW_AT_low_pc != address) {
+			// units whose ranges do not cover their own low_pc
+			cu = null;
+			for (CompileUnit compileUnit : compileUnits) {
+				if (compileUnit.DW_AT_low_pc == address) {
+					cu = compileUnit;
+					break;
+				}
+			}
+		}
+		return cu == null ? null : cu.getDebugInfoEntries();
+	}
+
+	/**
+	 * The innermost DW_TAG_subprogram containing an address, code inlined
+	 * into it counts as part of it. Null if there is none.
+	 */
+	public DebugInfoEntry getContainingSubProgram(long address) {
+		AddressCache<DebugInfoEntry> cache = subProgramCache;
+		if (cache != null) {
+			return cache.get(address);
+		}
+		return findSubProgram(address);
+	}
+
+	private DebugInfoEntry findSubProgram(long address) {
+		CompileUnit cu = compileUnitRanges.find(address);
+		if (cu == null) {
+			return null;
+		}
+		for (DebugInfoEntry scope : cu.getScopes(address)) {
+			if (scope.tag == Definition.DW_TAG_subprogram) {
+				return scope;
 			}
 		}
 		return null;
 	}
 
-	public CompileUnit getCompileUnitByFunction(String functionName) {
-		for (CompileUnit compileUnit : compileUnits) {
-			for (DebugInfoEntry e : compileUnit.getDebugInfoEntryByName("DW_TAG_compile_unit")) {
-				for (DebugInfoEntry e2 : e.getDebugInfoEntryByName("DW_TAG_subprogram")) {
-					if (e2.debugInfoAbbrevEntries.get("DW_AT_name") != null && e2.debugInfoAbbrevEntries.get("DW_AT_name").value.equals(functionName)) {
-						return compileUnit;
+	/**
+	 * The line table row covering an address, null if no unit or row covers
+	 * it.
+	 */
+	public DwarfLine getLine(long address) {
+		AddressCache<DwarfLine> cache = lineCache;
+		if (cache != null) {
+			return cache.get(address);
+		}
+		return findLine(address);
+	}
+
+	private DwarfLine findLine(long address) {
+		CompileUnit cu = compileUnitRanges.find(address);
+		DwarfDebugLineHeader header = cu == null ? null : cu.getDwarfDebugLineHeader();
+		if (header == null) {
+			return null;
+		}
+		// line addresses are biased by memoryOffset, entry addresses are not
+		return header.getLineByAddress(address + memoryOffset);
+	}
+
+	/**
+	 * The inlined call stack at an address, innermost first. The first frame
+	 * has the line of the address itself, every outer frame the line the
+	 * frame before it was inlined at. Empty if no subprogram covers the
+	 * address. Unmodifiable when it comes from the address cache.
+	 */
+	public List<DwarfInlineFrame> getInlineFrames(long address) {
+		AddressCache<List<DwarfInlineFrame>> cache = inlineFramesCache;
+		if (cache != null) {
+			return cache.get(address);
+		}
+		return findInlineFrames(address);
+	}
+
+	private Vector<DwarfInlineFrame> findInlineFrames(long address) {
+		CompileUnit cu = compileUnitRanges.find(address);
+		if (cu == null) {
+			return new Vector<DwarfInlineFrame>();
+		}
+		DwarfDebugLineHeader header = cu.getDwarfDebugLineHeader();
+		// line addresses are biased by memoryOffset, entry addresses are not
+		DwarfLine line = header == null ? null : header.getLineByAddress(address + memoryOffset);
+		return getInlineFrames(cu, header, line, cu.getScopeIndex().find(address));
+	}
+
+	/**
+	 * The inlined call stacks of many addresses, in the order of the
+	 * addresses, each in its own Vector. The addresses are sorted and swept
+	 * once over the unit, line and scope tables, each lookup continuing from
+	 * the one before; equal addresses are looked up once. With a
+	 * forkJoinPool the sorted addresses are swept in chunks in parallel.
+	 */
+	@SuppressWarnings({ "unchecked", "rawtypes" })
+	public Vector<DwarfInlineFrame>[] getInlineFrames(long addresses[]) {
+		// sign bit flipped, signed order is then unsigned order
+		long sorted[] = new long[addresses.length];
+		for (int x = 0; x < addresses.length; x++) {
+			sorted[x] = addresses[x] ^ Long.MIN_VALUE;
+		}
+		Arrays.sort(sorted);
+		int size = 0;
+		for (int x = 0; x < sorted.length; x++) {
+			if (size == 0 || sorted[size - 1] != sorted[x]) {
+				sorted[size++] = sorted[x];
+			}
+		}
+
+		final long keys[] = sorted;
+		final Vector<DwarfInlineFrame> frames[] = new Vector[size];
+		int chunkSize = forkJoinPool == null ? size : Math.max(1, Math.max(symbolizeChunkSize, size / (forkJoinPool.getParallelism() * 4)));
+		if (chunkSize >= size) {
+			sweepInlineFrames(keys, 0, size, frames);
+		} else {
+			Vector<ForkJoinTask<Integer>> tasks = new Vector<ForkJoinTask<Integer>>();
+			for (int start = 0; start < size; start += chunkSize) {
+				final int from = start;
+				final int to = Math.min(size, start + chunkSize);
+				tasks.add(forkJoinPool.submit(new Callable<Integer>() {
+					@Override
+					public Integer call() {
+						sweepInlineFrames(keys, from, to, frames);
+						return 0;
 					}
+				}));
+			}
+			for (ForkJoinTask<Integer> task : tasks) {
+				task.join();
+			}
+		}
+
+		Vector<DwarfInlineFrame> r[] = new Vector[addresses.length];
+		boolean used[] = new boolean[size];
+		for (int x = 0; x < addresses.length; x++) {
+			int y = Arrays.binarySearch(keys, 0, size, addresses[x] ^ Long.MIN_VALUE);
+			// later occurrences of an address get a copy, callers may change their vector
+			r[x] = used[y] ? new Vector<DwarfInlineFrame>(frames[y]) : frames[y];
+			used[y] = true;
+		}
+		return r;
+	}
+
+	// keys are flipped, ascending and distinct
+	private void sweepInlineFrames(long keys[], int from, int to, Vector<DwarfInlineFrame> frames[]) {
+		int unitSlot = -1;
+		CompileUnit cu = null;
+		DwarfDebugLineHeader header = null;
+		// read once per unit, linePosition is a row of this table
+		LineTable lineTable = null;
+		ScopeIndex scopeIndex = null;
+		int linePosition = -1;
+		int scopePosition = -1;
+		for (int x = from; x < to; x++) {
+			long address = keys[x] ^ Long.MIN_VALUE;
+			if (!compileUnitRanges.isSlotOf(unitSlot, address)) {
+				int slot = compileUnitRanges.findSlot(address);
+				if (slot != unitSlot) {
+					unitSlot = slot;
+					cu = slot == -1 ? null : compileUnitRanges.get(slot);
+					header = cu == null ? null : cu.getDwarfDebugLineHeader();
+					lineTable = header == null ? null : header.lineTable;
+					scopeIndex = cu == null ? null : cu.getScopeIndex();
+					linePosition = -1;
+					scopePosition = -1;
+				}
+			}
+			if (cu == null) {
+				frames[x] = new Vector<DwarfInlineFrame>();
+				continue;
+			}
+			DwarfLine line = null;
+			if (lineTable != null) {
+				linePosition = lineTable.seek(address + memoryOffset, linePosition);
+				if (linePosition != -1 && !lineTable.isEndSequence(linePosition)) {
+					line = lineTable.getDwarfLine(linePosition);
+				}
+			}
+			scopePosition = scopeIndex.seek(address, scopePosition);
+			frames[x] = getInlineFrames(cu, header, line, scopeIndex.getEntry(scopePosition, address));
+		}
+	}
+
+	private Vector<DwarfInlineFrame> getInlineFrames(CompileUnit cu, DwarfDebugLineHeader header, DwarfLine line, int index) {
+		return new Vector<DwarfInlineFrame>(Arrays.asList(buildInlineFrames(cu, header, line, index)));
+	}
+
+	// walks out from the innermost scope, a table index of cu or -1
+	static DwarfInlineFrame[] buildInlineFrames(CompileUnit cu, DwarfDebugLineHeader header, DwarfLine line, int index) {
+		DwarfInlineFrame frames[] = new DwarfInlineFrame[4];
+		int size = 0;
+		String filename = null;
+		int line_num = 0;
+		if (line != null) {
+			filename = header.getFilename(line.file_num);
+			line_num = line.line_num;
+		}
+		DebugInfoTable table = cu.getDebugInfoTable();
+		for (; index != -1; index = table.parents[index]) {
+			int tag = table.getAbbrev(index).tag;
+			if (tag != Definition.DW_TAG_subprogram && tag != Definition.DW_TAG_inlined_subroutine) {
+				continue;
+			}
+			DebugInfoEntry scope = table.get(index);
+			DwarfInlineFrame frame = new DwarfInlineFrame(scope, DwarfLib.getFunctionName(scope), filename, line_num);
+			if (size == frames.length) {
+				frames = Arrays.copyOf(frames, size * 2);
+			}
+			frames[size++] = frame;
+			if (!frame.inlined) {
+				break;
+			}
+			// the next outer frame is at the call site of this one
+			// 0 is no file and no line
+			filename = header == null ? null : header.getFilename(scope.getUnsigned(Definition.DW_AT_call_file, 0));
+			line_num = (int) scope.getUnsigned(Definition.DW_AT_call_line, 0);
+			frame.call_filename = filename;
+			frame.call_line = line_num;
+		}
+		return Arrays.copyOf(frames, size);
+	}
+
+	/**
+	 * Decodes everything still pending, lazily loaded units, line programs,
+	 * scope and name indexes and .debug_loc, then returns an immutable view
+	 * for concurrent queries.
+	 */
+	public DwarfSnapshot getSnapshot() {
+		if (forkJoinPool == null || compileUnits.size() < 2) {
+			for (CompileUnit cu : compileUnits) {
+				loadCompileUnit(cu);
+			}
+		} else {
+			Vector<ForkJoinTask<Integer>> tasks = new Vector<ForkJoinTask<Integer>>();
+			for (final CompileUnit cu : compileUnits) {
+				tasks.add(forkJoinPool.submit(new Callable<Integer>() {
+					@Override
+					public Integer call() {
+						loadCompileUnit(cu);
+						return 0;
+					}
+				}));
+			}
+			for (ForkJoinTask<Integer> task : tasks) {
+				task.join();
+			}
+		}
+		getFunctionIndex();
+		getSourceLineIndex();
+		getDebugLocEntries();
+		return new DwarfSnapshot(this, memoryOffset);
+	}
+
+	private void loadCompileUnit(CompileUnit cu) {
+		cu.getDebugInfoTable();
+		cu.getDwarfDebugLineHeader();
+		cu.getScopeIndex();
+	}
+
+	/**
+	 * The function name index, built on the first call. This decodes every
+	 * unit that is not decoded yet.
+	 */
+	public FunctionIndex getFunctionIndex() {
+		FunctionIndex index = functionIndex;
+		if (index == null) {
+			synchronized (this) {
+				index = functionIndex;
+				if (index == null) {
+					index = FunctionIndex.build(this);
+					functionIndex = index;
+				}
+			}
+		}
+		return index;
+	}
+
+	/**
+	 * The source line index, made on the first call. This reads the file
+	 * table of every line program, rows are decoded per file on lookup.
+	 */
+	public SourceLineIndex getSourceLineIndex() {
+		SourceLineIndex index = sourceLineIndex;
+		if (index == null) {
+			synchronized (this) {
+				index = sourceLineIndex;
+				if (index == null) {
+					index = SourceLineIndex.build(this);
+					sourceLineIndex = index;
+				}
+			}
+		}
+		return index;
+	}
+
+	/**
+	 * The addresses to stop at for file:line, see
+	 * SourceLineIndex.getAddresses().
+	 */
+	public long[] getAddresses(String file, int line) {
+		return getSourceLineIndex().getAddresses(file, line);
+	}
+
+	/**
+	 * Subprograms with code and the given name or linkage name.
+	 */
+	public Vector<DebugInfoEntry> getSubProgramsByName(String name) {
+		return getFunctionIndex().get(name);
+	}
+
+	/**
+	 * Subprograms with code whose name or linkage name starts with prefix,
+	 * sorted by name.
+	 */
+	public Vector<DebugInfoEntry> getSubProgramsByPrefix(String prefix) {
+		return getFunctionIndex().getByPrefix(prefix);
+	}
+
+	/**
+	 * The unit of the first subprogram with code named functionName. Before
+	 * the function index is built the units are scanned and names compared
+	 * in the string sections, so a single lookup decodes no strings.
+	 */
+	public CompileUnit getCompileUnitByFunction(String functionName) {
+		if (functionIndex != null) {
+			Vector<DebugInfoEntry> subPrograms = getSubProgramsByName(functionName);
+			if (subPrograms.isEmpty()) {
+				return null;
+			}
+			return subPrograms.get(0).table.compileUnit;
+		}
+		for (CompileUnit cu : compileUnits) {
+			DebugInfoTable table = cu.getDebugInfoTable();
+			if (table == null) {
+				continue;
+			}
+			for (int x = 0; x < table.size; x++) {
+				if (table.getAbbrev(x).tag != Definition.DW_TAG_subprogram) {
+					continue;
+				}
+				DebugInfoEntry entry = table.get(x);
+				if (FunctionIndex.hasCode(entry) && DwarfLib.isFunctionNamed(entry, functionName)) {
+					return cu;
 				}
 			}
 		}
@@ -1,5 +1,6 @@
 package com.peterdwarf.dwarf;
 
+import java.util.Collections;
 import java.util.Vector;
 
 public class DwarfDebugLineHeader {
@@ -16,7 +17,67 @@ public class DwarfDebugLineHeader {
 	public byte[] standard_opcode_lengths;
 	public Vector<String> dirnames = new Vector<String>();
 	public Vector<DwarfHeaderFilename> filenames = new Vector<DwarfHeaderFilename>();
-	public Vector<DwarfLine> lines = new Vector<DwarfLine>();
+	// offset just past the program in .debug_line
+	int end;
+	// the rows of the program, sorted by address; replaced as a whole by a
+	// compressed copy, so read it once per lookup
+	public volatile LineTable lineTable = new LineTable();
+	private volatile Vector<DwarfLine> lines;
+
+	/**
+	 * The rows as DwarfLine objects sorted by file and line, made on the
+	 * first call.
+	 */
+	public Vector<DwarfLine> getLines() {
+		Vector<DwarfLine> r = lines;
+		if (r == null) {
+			synchronized (this) {
+				r = lines;
+				if (r == null) {
+					LineTable table = lineTable;
+					r = new Vector<DwarfLine>(table.size);
+					for (int x = 0; x < table.size; x++) {
+						r.add(table.getDwarfLine(x));
+					}
+					Collections.sort(r);
+					lines = r;
+				}
+			}
+		}
+		return r;
+	}
+
+	/**
+	 * The row covering an address, null if no sequence covers it.
+	 */
+	public DwarfLine getLineByAddress(long address) {
+		LineTable table = lineTable;
+		int x = table.addressToLine(address);
+		return x == -1 ? null : table.getDwarfLine(x);
+	}
+
+	/**
+	 * Path of a file number as used by rows and DW_AT_call_file, null if the
+	 * number is out of range.
+	 */
+	public String getFilename(long fileNum) {
+		if (fileNum < 1 || fileNum > filenames.size()) {
+			return null;
+		}
+		return filenames.get((int) fileNum - 1).getPath();
+	}
+
+	/**
+	 * SourcePathTable id of a file number, -1 if the number is out of range.
+	 * Rows of different units are in the same file exactly when the ids of
+	 * their file numbers are equal.
+	 */
+	public int getFileId(long fileNum) {
+		if (fileNum < 1 || fileNum > filenames.size()) {
+			return -1;
+		}
+		return filenames.get((int) fileNum - 1).pathId;
+	}
 
 	public String toString() {
 		//		System.out.printf("Offset:                      0x%x\n", offset);
@@ -4,13 +4,36 @@ import java.io.File;
 
 public class DwarfHeaderFilename implements Comparable<DwarfHeaderFilename> {
 	public int entryNo;
-	public File file;
+	// id in pathTable, equal ids are the same file in every unit sharing the table
+	public int pathId;
+	public SourcePathTable pathTable;
 	public long dir;
 	public long time;
 	public long len;
+	private volatile String path;
+
+	/**
+	 * Absolute path of the file, resolved on the first call.
+	 */
+	public String getPath() {
+		String r = path;
+		if (r == null) {
+			r = pathTable.getPath(pathId);
+			path = r;
+		}
+		return r;
+	}
+
+	public File getFile() {
+		return new File(getPath());
+	}
+
+	public String getName() {
+		return pathTable.getName(pathId);
+	}
 
 	@Override
 	public int compareTo(DwarfHeaderFilename o) {
-		return file.getName().compareToIgnoreCase(o.file.getName());
+		return new File(getName()).getName().compareToIgnoreCase(new File(o.getName()).getName());
 	}
 }
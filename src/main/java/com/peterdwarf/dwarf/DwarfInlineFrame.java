@@ -0,0 +1,30 @@
+package com.peterdwarf.dwarf;
+
+/**
+ * One level of the inlined call stack of an address. The innermost frame is
+ * the code at the address, every outer frame is the function the frame
+ * before it was inlined into.
+ */
+public class DwarfInlineFrame {
+	// the DW_TAG_subprogram or DW_TAG_inlined_subroutine of this level
+	public DebugInfoEntry debugInfoEntry;
+	public String functionName;
+	public String filename;
+	public int line_num;
+	public boolean inlined;
+	// where an inlined frame was called from in the next outer frame
+	public String call_filename;
+	public int call_line;
+
+	public DwarfInlineFrame(DebugInfoEntry debugInfoEntry, String functionName, String filename, int line_num) {
+		this.debugInfoEntry = debugInfoEntry;
+		this.functionName = functionName;
+		this.filename = filename;
+		this.line_num = line_num;
+		this.inlined = debugInfoEntry.tag == Definition.DW_TAG_inlined_subroutine;
+	}
+
+	public String toString() {
+		return functionName + " at " + filename + ":" + line_num + (inlined ? " (inlined)" : "");
+	}
+}
@@ -7,11 +7,14 @@ import java.io.FileOutputStream;
 import java.io.IOException;
 import java.io.InputStream;
 import java.io.RandomAccessFile;
-import java.math.BigInteger;
 import java.nio.ByteBuffer;
 import java.nio.ByteOrder;
 import java.util.Hashtable;
+import java.util.List;
+import java.util.Map;
 import java.util.Vector;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ForkJoinPool;
 
 import com.peterar.AR;
 import com.peterar.PeterAR;
@@ -28,100 +31,132 @@ public class DwarfLib {
 	}
 
 	public static Hashtable<String, DwarfParameter> getParameters(Vector<Dwarf> dwarfVector, long address) {
-		Hashtable<String, DwarfParameter> ht = new Hashtable<String, DwarfParameter>();
 		for (Dwarf dwarf : dwarfVector) {
-			for (CompileUnit cu : dwarf.compileUnits) {
-				if (cu.DW_AT_low_pc <= address && address <= (cu.DW_AT_low_pc + cu.DW_AT_high_pc - 1)) {
-					Vector<DebugInfoEntry> subprogramDebugInfoEntries = cu.debugInfoEntries.get(0).getDebugInfoEntryByName("DW_TAG_subprogram");
-					for (DebugInfoEntry subprogramDebugInfoEntry : subprogramDebugInfoEntries) {
-						if (subprogramDebugInfoEntry.debugInfoAbbrevEntries.get("DW_AT_low_pc") == null) {
-							continue;
+			AddressCache<Map<String, DwarfParameter>> cache = dwarf.parametersCache;
+			if (cache != null) {
+				// the cached table is shared, every caller gets its own copy
+				Map<String, DwarfParameter> parameters = cache.get(address);
+				if (parameters != null) {
+					return new Hashtable<String, DwarfParameter>(parameters);
+				}
+				continue;
+			}
+			Hashtable<String, DwarfParameter> ht = getParameters(dwarf, address);
+			if (ht != null) {
+				return ht;
+			}
+		}
+		return null;
+	}
+
+	/**
+	 * The parameters of the subprogram starting at the address in one file,
+	 * null if it has none there.
+	 */
+	static Hashtable<String, DwarfParameter> getParameters(Dwarf dwarf, long address) {
+		Hashtable<String, DwarfParameter> ht = new Hashtable<String, DwarfParameter>();
+		CompileUnit cu = dwarf.getCompileUnit(address);
+		if (cu == null) {
+			return null;
+		}
+		Vector<DebugInfoEntry> subprogramDebugInfoEntries = cu.getDebugInfoEntries().get(0).getDebugInfoEntryByTag(Definition.DW_TAG_subprogram);
+		for (DebugInfoEntry subprogramDebugInfoEntry : subprogramDebugInfoEntries) {
+			if (!subprogramDebugInfoEntry.hasAttribute(Definition.DW_AT_low_pc)) {
+				continue;
+			}
+			long subProgramAddress = subprogramDebugInfoEntry.getUnsigned(Definition.DW_AT_low_pc);
+			if (!subprogramDebugInfoEntry.hasAttribute(Definition.DW_AT_name)) {
+				// not every DW_TAG_subprogram has a DW_AT_name
+				continue;
+			}
+			//System.out.println(subprogramDebugInfoEntry.debugInfoAbbrevEntries.get("DW_AT_name").value);
+			if (address == subProgramAddress) {
+				//CIE
+				long cfsBaseOffset = -1;
+				for (int x = 0; x < dwarf.ehFrames.get(0).fieDetailsKeys.size(); x++) {
+					if (dwarf.ehFrames.get(0).fieDetailsKeys.get(x).equals("DW_CFA_def_cfa")) {
+						cfsBaseOffset = (long) dwarf.ehFrames.get(0).fieDetails.get(x)[2];
+						break;
+					}
+				}
+				//CIE end
+
+				Vector<DebugInfoEntry> parameters = subprogramDebugInfoEntry.getDebugInfoEntryByTag(Definition.DW_TAG_formal_parameter);
+				for (DebugInfoEntry parameterDebugInfoEntry : parameters) {
+					String name = parameterDebugInfoEntry.getString(Definition.DW_AT_name);
+					if (name == null) {
+						continue;
+					}
+					//								System.out.println(name);
+					int locationForm = parameterDebugInfoEntry.getForm(Definition.DW_AT_location);
+					String registerName = null;
+					long offset = 0;
+					if (locationForm == Definition.DW_FORM_exprloc) {
+						byte values[] = parameterDebugInfoEntry.getBlock(Definition.DW_AT_location);
+						registerName = Definition.getOPName(values[0] & 0xff);
+
+						if (values.length > 1) {
+							offset = values[1] & 0xff;
 						}
-						long subProgramAddress = (long) subprogramDebugInfoEntry.debugInfoAbbrevEntries.get("DW_AT_low_pc").value;
-						if (subprogramDebugInfoEntry.debugInfoAbbrevEntries.get("DW_AT_name") == null) {
-							// not every DW_TAG_subprogram has a DW_AT_name
-							continue;
+					} else if (locationForm == Definition.DW_FORM_sec_offset) {
+						DebugLocEntry debugLocEntry = DwarfLib.getDebugLocEntry(dwarf, (int) parameterDebugInfoEntry.getUnsigned(Definition.DW_AT_location));
+						registerName = Definition.getOPName(debugLocEntry.unsignedBlocks[0]);
+						//									System.out.println("debugLocEntry.blocks[0]=" + debugLocEntry.unsignedBlocks[0]);
+						//									System.out.println("debugLocEntry=" + debugLocEntry);
+						//									System.out.println("registerName=" + registerName);
+						if (registerName == null) {
+							System.exit(1);
 						}
-						//System.out.println(subprogramDebugInfoEntry.debugInfoAbbrevEntries.get("DW_AT_name").value);
-						if (address == subProgramAddress) {
-							//CIE
-							long cfsBaseOffset = -1;
-							for (int x = 0; x < dwarf.ehFrames.get(0).fieDetailsKeys.size(); x++) {
-								if (dwarf.ehFrames.get(0).fieDetailsKeys.get(x).equals("DW_CFA_def_cfa")) {
-									cfsBaseOffset = (long) dwarf.ehFrames.get(0).fieDetails.get(x)[2];
-									break;
-								}
-							}
-							//CIE end
-
-							Vector<DebugInfoEntry> parameters = subprogramDebugInfoEntry.getDebugInfoEntryByName("DW_TAG_formal_parameter");
-							for (DebugInfoEntry parameterDebugInfoEntry : parameters) {
-								if (parameterDebugInfoEntry.debugInfoAbbrevEntries.get("DW_AT_name") == null) {
-									continue;
-								}
-								String name = (String) parameterDebugInfoEntry.debugInfoAbbrevEntries.get("DW_AT_name").value;
-								//								System.out.println(name);
-								DebugInfoAbbrevEntry locationdebugInfoAbbrevEntry = parameterDebugInfoEntry.debugInfoAbbrevEntries.get("DW_AT_location");
-								String registerName = null;
-								long offset = 0;
-								if (locationdebugInfoAbbrevEntry.form == Definition.DW_FORM_exprloc) {
-									String values[] = locationdebugInfoAbbrevEntry.value.toString().split(",");
-									registerName = Definition.getOPName(CommonLib.string2int(values[0]));
-
-									//								System.out.println(parameterDebugInfoEntry.debugInfoAbbrevEntries.get("DW_AT_name").value);
-									//								System.out.println(parameterDebugInfoEntry.debugInfoAbbrevEntries.get("DW_AT_location").value);
-									//								System.out.println("values[0]=" + values[0]);
-
-									if (values.length > 1) {
-										offset = Long.parseLong(values[1]);
-									}
-								} else if (locationdebugInfoAbbrevEntry.form == Definition.DW_FORM_sec_offset) {
-									String values[] = locationdebugInfoAbbrevEntry.value.toString().split(",");
-									DebugLocEntry debugLocEntry = DwarfLib.getDebugLocEntry(dwarf, CommonLib.string2int(values[0]));
-									registerName = Definition.getOPName(debugLocEntry.unsignedBlocks[0]);
-									//									System.out.println("debugLocEntry.blocks[0]=" + debugLocEntry.unsignedBlocks[0]);
-									//									System.out.println("debugLocEntry=" + debugLocEntry);
-									//									System.out.println("registerName=" + registerName);
-									if (registerName == null) {
-										System.exit(1);
-									}
-									if (registerName.equals("DW_OP_fbreg")) {
-										offset = debugLocEntry.unsignedBlocks[1];
-									}
-								} else {
-									System.err.println("Not support form=" + locationdebugInfoAbbrevEntry.form);
-								}
-								if (registerName == null) {
-									System.exit(1);
-								}
-								if (registerName.equals("DW_OP_fbreg")) {
-									//									System.out.println(name + ", " + (cfsBaseOffset + offset));
-									offset = cfsBaseOffset + offset;
-								} else {
-									//									System.out.println("not support register=" + registerName);
-									//System.exit(500);
-								}
-								ht.put(name,
-										new DwarfParameter(name, registerName,
-												DwarfLib.getParameterType(cu, CommonLib.string2int("0x" + parameterDebugInfoEntry.debugInfoAbbrevEntries.get("DW_AT_type").value)),
-												DwarfLib.getParameterSize(cu, CommonLib.string2int("0x" + parameterDebugInfoEntry.debugInfoAbbrevEntries.get("DW_AT_type").value)),
-												offset));
-							}
-
-							return ht;
+						if (registerName.equals("DW_OP_fbreg")) {
+							offset = debugLocEntry.unsignedBlocks[1];
 						}
+					} else {
+						System.err.println("Not support form=" + locationForm);
 					}
+					if (registerName == null) {
+						System.exit(1);
+					}
+					if (registerName.equals("DW_OP_fbreg")) {
+						//									System.out.println(name + ", " + (cfsBaseOffset + offset));
+						offset = cfsBaseOffset + offset;
+					} else {
+						//									System.out.println("not support register=" + registerName);
+						//System.exit(500);
+					}
+					DebugInfoEntry type = parameterDebugInfoEntry.getReferencedEntry(Definition.DW_AT_type);
+					ht.put(name, new DwarfParameter(name, registerName, DwarfLib.getParameterType(type), DwarfLib.getParameterSize(type), offset));
 				}
+
+				return ht;
 			}
 		}
 		return null;
 	}
 
 	public static Vector<Dwarf> init(File file, long memoryOffset) {
+		return init(file, memoryOffset, null);
+	}
+
+	/**
+	 * Like init(File, long) but compile units are decoded in parallel on the
+	 * given pool.
+	 */
+	public static Vector<Dwarf> init(File file, long memoryOffset, ForkJoinPool forkJoinPool) {
+		return init(file, memoryOffset, forkJoinPool, false);
+	}
+
+	/**
+	 * With lazyLoading only the unit headers and root entries are read here,
+	 * the rest of a unit is decoded the first time it is used.
+	 */
+	public static Vector<Dwarf> init(File file, long memoryOffset, ForkJoinPool forkJoinPool, boolean lazyLoading) {
 		Vector<Dwarf> dwarfVector = new Vector<Dwarf>();
 		if (isArchive(file)) {
 			PeterAR peterAR = new PeterAR();
 			Vector<AR> data = peterAR.init(file);
+			// members mostly include the same headers and have the same abbrev tables
+			SourcePathTable sourcePaths = new SourcePathTable();
+			ConcurrentHashMap<ByteBuffer, AbbrevTable> abbrevTables = new ConcurrentHashMap<ByteBuffer, AbbrevTable>();
 			if (data != null) {
 				for (AR ar : data) {
 					try {
@@ -130,8 +165,20 @@ public class DwarfLib {
 						out.write(ar.bytes);
 						out.close();
 						Dwarf dwarf = new Dwarf();
+						dwarf.forkJoinPool = forkJoinPool;
+						dwarf.lazyLoading = lazyLoading;
+						dwarf.sourcePaths = sourcePaths;
+						dwarf.sharedAbbrevTables = abbrevTables;
 						int r = dwarf.initElf(temp, ar.filename, memoryOffset);
-						temp.delete();
+						// the temp file is mapped, some platforms refuse to delete it until exit
+						if (!temp.delete()) {
+							temp.deleteOnExit();
+						}
+						if (r == 20) {
+							// an unsupported dwarf version in one member, the others are still usable
+							System.err.println(ar.filename + ": skipped, error code " + r);
+							continue;
+						}
 						if (r > 0 && r != 24) {
 							return null;
 						}
@@ -143,6 +190,8 @@ public class DwarfLib {
 			}
 		} else {
 			Dwarf dwarf = new Dwarf();
+			dwarf.forkJoinPool = forkJoinPool;
+			dwarf.lazyLoading = lazyLoading;
 			int r = dwarf.initElf(file, null, memoryOffset);
 			if (r > 0) {
 				System.err.println("Error code : " + r);
@@ -201,15 +250,11 @@ public class DwarfLib {
 		}
 	}
 
-	public static BigInteger readU64Bits(RandomAccessFile f) throws IOException {
-		if (WORDS_BIGENDIAN) {
-			System.err.println("unsupport WORDS_BIGENDIAN");
-			return BigInteger.valueOf(-1L);
-		} else {
-			byte b[] = new byte[8];
-			f.readFully(b);
-			return new BigInteger(b);
-		}
+	public static long readU64(RandomAccessFile f) throws IOException {
+		if (WORDS_BIGENDIAN)
+			return f.readLong();
+		else
+			return (readUWord(f) | (readUWord(f) << 32));
 	}
 
 	public static void printBytes(byte[] bytes) {
@@ -245,16 +290,7 @@ public class DwarfLib {
 	}
 
 	public static String getString(ByteBuffer buf) {
-		int pos = buf.position();
-		int len = 0;
-		while (buf.get() != 0) {
-			len++;
-		}
-		byte[] bytes = new byte[len];
-		buf.position(pos);
-		buf.get(bytes);
-		buf.get();
-		return new String(bytes);
+		return StringTable.read(buf);
 	}
 
 	public static long getULEB128(ByteBuffer buffer) {
@@ -322,24 +358,15 @@ public class DwarfLib {
 		return count;
 	}
 
+	/**
+	 * The string at an offset, ended by NUL or the end of the buffer, null if
+	 * the offset is outside the buffer. Does not move the buffer's position.
+	 */
 	public static String getString(ByteBuffer buf, int offset) {
-		try {
-			buf.position(offset);
-
-			byte temp;
-			String r = "";
-			while (buf.hasRemaining()) {
-				temp = buf.get();
-				if (temp == 0) {
-					break;
-				}
-				r += (char) temp;
-			}
-			return r;
-		} catch (Exception ex) {
-			//			ex.printStackTrace();
+		if (offset < 0 || offset >= buf.limit()) {
 			return null;
 		}
+		return StringTable.decode(buf, offset, StringTable.indexOfNul(buf, offset));
 	}
 
 	public void printHeader(DwarfDebugLineHeader header) {
@@ -367,87 +394,175 @@ public class DwarfLib {
 		System.out.println(" }");
 	}
 
+	/**
+	 * The innermost subprogram containing the address in any of the files.
+	 */
 	public static DebugInfoEntry getSubProgram(Vector<Dwarf> dwarfVector, long address) {
 		for (Dwarf dwarf : dwarfVector) {
-			for (CompileUnit compileUnit : dwarf.compileUnits) {
-				for (DebugInfoEntry debugInfoEntry : compileUnit.debugInfoEntries) {
-					DebugInfoEntry result = searchSubProgram(debugInfoEntry, address);
-					if (result != null) {
-						return result;
-					}
-				}
+			DebugInfoEntry result = dwarf.getContainingSubProgram(address);
+			if (result != null) {
+				return result;
 			}
 		}
 		return null;
 	}
 
-	private static DebugInfoEntry searchSubProgram(DebugInfoEntry debugInfoEntry, long address) {
-		if (debugInfoEntry.name.equals("DW_TAG_subprogram")) {
-			if (debugInfoEntry.debugInfoAbbrevEntries.get("DW_AT_low_pc") != null && (long) debugInfoEntry.debugInfoAbbrevEntries.get("DW_AT_low_pc").value == address) {
-				return debugInfoEntry;
+	/**
+	 * The inlined call stack at the address in the first file covering it,
+	 * innermost first.
+	 */
+	public static List<DwarfInlineFrame> getInlineFrames(Vector<Dwarf> dwarfVector, long address) {
+		for (Dwarf dwarf : dwarfVector) {
+			List<DwarfInlineFrame> frames = dwarf.getInlineFrames(address);
+			if (!frames.isEmpty()) {
+				return frames;
 			}
 		}
+		return new Vector<DwarfInlineFrame>();
+	}
 
-		for (DebugInfoEntry d : debugInfoEntry.debugInfoEntries) {
-			DebugInfoEntry result = searchSubProgram(d, address);
-			if (result != null) {
-				return result;
+	/**
+	 * The inlined call stacks of many addresses, each from the first file
+	 * covering it, in the order of the addresses. See
+	 * Dwarf.getInlineFrames(long[]).
+	 */
+	@SuppressWarnings({ "unchecked", "rawtypes" })
+	public static Vector<DwarfInlineFrame>[] getInlineFrames(Vector<Dwarf> dwarfVector, long addresses[]) {
+		Vector<DwarfInlineFrame> r[] = new Vector[addresses.length];
+		int pending[] = new int[addresses.length];
+		for (int x = 0; x < pending.length; x++) {
+			pending[x] = x;
+		}
+		int size = pending.length;
+		for (Dwarf dwarf : dwarfVector) {
+			if (size == 0) {
+				break;
+			}
+			long batch[] = new long[size];
+			for (int x = 0; x < size; x++) {
+				batch[x] = addresses[pending[x]];
+			}
+			Vector<DwarfInlineFrame> frames[] = dwarf.getInlineFrames(batch);
+			// keep the addresses this file does not cover for the next one
+			int left = 0;
+			for (int x = 0; x < size; x++) {
+				r[pending[x]] = frames[x];
+				if (frames[x].isEmpty()) {
+					pending[left++] = pending[x];
+				}
 			}
+			size = left;
 		}
-		return null;
+		for (int x = 0; x < size; x++) {
+			r[pending[x]] = new Vector<DwarfInlineFrame>();
+		}
+		return r;
 	}
 
-	public static String getParameterType(CompileUnit compileUnit, int value) {
-		DebugInfoEntry temp = compileUnit.getDebugInfoEntryByPosition(value);
+	/**
+	 * Name of a subprogram or inlined subroutine. Concrete and inlined
+	 * instances have it on their DW_AT_abstract_origin, out of line
+	 * definitions on their DW_AT_specification.
+	 */
+	public static String getFunctionName(DebugInfoEntry entry) {
+		return getOriginString(entry, Definition.DW_AT_name);
+	}
 
-		if (temp != null && temp.name.equals("DW_TAG_union_type")) {
-			return "union";
-		} else if (temp != null && temp.name.equals("DW_TAG_enumeration_type")) {
-			return "enum";
+	/**
+	 * DW_AT_linkage_name, or the older DW_AT_MIPS_linkage_name, of a
+	 * subprogram, looked up like getFunctionName.
+	 */
+	public static String getLinkageName(DebugInfoEntry entry) {
+		String name = getOriginString(entry, Definition.DW_AT_linkage_name);
+		if (name == null) {
+			name = getOriginString(entry, Definition.DW_AT_MIPS_linkage_name);
 		}
-		DebugInfoAbbrevEntry debugInfoAbbrevEntry = null;
-		if (temp != null) {
-			debugInfoAbbrevEntry = temp.debugInfoAbbrevEntries.get("DW_AT_name");
-			if (debugInfoAbbrevEntry == null) {
-				debugInfoAbbrevEntry = temp.debugInfoAbbrevEntries.get("DW_AT_type");
-
-				if (debugInfoAbbrevEntry == null) {
-					return null;
-				}
-				return getParameterType(compileUnit, CommonLib.string2int("0x" + debugInfoAbbrevEntry.value));
-			}
-		} else {
-			return null;
+		return name;
+	}
+
+	/**
+	 * Whether getFunctionName or getLinkageName of a subprogram is name,
+	 * compared without decoding the strings.
+	 */
+	public static boolean isFunctionNamed(DebugInfoEntry entry, String name) {
+		if (originStringEquals(entry, Definition.DW_AT_name, name) == 1) {
+			return true;
 		}
+		int r = originStringEquals(entry, Definition.DW_AT_linkage_name, name);
+		if (r == -1) {
+			r = originStringEquals(entry, Definition.DW_AT_MIPS_linkage_name, name);
+		}
+		return r == 1;
+	}
 
-		String type = debugInfoAbbrevEntry.value.toString();
-		return type;
+	// 1 if the string found like getOriginString is value, 0 if not, -1 if there is none
+	private static int originStringEquals(DebugInfoEntry entry, int at, String value) {
+		for (int x = 0; x < 8 && entry != null; x++) {
+			if (entry.hasAttribute(at)) {
+				return entry.stringEquals(at, value) ? 1 : 0;
+			}
+			DebugInfoEntry origin = entry.getReferencedEntry(Definition.DW_AT_abstract_origin);
+			entry = origin != null ? origin : entry.getReferencedEntry(Definition.DW_AT_specification);
+		}
+		return -1;
 	}
 
-	public static int getParameterSize(CompileUnit compileUnit, int value) {
-		DebugInfoEntry temp = compileUnit.getDebugInfoEntryByPosition(value);
+	private static String getOriginString(DebugInfoEntry entry, int at) {
+		// origins and specifications chain, but never deeply
+		for (int x = 0; x < 8 && entry != null; x++) {
+			String name = entry.getString(at);
+			if (name != null) {
+				return name;
+			}
+			DebugInfoEntry origin = entry.getReferencedEntry(Definition.DW_AT_abstract_origin);
+			entry = origin != null ? origin : entry.getReferencedEntry(Definition.DW_AT_specification);
+		}
+		return null;
+	}
 
-		DebugInfoAbbrevEntry debugInfoAbbrevEntry = null;
-		if (temp != null) {
-			debugInfoAbbrevEntry = temp.debugInfoAbbrevEntries.get("DW_AT_byte_size");
-			if (debugInfoAbbrevEntry == null) {
-				debugInfoAbbrevEntry = temp.debugInfoAbbrevEntries.get("DW_AT_type");
+	public static String getParameterType(CompileUnit compileUnit, int value) {
+		return getParameterType(compileUnit.getDebugInfoEntryByPosition(value));
+	}
 
-				if (debugInfoAbbrevEntry == null) {
-					return -1;
-				}
-				return getParameterSize(compileUnit, CommonLib.string2int("0x" + debugInfoAbbrevEntry.value));
+	/**
+	 * Name of a type entry, unnamed types such as pointers are followed
+	 * through DW_AT_type until a named one.
+	 */
+	public static String getParameterType(DebugInfoEntry temp) {
+		while (temp != null) {
+			if (temp.tag == Definition.DW_TAG_union_type) {
+				return "union";
+			} else if (temp.tag == Definition.DW_TAG_enumeration_type) {
+				return "enum";
 			}
-		} else {
-			return -1;
+			String type = temp.getString(Definition.DW_AT_name);
+			if (type != null) {
+				return type;
+			}
+			temp = temp.getReferencedEntry(Definition.DW_AT_type);
 		}
+		return null;
+	}
 
-		int size = Integer.parseInt(debugInfoAbbrevEntry.value.toString());
-		return size;
+	public static int getParameterSize(CompileUnit compileUnit, int value) {
+		return getParameterSize(compileUnit.getDebugInfoEntryByPosition(value));
+	}
+
+	/**
+	 * DW_AT_byte_size of a type entry, following DW_AT_type until one has it.
+	 */
+	public static int getParameterSize(DebugInfoEntry temp) {
+		while (temp != null) {
+			if (temp.hasAttribute(Definition.DW_AT_byte_size)) {
+				return (int) temp.getUnsigned(Definition.DW_AT_byte_size);
+			}
+			temp = temp.getReferencedEntry(Definition.DW_AT_type);
+		}
+		return -1;
 	}
 
 	public static DebugLocEntry getDebugLocEntry(Dwarf dwarf, int offset) {
-		for (DebugLocEntry debugLocEntry : dwarf.debugLocEntries) {
+		for (DebugLocEntry debugLocEntry : dwarf.getDebugLocEntries()) {
 			if (debugLocEntry.offset == offset) {
 				return debugLocEntry;
 			}
@@ -1,14 +1,13 @@
 package com.peterdwarf.dwarf;
 
-import java.math.BigInteger;
-
 public class DwarfLine implements Comparable {
-	public BigInteger address;
+	public long address;
 	public long file_num;
 	public int line_num;
 	public long column_num;
 	public boolean is_stmt;
 	public boolean basic_block;
+	public boolean end_sequence;
 
 	@Override
 	public int compareTo(Object o) {
@@ -21,6 +20,6 @@ public class DwarfLine implements Comparable {
 	}
 
 	public String toString() {
-		return "file_num=" + file_num + ", address=0x" + address.toString(16) + ", line_num=" + line_num;
+		return "file_num=" + file_num + ", address=0x" + Long.toHexString(address) + ", line_num=" + line_num;
 	}
 }
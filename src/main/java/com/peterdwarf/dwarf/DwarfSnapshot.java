@@ -0,0 +1,243 @@
+package com.peterdwarf.dwarf;
+
+import java.io.File;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Vector;
+
+import com.peterdwarf.elf.Elf32_Sym;
+
+/**
+ * An immutable view of a fully decoded Dwarf for address and name queries,
+ * made by Dwarf.getSnapshot(). Everything is decoded before the constructor
+ * returns and kept in final fields, plain arrays and indexes that are never
+ * changed again, so any number of threads may query a snapshot without
+ * synchronization. Lists handed out are unmodifiable. The units, entries
+ * and rows returned are the Dwarf's own objects and must be treated as read
+ * only. The unit ranges and line tables are captured as they are at
+ * construction, so a later Dwarf.compressLineTables() does not change what
+ * a snapshot sees.
+ */
+public final class DwarfSnapshot {
+	public final File file;
+	public final String realFilename;
+	public final int addressSize;
+
+	private final CompileUnit compileUnits[];
+	private final int compileUnitOffsets[];
+	private final DebugInfoTable tables[];
+	private final DwarfDebugLineHeader headers[];
+	private final LineTable lineTables[];
+	private final ScopeIndex scopeIndexes[];
+	// unit ranges copied from the Dwarf, sorted by start with the sign bit flipped
+	private final long rangeStarts[];
+	private final long rangeEnds[];
+	// largest end of the ranges up to an index, see AddressRangeIndex
+	private final long rangeMaxEnds[];
+	// index into compileUnits of each range
+	private final int rangeUnits[];
+	private final FunctionIndex functionIndex;
+	private final SourceLineIndex sourceLineIndex;
+	private final List<CompileUnit> compileUnitList;
+	private final List<Elf32_Sym> symbols;
+	private final List<DebugLocEntry> debugLocEntries;
+	private final long memoryOffset;
+
+	DwarfSnapshot(Dwarf dwarf, long memoryOffset) {
+		file = dwarf.file;
+		realFilename = dwarf.realFilename;
+		addressSize = dwarf.addressSize;
+		this.memoryOffset = memoryOffset;
+		compileUnits = dwarf.compileUnits.toArray(new CompileUnit[dwarf.compileUnits.size()]);
+		compileUnitOffsets = new int[compileUnits.length];
+		tables = new DebugInfoTable[compileUnits.length];
+		headers = new DwarfDebugLineHeader[compileUnits.length];
+		lineTables = new LineTable[compileUnits.length];
+		scopeIndexes = new ScopeIndex[compileUnits.length];
+		for (int x = 0; x < compileUnits.length; x++) {
+			compileUnitOffsets[x] = compileUnits[x].offset;
+			tables[x] = compileUnits[x].getDebugInfoTable();
+			headers[x] = compileUnits[x].getDwarfDebugLineHeader();
+			lineTables[x] = headers[x] == null ? null : headers[x].lineTable;
+			scopeIndexes[x] = compileUnits[x].getScopeIndex();
+		}
+		AddressRangeIndex<CompileUnit> ranges = dwarf.compileUnitRanges;
+		int size = ranges.size;
+		rangeStarts = new long[size];
+		rangeEnds = new long[size];
+		rangeMaxEnds = new long[size];
+		rangeUnits = new int[size];
+		for (int x = 0; x < size; x++) {
+			rangeStarts[x] = ranges.getStart(x) ^ Long.MIN_VALUE;
+			rangeEnds[x] = ranges.getEnd(x) ^ Long.MIN_VALUE;
+			rangeMaxEnds[x] = x == 0 ? rangeEnds[x] : Math.max(rangeMaxEnds[x - 1], rangeEnds[x]);
+			rangeUnits[x] = Arrays.binarySearch(compileUnitOffsets, ranges.get(x).offset);
+		}
+		functionIndex = dwarf.getFunctionIndex();
+		sourceLineIndex = dwarf.getSourceLineIndex();
+		compileUnitList = Collections.unmodifiableList(Arrays.asList(compileUnits));
+		symbols = Collections.unmodifiableList(Arrays.asList(dwarf.symbols.toArray(new Elf32_Sym[dwarf.symbols.size()])));
+		Vector<DebugLocEntry> debugLoc = dwarf.getDebugLocEntries();
+		debugLocEntries = Collections.unmodifiableList(Arrays.asList(debugLoc.toArray(new DebugLocEntry[debugLoc.size()])));
+	}
+
+	public List<CompileUnit> getCompileUnits() {
+		return compileUnitList;
+	}
+
+	public List<Elf32_Sym> getSymbols() {
+		return symbols;
+	}
+
+	public List<DebugLocEntry> getDebugLocEntries() {
+		return debugLocEntries;
+	}
+
+	/**
+	 * The unit covering an address, null if none does.
+	 */
+	public CompileUnit getCompileUnit(long address) {
+		int x = findUnit(address);
+		return x < 0 ? null : compileUnits[x];
+	}
+
+	/**
+	 * The entry at any .debug_info offset, null if no entry starts there.
+	 */
+	public DebugInfoEntry getDebugInfoEntryByOffset(int offset) {
+		int x = Arrays.binarySearch(compileUnitOffsets, offset);
+		if (x < 0) {
+			// the unit starting before the offset
+			x = -x - 2;
+		}
+		if (x < 0 || offset >= compileUnits[x].getEnd() || tables[x] == null) {
+			return null;
+		}
+		return tables[x].get(tables[x].indexOf(offset));
+	}
+
+	/**
+	 * The innermost DW_TAG_subprogram containing an address, null if there
+	 * is none.
+	 */
+	public DebugInfoEntry getContainingSubProgram(long address) {
+		int x = indexOf(address);
+		if (x == -1) {
+			return null;
+		}
+		DebugInfoTable table = tables[x];
+		for (int index = scopeIndexes[x].find(address); index != -1; index = table.parents[index]) {
+			if (table.getAbbrev(index).tag == Definition.DW_TAG_subprogram) {
+				return table.get(index);
+			}
+		}
+		return null;
+	}
+
+	/**
+	 * The subprograms, lexical blocks and inlined subroutines containing an
+	 * address, innermost first.
+	 */
+	public DebugInfoEntry[] getScopes(long address) {
+		int x = indexOf(address);
+		if (x == -1) {
+			return new DebugInfoEntry[0];
+		}
+		DebugInfoTable table = tables[x];
+		DebugInfoEntry scopes[] = new DebugInfoEntry[8];
+		int size = 0;
+		for (int index = scopeIndexes[x].find(address); index != -1; index = table.parents[index]) {
+			if (ScopeIndex.isScope(table.getAbbrev(index).tag)) {
+				if (size == scopes.length) {
+					scopes = Arrays.copyOf(scopes, size * 2);
+				}
+				scopes[size++] = table.get(index);
+			}
+		}
+		return Arrays.copyOf(scopes, size);
+	}
+
+	/**
+	 * The line table row covering an address, null if there is none.
+	 */
+	public DwarfLine getLine(long address) {
+		int x = indexOf(address);
+		return x == -1 ? null : getLine(x, address);
+	}
+
+	private DwarfLine getLine(int x, long address) {
+		LineTable lineTable = lineTables[x];
+		if (lineTable == null) {
+			return null;
+		}
+		int row = lineTable.addressToLine(address + memoryOffset);
+		return row == -1 ? null : lineTable.getDwarfLine(row);
+	}
+
+	/**
+	 * The inlined call stack at an address, innermost first, see
+	 * Dwarf.getInlineFrames().
+	 */
+	public DwarfInlineFrame[] getInlineFrames(long address) {
+		int x = indexOf(address);
+		if (x == -1) {
+			return new DwarfInlineFrame[0];
+		}
+		DwarfLine line = getLine(x, address);
+		return Dwarf.buildInlineFrames(compileUnits[x], headers[x], line, scopeIndexes[x].find(address));
+	}
+
+	/**
+	 * Subprograms with code and the given name or linkage name.
+	 */
+	public DebugInfoEntry[] getSubProgramsByName(String name) {
+		return functionIndex.getEntries(name);
+	}
+
+	/**
+	 * Subprograms with code whose name or linkage name starts with prefix,
+	 * sorted by name.
+	 */
+	public DebugInfoEntry[] getSubProgramsByPrefix(String prefix) {
+		return functionIndex.getEntriesByPrefix(prefix);
+	}
+
+	/**
+	 * The addresses to stop at for file:line, see
+	 * SourceLineIndex.getAddresses(). Files are indexed on first use, which
+	 * is safe from any thread.
+	 */
+	public long[] getAddresses(String file, int line) {
+		return sourceLineIndex.getAddresses(file, line);
+	}
+
+	// index of the unit covering an address that has a decoded table, -1 if none
+	private int indexOf(long address) {
+		int x = findUnit(address);
+		return x < 0 || tables[x] == null ? -1 : x;
+	}
+
+	// index of the unit covering an address, negative if none; like AddressRangeIndex.find()
+	private int findUnit(long address) {
+		long key = address ^ Long.MIN_VALUE;
+		int low = 0;
+		int high = rangeStarts.length - 1;
+		int x = -1;
+		while (low <= high) {
+			int middle = (low + high) >>> 1;
+			if (rangeStarts[middle] <= key) {
+				x = middle;
+				low = middle + 1;
+			} else {
+				high = middle - 1;
+			}
+		}
+		for (; x >= 0 && rangeMaxEnds[x] > key; x--) {
+			if (rangeEnds[x] > key) {
+				return rangeUnits[x];
+			}
+		}
+		return -1;
+	}
+}
@@ -0,0 +1,183 @@
+package com.peterdwarf.dwarf;
+
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.Vector;
+
+/**
+ * Every DW_TAG_subprogram of a Dwarf with code, by name and linkage name.
+ * Declarations and abstract instances of inlined functions have no address
+ * and are left out, their concrete instances are found by the name of
+ * their DW_AT_abstract_origin. Names
+ * are kept sorted with a hash from each name to its first slot, so exact
+ * lookups are a hash hit and prefix lookups a binary search.
+ */
+public class FunctionIndex {
+	public int size;
+
+	private Dwarf dwarf;
+	private String names[] = new String[64];
+	// compile unit index << 32 | entry index in that unit's table
+	private long entries[] = new long[64];
+	private HashMap<String, Integer> firstSlots = new HashMap<String, Integer>();
+
+	/**
+	 * Decodes every unit that is not decoded yet.
+	 */
+	public static FunctionIndex build(Dwarf dwarf) {
+		FunctionIndex index = new FunctionIndex();
+		index.dwarf = dwarf;
+		for (int x = 0; x < dwarf.compileUnits.size(); x++) {
+			DebugInfoTable table = dwarf.compileUnits.get(x).getDebugInfoTable();
+			if (table == null) {
+				continue;
+			}
+			for (int y = 0; y < table.size; y++) {
+				if (table.getAbbrev(y).tag != Definition.DW_TAG_subprogram) {
+					continue;
+				}
+				DebugInfoEntry entry = table.get(y);
+				if (!hasCode(entry)) {
+					continue;
+				}
+				String name = DwarfLib.getFunctionName(entry);
+				String linkageName = DwarfLib.getLinkageName(entry);
+				if (name != null) {
+					index.add(name, x, y);
+				}
+				if (linkageName != null && !linkageName.equals(name)) {
+					index.add(linkageName, x, y);
+				}
+			}
+		}
+		index.sort();
+		return index;
+	}
+
+	/**
+	 * Whether a subprogram has an address to stop at, DW_AT_low_pc or
+	 * DW_AT_ranges.
+	 */
+	static boolean hasCode(DebugInfoEntry entry) {
+		return entry.hasAttribute(Definition.DW_AT_low_pc) || entry.hasAttribute(Definition.DW_AT_ranges);
+	}
+
+	private void add(String name, int compileUnitIndex, int entryIndex) {
+		if (size == names.length) {
+			names = Arrays.copyOf(names, size * 2);
+			entries = Arrays.copyOf(entries, size * 2);
+		}
+		names[size] = name;
+		entries[size] = ((long) compileUnitIndex << 32) | entryIndex;
+		size++;
+	}
+
+	private void sort() {
+		Integer order[] = new Integer[size];
+		for (int x = 0; x < size; x++) {
+			order[x] = x;
+		}
+		// stable, entries of one name stay in section order
+		Arrays.sort(order, new Comparator<Integer>() {
+			@Override
+			public int compare(Integer a, Integer b) {
+				return names[a].compareTo(names[b]);
+			}
+		});
+		String sortedNames[] = new String[size];
+		long sortedEntries[] = new long[size];
+		for (int x = 0; x < size; x++) {
+			sortedNames[x] = names[order[x]];
+			sortedEntries[x] = entries[order[x]];
+			if (x == 0 || !sortedNames[x].equals(sortedNames[x - 1])) {
+				firstSlots.put(sortedNames[x], x);
+			}
+		}
+		names = sortedNames;
+		entries = sortedEntries;
+	}
+
+	/**
+	 * Subprograms named exactly name, in section order.
+	 */
+	public Vector<DebugInfoEntry> get(String name) {
+		return new Vector<DebugInfoEntry>(Arrays.asList(getEntries(name)));
+	}
+
+	/**
+	 * Subprograms whose name starts with prefix, sorted by name.
+	 */
+	public Vector<DebugInfoEntry> getByPrefix(String prefix) {
+		return new Vector<DebugInfoEntry>(Arrays.asList(getEntriesByPrefix(prefix)));
+	}
+
+	/**
+	 * Like get() but as an array.
+	 */
+	public DebugInfoEntry[] getEntries(String name) {
+		Integer slot = firstSlots.get(name);
+		if (slot == null) {
+			return new DebugInfoEntry[0];
+		}
+		int end = slot;
+		while (end < size && names[end].equals(name)) {
+			end++;
+		}
+		return getEntries(slot, end);
+	}
+
+	/**
+	 * Like getByPrefix() but as an array.
+	 */
+	public DebugInfoEntry[] getEntriesByPrefix(String prefix) {
+		int start = lowerBound(prefix);
+		int end = start;
+		while (end < size && names[end].startsWith(prefix)) {
+			end++;
+		}
+		return getEntries(start, end);
+	}
+
+	private DebugInfoEntry[] getEntries(int start, int end) {
+		DebugInfoEntry r[] = new DebugInfoEntry[end - start];
+		for (int x = start; x < end; x++) {
+			r[x - start] = getEntry(x);
+		}
+		return r;
+	}
+
+	/**
+	 * The sorted names starting with prefix, each once.
+	 */
+	public Vector<String> getNamesByPrefix(String prefix) {
+		Vector<String> r = new Vector<String>();
+		int x = lowerBound(prefix);
+		for (; x < size && names[x].startsWith(prefix); x++) {
+			if (r.isEmpty() || !r.lastElement().equals(names[x])) {
+				r.add(names[x]);
+			}
+		}
+		return r;
+	}
+
+	// first slot whose name is not below key
+	private int lowerBound(String key) {
+		int low = 0;
+		int high = size;
+		while (low < high) {
+			int middle = (low + high) >>> 1;
+			if (names[middle].compareTo(key) < 0) {
+				low = middle + 1;
+			} else {
+				high = middle;
+			}
+		}
+		return low;
+	}
+
+	private DebugInfoEntry getEntry(int slot) {
+		CompileUnit cu = dwarf.compileUnits.get((int) (entries[slot] >>> 32));
+		return cu.getDebugInfoTable().get((int) entries[slot]);
+	}
+}
@@ -0,0 +1,399 @@
+package com.peterdwarf.dwarf;
+
+import java.util.Arrays;
+import java.util.Comparator;
+
+/**
+ * The rows of one line program in parallel primitive arrays. Rows are added
+ * in program order, build() then orders whole sequences by their first
+ * address, so rows stay ascending inside a sequence and the end_sequence
+ * row closing each one is kept. Addresses compare unsigned.
+ *
+ * compress() makes a copy that keeps the rows in varint packed blocks of
+ * BLOCK_ROWS rows and an index of the first address of every block, a
+ * lookup then decodes one block. The get methods work in both forms. A
+ * compressed table is never changed, the table it was made from is left
+ * alone too.
+ */
+public class LineTable {
+	public static final int IS_STMT = 1;
+	public static final int BASIC_BLOCK = 2;
+	public static final int END_SEQUENCE = 4;
+	public static final int PROLOGUE_END = 8;
+	public static final int EPILOGUE_BEGIN = 16;
+	public static final int BLOCK_ROWS = 64;
+
+	// bits above the row flags in a packed row's first byte
+	private static final int FILE_CHANGED = 32;
+	private static final int COLUMN_CHANGED = 64;
+
+	public int size;
+	// null in a compressed table
+	public long addresses[];
+	public int files[];
+	public int lines[];
+	public int columns[];
+	public byte flags[];
+
+	// compressed form, blockOffsets[b] is where block b starts in data
+	private long blockAddresses[];
+	private int blockOffsets[];
+	private byte data[];
+	// the last block decoded, replaced as a whole so readers need no lock
+	private volatile Block lastBlock;
+
+	static class Block {
+		final int index;
+		final LineTable rows;
+
+		Block(int index, LineTable rows) {
+			this.index = index;
+			this.rows = rows;
+		}
+	}
+
+	public LineTable() {
+		this(64);
+	}
+
+	public LineTable(int capacity) {
+		capacity = Math.max(1, capacity);
+		addresses = new long[capacity];
+		files = new int[capacity];
+		lines = new int[capacity];
+		columns = new int[capacity];
+		flags = new byte[capacity];
+	}
+
+	public void add(long address, int file, int line, int column, int flag) {
+		if (size == addresses.length) {
+			addresses = Arrays.copyOf(addresses, size * 2);
+			files = Arrays.copyOf(files, size * 2);
+			lines = Arrays.copyOf(lines, size * 2);
+			columns = Arrays.copyOf(columns, size * 2);
+			flags = Arrays.copyOf(flags, size * 2);
+		}
+		addresses[size] = address;
+		files[size] = file;
+		lines[size] = line;
+		columns[size] = column;
+		flags[size] = (byte) flag;
+		size++;
+	}
+
+	/**
+	 * Orders the sequences by start address and trims the arrays, call once
+	 * after the last add(). A program whose last sequence lacks its
+	 * end_sequence keeps that sequence as it is.
+	 */
+	public void build() {
+		int starts[] = new int[16];
+		int count = 0;
+		boolean sorted = true;
+		for (int x = 0; x < size; x++) {
+			if (x == 0 || (flags[x - 1] & END_SEQUENCE) != 0) {
+				if (count == starts.length) {
+					starts = Arrays.copyOf(starts, count * 2);
+				}
+				if (count > 0 && (addresses[starts[count - 1]] ^ Long.MIN_VALUE) > (addresses[x] ^ Long.MIN_VALUE)) {
+					sorted = false;
+				}
+				starts[count++] = x;
+			}
+		}
+		if (!sorted) {
+			final int sequenceStarts[] = starts;
+			Integer order[] = new Integer[count];
+			for (int x = 0; x < count; x++) {
+				order[x] = x;
+			}
+			// stable, sequences at the same address keep program order
+			Arrays.sort(order, new Comparator<Integer>() {
+				@Override
+				public int compare(Integer a, Integer b) {
+					return Long.compare(addresses[sequenceStarts[a]] ^ Long.MIN_VALUE, addresses[sequenceStarts[b]] ^ Long.MIN_VALUE);
+				}
+			});
+			LineTable t = new LineTable(size);
+			for (int x = 0; x < count; x++) {
+				int from = sequenceStarts[order[x]];
+				int to = order[x] + 1 < count ? sequenceStarts[order[x] + 1] : size;
+				for (int y = from; y < to; y++) {
+					t.add(addresses[y], files[y], lines[y], columns[y], flags[y]);
+				}
+			}
+			addresses = t.addresses;
+			files = t.files;
+			lines = t.lines;
+			columns = t.columns;
+			flags = t.flags;
+		}
+		addresses = Arrays.copyOf(addresses, size);
+		files = Arrays.copyOf(files, size);
+		lines = Arrays.copyOf(lines, size);
+		columns = Arrays.copyOf(columns, size);
+		flags = Arrays.copyOf(flags, size);
+	}
+
+	/**
+	 * A packed copy of the rows, call after build(); this table if it is
+	 * compressed already. Rows with the same file, line, column and flags
+	 * as the row before them are dropped, the earlier row then stands for
+	 * both address ranges. Without columns every column becomes 0, so rows
+	 * that only differ in column are merged too. Row numbers differ from
+	 * this table's.
+	 */
+	public LineTable compress(boolean keepColumns) {
+		if (data != null) {
+			return this;
+		}
+		LineTable t = new LineTable(size);
+		for (int x = 0; x < size; x++) {
+			int column = keepColumns ? columns[x] : 0;
+			int n = t.size - 1;
+			if (n >= 0 && (flags[x] & END_SEQUENCE) == 0 && t.files[n] == files[x] && t.lines[n] == lines[x] && t.columns[n] == column && t.flags[n] == flags[x]) {
+				continue;
+			}
+			t.add(addresses[x], files[x], lines[x], column, flags[x]);
+		}
+
+		int blocks = (t.size + BLOCK_ROWS - 1) / BLOCK_ROWS;
+		long packedAddresses[] = new long[blocks];
+		int packedOffsets[] = new int[blocks];
+		// a varint row is at most 1 + 10 + 5 * 3 bytes
+		byte packed[] = new byte[Math.max(16, t.size * 6)];
+		int position = 0;
+		for (int x = 0; x < t.size; x++) {
+			if (packed.length - position < 26) {
+				packed = Arrays.copyOf(packed, packed.length * 2);
+			}
+			boolean first = x % BLOCK_ROWS == 0;
+			if (first) {
+				packedAddresses[x / BLOCK_ROWS] = t.addresses[x];
+				packedOffsets[x / BLOCK_ROWS] = position;
+			}
+			// the first row of a block is stored against zeros
+			long address = first ? t.addresses[x] : t.addresses[x - 1];
+			int file = first ? 0 : t.files[x - 1];
+			int line = first ? 0 : t.lines[x - 1];
+			int column = first ? 0 : t.columns[x - 1];
+			int head = t.flags[x] & 0x1f;
+			if (t.files[x] != file) {
+				head |= FILE_CHANGED;
+			}
+			if (t.columns[x] != column) {
+				head |= COLUMN_CHANGED;
+			}
+			packed[position++] = (byte) head;
+			if (!first) {
+				position = putVarLong(packed, position, zigZag(t.addresses[x] - address));
+			}
+			position = putVarLong(packed, position, zigZag(t.lines[x] - line) & 0xffffffffL);
+			if ((head & FILE_CHANGED) != 0) {
+				position = putVarLong(packed, position, zigZag(t.files[x] - file) & 0xffffffffL);
+			}
+			if ((head & COLUMN_CHANGED) != 0) {
+				position = putVarLong(packed, position, zigZag(t.columns[x] - column) & 0xffffffffL);
+			}
+		}
+		LineTable r = new LineTable(1);
+		r.blockAddresses = packedAddresses;
+		r.blockOffsets = packedOffsets;
+		r.data = Arrays.copyOf(packed, position);
+		r.size = t.size;
+		r.addresses = null;
+		r.files = null;
+		r.lines = null;
+		r.columns = null;
+		r.flags = null;
+		return r;
+	}
+
+	public boolean isCompressed() {
+		return data != null;
+	}
+
+	/**
+	 * Bytes held by the rows, the arrays or the packed blocks and their index.
+	 */
+	public long getRowBytes() {
+		if (data != null) {
+			return data.length + blockAddresses.length * 12L;
+		}
+		return addresses.length * 21L;
+	}
+
+	/**
+	 * Row covering an address, -1 if the address is below every sequence or
+	 * between the end of one sequence and the start of the next.
+	 */
+	public int addressToLine(long pc) {
+		int x = seek(pc, -1);
+		return x == -1 || isEndSequence(x) ? -1 : x;
+	}
+
+	/**
+	 * Last row at or below an address, -1 if there is none. Gallops forward
+	 * from a previous result, from must be -1 or a result for a lower
+	 * address.
+	 */
+	public int seek(long address, int from) {
+		if (data == null) {
+			return seek(addresses, size, address, from);
+		}
+		int block = seek(blockAddresses, blockAddresses.length, address, from == -1 ? -1 : from / BLOCK_ROWS);
+		if (block == -1) {
+			return -1;
+		}
+		LineTable rows = getBlock(block);
+		return block * BLOCK_ROWS + seek(rows.addresses, rows.size, address, -1);
+	}
+
+	private static int seek(long keys[], int size, long address, int from) {
+		long key = address ^ Long.MIN_VALUE;
+		int step = 1;
+		while (from + step < size && (keys[from + step] ^ Long.MIN_VALUE) <= key) {
+			from += step;
+			step *= 2;
+		}
+		int low = from + 1;
+		int high = Math.min(from + step, size) - 1;
+		while (low <= high) {
+			int middle = (low + high) >>> 1;
+			if ((keys[middle] ^ Long.MIN_VALUE) <= key) {
+				from = middle;
+				low = middle + 1;
+			} else {
+				high = middle - 1;
+			}
+		}
+		return from;
+	}
+
+	public long getAddress(int row) {
+		if (data == null) {
+			return addresses[row];
+		}
+		return getBlock(row / BLOCK_ROWS).addresses[row % BLOCK_ROWS];
+	}
+
+	public int getFile(int row) {
+		if (data == null) {
+			return files[row];
+		}
+		return getBlock(row / BLOCK_ROWS).files[row % BLOCK_ROWS];
+	}
+
+	public int getLine(int row) {
+		if (data == null) {
+			return lines[row];
+		}
+		return getBlock(row / BLOCK_ROWS).lines[row % BLOCK_ROWS];
+	}
+
+	public int getColumn(int row) {
+		if (data == null) {
+			return columns[row];
+		}
+		return getBlock(row / BLOCK_ROWS).columns[row % BLOCK_ROWS];
+	}
+
+	public int getFlags(int row) {
+		if (data == null) {
+			return flags[row];
+		}
+		return getBlock(row / BLOCK_ROWS).flags[row % BLOCK_ROWS];
+	}
+
+	public boolean isStmt(int row) {
+		return (getFlags(row) & IS_STMT) != 0;
+	}
+
+	public boolean isEndSequence(int row) {
+		return (getFlags(row) & END_SEQUENCE) != 0;
+	}
+
+	/**
+	 * The row as a DwarfLine object, for callers of the object API.
+	 */
+	public DwarfLine getDwarfLine(int row) {
+		LineTable rows = this;
+		if (data != null) {
+			rows = getBlock(row / BLOCK_ROWS);
+			row %= BLOCK_ROWS;
+		}
+		DwarfLine line = new DwarfLine();
+		line.address = rows.addresses[row];
+		line.file_num = rows.files[row];
+		line.line_num = rows.lines[row];
+		line.column_num = rows.columns[row];
+		line.is_stmt = (rows.flags[row] & IS_STMT) != 0;
+		line.basic_block = (rows.flags[row] & BASIC_BLOCK) != 0;
+		line.end_sequence = (rows.flags[row] & END_SEQUENCE) != 0;
+		return line;
+	}
+
+	// the rows of a block as an uncompressed table, sequential reads decode each block once
+	private LineTable getBlock(int index) {
+		Block block = lastBlock;
+		if (block != null && block.index == index) {
+			return block.rows;
+		}
+		int count = Math.min(BLOCK_ROWS, size - index * BLOCK_ROWS);
+		LineTable rows = new LineTable(count);
+		int position[] = { blockOffsets[index] };
+		long address = blockAddresses[index];
+		int file = 0;
+		int line = 0;
+		int column = 0;
+		for (int x = 0; x < count; x++) {
+			int head = data[position[0]++] & 0xff;
+			if (x > 0) {
+				address += unZigZag(getVarLong(data, position));
+			}
+			line += (int) unZigZag(getVarLong(data, position));
+			if ((head & FILE_CHANGED) != 0) {
+				file += (int) unZigZag(getVarLong(data, position));
+			}
+			if ((head & COLUMN_CHANGED) != 0) {
+				column += (int) unZigZag(getVarLong(data, position));
+			}
+			rows.add(address, file, line, column, head & 0x1f);
+		}
+		lastBlock = new Block(index, rows);
+		return rows;
+	}
+
+	private static long zigZag(long value) {
+		return (value << 1) ^ (value >> 63);
+	}
+
+	private static long zigZag(int value) {
+		return (value << 1) ^ (value >> 31);
+	}
+
+	private static long unZigZag(long value) {
+		return (value >>> 1) ^ -(value & 1);
+	}
+
+	private static int putVarLong(byte b[], int position, long value) {
+		while ((value & ~0x7fL) != 0) {
+			b[position++] = (byte) ((value & 0x7f) | 0x80);
+			value >>>= 7;
+		}
+		b[position++] = (byte) value;
+		return position;
+	}
+
+	private static long getVarLong(byte b[], int position[]) {
+		long value = 0;
+		int shift = 0;
+		byte x;
+		do {
+			x = b[position[0]++];
+			value |= (long) (x & 0x7f) << shift;
+			shift += 7;
+		} while (x < 0);
+		return value;
+	}
+}
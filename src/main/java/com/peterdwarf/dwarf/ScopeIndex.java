@@ -0,0 +1,207 @@
+package com.peterdwarf.dwarf;
+
+import java.util.Arrays;
+import java.util.Comparator;
+
+/**
+ * Address ranges of the subprograms, lexical blocks and inlined subroutines
+ * of one unit, flattened into disjoint segments that each point at the
+ * innermost scope covering them. A lookup is one binary search, the
+ * enclosing scopes follow from the parents of that entry.
+ */
+public class ScopeIndex {
+	public int size;
+
+	// starts and ends have the sign bit flipped, signed order is then unsigned order
+	private long starts[];
+	private long ends[];
+	private int entries[];
+
+	private ScopeIndex(int capacity) {
+		starts = new long[capacity];
+		ends = new long[capacity];
+		entries = new int[capacity];
+	}
+
+	public static boolean isScope(int tag) {
+		return tag == Definition.DW_TAG_subprogram || tag == Definition.DW_TAG_lexical_block || tag == Definition.DW_TAG_inlined_subroutine;
+	}
+
+	/**
+	 * Collects the scope ranges of a unit, DW_AT_ranges lists included, and
+	 * flattens them.
+	 */
+	public static ScopeIndex build(CompileUnit cu) {
+		DebugInfoTable table = cu.getDebugInfoTable();
+		ScopeIndex ranges = new ScopeIndex(64);
+		if (table == null) {
+			return ranges;
+		}
+		// entries are in depth first order, so a scope is added before the ones inside it
+		for (int x = 0; x < table.size; x++) {
+			if (!isScope(table.getAbbrev(x).tag)) {
+				continue;
+			}
+			DebugInfoEntry entry = table.get(x);
+			if (entry.hasAttribute(Definition.DW_AT_ranges)) {
+				long pairs[] = cu.dwarf.getRanges(cu, entry.getUnsigned(Definition.DW_AT_ranges));
+				for (int y = 0; y < pairs.length; y += 2) {
+					ranges.add(pairs[y], pairs[y + 1], x);
+				}
+			} else if (entry.hasAttribute(Definition.DW_AT_low_pc) && entry.hasAttribute(Definition.DW_AT_high_pc)) {
+				long low = entry.getUnsigned(Definition.DW_AT_low_pc);
+				long high = entry.getUnsigned(Definition.DW_AT_high_pc);
+				// DW_AT_high_pc is a length unless it is an address
+				if (entry.getForm(Definition.DW_AT_high_pc) != Definition.DW_FORM_addr) {
+					high += low;
+				}
+				ranges.add(low, high, x);
+			}
+		}
+		return ranges.flatten();
+	}
+
+	private void add(long start, long end, int entry) {
+		start ^= Long.MIN_VALUE;
+		end ^= Long.MIN_VALUE;
+		if (end <= start) {
+			return;
+		}
+		if (size == starts.length) {
+			starts = Arrays.copyOf(starts, size * 2);
+			ends = Arrays.copyOf(ends, size * 2);
+			entries = Arrays.copyOf(entries, size * 2);
+		}
+		starts[size] = start;
+		ends[size] = end;
+		entries[size] = entry;
+		size++;
+	}
+
+	/**
+	 * Sorts the nested ranges, outer ones first on equal starts, and cuts
+	 * them into segments owned by the innermost open range.
+	 */
+	private ScopeIndex flatten() {
+		Integer order[] = new Integer[size];
+		for (int x = 0; x < size; x++) {
+			order[x] = x;
+		}
+		Arrays.sort(order, new Comparator<Integer>() {
+			@Override
+			public int compare(Integer a, Integer b) {
+				if (starts[a] != starts[b]) {
+					return Long.compare(starts[a], starts[b]);
+				}
+				if (ends[a] != ends[b]) {
+					return Long.compare(ends[b], ends[a]);
+				}
+				return Integer.compare(entries[a], entries[b]);
+			}
+		});
+
+		ScopeIndex segments = new ScopeIndex(size * 2 + 1);
+		long openEnds[] = new long[16];
+		int openEntries[] = new int[16];
+		int depth = 0;
+		long position = Long.MIN_VALUE;
+		for (int x = 0; x < size; x++) {
+			long start = starts[order[x]];
+			long end = ends[order[x]];
+			// close the ranges that end before this one starts
+			while (depth > 0 && openEnds[depth - 1] <= start) {
+				segments.append(position, openEnds[depth - 1], openEntries[depth - 1]);
+				position = Math.max(position, openEnds[depth - 1]);
+				depth--;
+			}
+			if (depth > 0) {
+				segments.append(position, start, openEntries[depth - 1]);
+				// a range sticking out of its parent is cut at the parent's end
+				end = Math.min(end, openEnds[depth - 1]);
+			}
+			position = start;
+			if (depth == openEnds.length) {
+				openEnds = Arrays.copyOf(openEnds, depth * 2);
+				openEntries = Arrays.copyOf(openEntries, depth * 2);
+			}
+			openEnds[depth] = end;
+			openEntries[depth] = entries[order[x]];
+			depth++;
+		}
+		while (depth > 0) {
+			segments.append(position, openEnds[depth - 1], openEntries[depth - 1]);
+			position = Math.max(position, openEnds[depth - 1]);
+			depth--;
+		}
+		segments.starts = Arrays.copyOf(segments.starts, segments.size);
+		segments.ends = Arrays.copyOf(segments.ends, segments.size);
+		segments.entries = Arrays.copyOf(segments.entries, segments.size);
+		return segments;
+	}
+
+	// start and end are already flipped
+	private void append(long start, long end, int entry) {
+		if (end <= start) {
+			return;
+		}
+		if (size > 0 && entries[size - 1] == entry && ends[size - 1] == start) {
+			ends[size - 1] = end;
+			return;
+		}
+		if (size == starts.length) {
+			starts = Arrays.copyOf(starts, size * 2);
+			ends = Arrays.copyOf(ends, size * 2);
+			entries = Arrays.copyOf(entries, size * 2);
+		}
+		starts[size] = start;
+		ends[size] = end;
+		entries[size] = entry;
+		size++;
+	}
+
+	/**
+	 * Table index of the innermost scope containing the address, -1 if none
+	 * does.
+	 */
+	public int find(long address) {
+		return getEntry(seek(address, -1), address);
+	}
+
+	/**
+	 * Position of the last segment starting at or below the address, -1 if
+	 * there is none. The search gallops forward from a previous result, so
+	 * ascending addresses cost about the distance moved. from must be -1 or
+	 * a result for a lower address.
+	 */
+	public int seek(long address, int from) {
+		long key = address ^ Long.MIN_VALUE;
+		int step = 1;
+		while (from + step < size && starts[from + step] <= key) {
+			from += step;
+			step *= 2;
+		}
+		int low = from + 1;
+		int high = Math.min(from + step, size) - 1;
+		while (low <= high) {
+			int middle = (low + high) >>> 1;
+			if (starts[middle] <= key) {
+				from = middle;
+				low = middle + 1;
+			} else {
+				high = middle - 1;
+			}
+		}
+		return from;
+	}
+
+	/**
+	 * Table index of the scope owning a segment returned by seek(), -1 if
+	 * the address is not inside it.
+	 */
+	public int getEntry(int segment, long address) {
+		if (segment == -1 || ends[segment] <= (address ^ Long.MIN_VALUE)) {
+			return -1;
+		}
+		return entries[segment];
+	}
+}
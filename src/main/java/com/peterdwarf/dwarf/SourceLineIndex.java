@@ -0,0 +1,242 @@
+package com.peterdwarf.dwarf;
+
+import java.io.File;
+import java.nio.file.InvalidPathException;
+import java.nio.file.Paths;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.Vector;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * From source file and line to the code addresses of that line, for setting
+ * breakpoints. Opening the index only reads the file tables of the line
+ * programs, to know which units name which files. The rows of a file are
+ * gathered from all those units on its first lookup, so a header included
+ * by many units is indexed once and other units' rows are never decoded.
+ */
+public class SourceLineIndex {
+	private CompileUnit units[];
+	// normalized path to unit index << 32 | file number in that unit's header
+	private HashMap<String, long[]> files = new HashMap<String, long[]>();
+	// last path component to the normalized paths ending with it
+	private HashMap<String, Vector<String>> names = new HashMap<String, Vector<String>>();
+	private ConcurrentHashMap<String, FileLines> built = new ConcurrentHashMap<String, FileLines>();
+
+	/**
+	 * The statement addresses of one file, ordered by line.
+	 */
+	static class FileLines {
+		int size;
+		int lines[] = new int[64];
+		long addresses[] = new long[64];
+
+		void add(int line, long address) {
+			if (size == lines.length) {
+				lines = Arrays.copyOf(lines, size * 2);
+				addresses = Arrays.copyOf(addresses, size * 2);
+			}
+			lines[size] = line;
+			addresses[size] = address;
+			size++;
+		}
+
+		// sorts by line then address and drops duplicates
+		void build() {
+			Integer order[] = new Integer[size];
+			for (int x = 0; x < size; x++) {
+				order[x] = x;
+			}
+			Arrays.sort(order, new Comparator<Integer>() {
+				@Override
+				public int compare(Integer a, Integer b) {
+					if (lines[a] != lines[b]) {
+						return Integer.compare(lines[a], lines[b]);
+					}
+					return Long.compare(addresses[a] ^ Long.MIN_VALUE, addresses[b] ^ Long.MIN_VALUE);
+				}
+			});
+			int sortedLines[] = new int[size];
+			long sortedAddresses[] = new long[size];
+			int n = 0;
+			for (int x = 0; x < size; x++) {
+				int y = order[x];
+				if (n > 0 && sortedLines[n - 1] == lines[y] && sortedAddresses[n - 1] == addresses[y]) {
+					continue;
+				}
+				sortedLines[n] = lines[y];
+				sortedAddresses[n] = addresses[y];
+				n++;
+			}
+			lines = Arrays.copyOf(sortedLines, n);
+			addresses = Arrays.copyOf(sortedAddresses, n);
+			size = n;
+		}
+
+		long[] get(int line) {
+			int x = Arrays.binarySearch(lines, 0, size, line);
+			if (x < 0) {
+				return new long[0];
+			}
+			int from = x;
+			while (from > 0 && lines[from - 1] == line) {
+				from--;
+			}
+			int to = x + 1;
+			while (to < size && lines[to] == line) {
+				to++;
+			}
+			return Arrays.copyOfRange(addresses, from, to);
+		}
+	}
+
+	/**
+	 * Reads the file names of every unit's line program header. Rows of line
+	 * programs that are not decoded yet stay undecoded until a lookup needs
+	 * them.
+	 */
+	public static SourceLineIndex build(Dwarf dwarf) {
+		SourceLineIndex index = new SourceLineIndex();
+		index.units = dwarf.compileUnits.toArray(new CompileUnit[dwarf.compileUnits.size()]);
+		for (int x = 0; x < index.units.length; x++) {
+			DwarfDebugLineHeader header = dwarf.getLineFileTable(index.units[x]);
+			if (header == null) {
+				continue;
+			}
+			for (int fileNum = 1; fileNum <= header.filenames.size(); fileNum++) {
+				// already normalized, and one String instance per file of the path table
+				String path = header.getFilename(fileNum);
+				long units[] = index.files.get(path);
+				if (units == null) {
+					units = new long[0];
+					Vector<String> paths = index.names.get(new File(path).getName());
+					if (paths == null) {
+						paths = new Vector<String>();
+						index.names.put(new File(path).getName(), paths);
+					}
+					paths.add(path);
+				}
+				units = Arrays.copyOf(units, units.length + 1);
+				units[units.length - 1] = ((long) x << 32) | fileNum;
+				index.files.put(path, units);
+			}
+		}
+		return index;
+	}
+
+	static String normalize(String path) {
+		try {
+			return Paths.get(path).normalize().toString();
+		} catch (InvalidPathException ex) {
+			return path;
+		}
+	}
+
+	/**
+	 * Every normalized source path named by a line program, sorted.
+	 */
+	public Vector<String> getFiles() {
+		Vector<String> r = new Vector<String>(files.keySet());
+		Collections.sort(r);
+		return r;
+	}
+
+	/**
+	 * The paths a file argument stands for: itself if it is absolute,
+	 * otherwise every path ending with it, so "foo.c" or "src/foo.c" work.
+	 */
+	public Vector<String> getMatchingFiles(String file) {
+		Vector<String> r = new Vector<String>();
+		String path = normalize(file);
+		if (new File(path).isAbsolute()) {
+			if (files.containsKey(path)) {
+				r.add(path);
+			}
+			return r;
+		}
+		Vector<String> candidates = names.get(new File(path).getName());
+		if (candidates == null) {
+			return r;
+		}
+		for (String candidate : candidates) {
+			if (candidate.equals(path) || candidate.endsWith(File.separator + path)) {
+				r.add(candidate);
+			}
+		}
+		return r;
+	}
+
+	/**
+	 * The addresses to stop at for a source line, ascending, empty if no code
+	 * belongs to it. Each run of rows for the line yields its first is_stmt
+	 * row, or its prologue_end row if it has one. Addresses are as in the
+	 * line table, memoryOffset included.
+	 */
+	public long[] getAddresses(String file, int line) {
+		long r[] = new long[0];
+		for (String path : getMatchingFiles(file)) {
+			long addresses[] = getFileLines(path).get(line);
+			int size = r.length;
+			r = Arrays.copyOf(r, size + addresses.length);
+			System.arraycopy(addresses, 0, r, size, addresses.length);
+		}
+		if (r.length > 1) {
+			// unsigned order, sign bit flipped around a signed sort
+			for (int x = 0; x < r.length; x++) {
+				r[x] ^= Long.MIN_VALUE;
+			}
+			Arrays.sort(r);
+			for (int x = 0; x < r.length; x++) {
+				r[x] ^= Long.MIN_VALUE;
+			}
+		}
+		return r;
+	}
+
+	private FileLines getFileLines(String path) {
+		FileLines fileLines = built.get(path);
+		if (fileLines != null) {
+			return fileLines;
+		}
+		fileLines = new FileLines();
+		for (long unit : files.get(path)) {
+			// decodes the rows of units opened lazily
+			DwarfDebugLineHeader header = units[(int) (unit >>> 32)].getDwarfDebugLineHeader();
+			if (header != null) {
+				collect(header.lineTable, (int) unit, fileLines);
+			}
+		}
+		fileLines.build();
+		FileLines existing = built.putIfAbsent(path, fileLines);
+		return existing != null ? existing : fileLines;
+	}
+
+	private static void collect(LineTable table, int fileNum, FileLines fileLines) {
+		int x = 0;
+		while (x < table.size) {
+			if (table.getFile(x) != fileNum || table.isEndSequence(x)) {
+				x++;
+				continue;
+			}
+			// a run of rows of one line, ended by another line, file or the end of the sequence
+			int line = table.getLine(x);
+			int stmt = -1;
+			int prologueEnd = -1;
+			for (; x < table.size && table.getFile(x) == fileNum && table.getLine(x) == line && !table.isEndSequence(x); x++) {
+				if (stmt == -1 && table.isStmt(x)) {
+					stmt = x;
+				}
+				if (prologueEnd == -1 && (table.getFlags(x) & LineTable.PROLOGUE_END) != 0) {
+					prologueEnd = x;
+				}
+			}
+			if (prologueEnd != -1) {
+				fileLines.add(line, table.getAddress(prologueEnd));
+			} else if (stmt != -1) {
+				fileLines.add(line, table.getAddress(stmt));
+			}
+		}
+	}
+}
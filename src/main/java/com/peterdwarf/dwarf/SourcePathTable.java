@@ -0,0 +1,100 @@
+package com.peterdwarf.dwarf;
+
+import java.io.File;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Vector;
+
+/**
+ * The source files named by line program headers, each distinct directory,
+ * file name and directory/name pair stored once under an int id. Units of
+ * one Dwarf, and the members of one archive, share a table, so the few
+ * thousand headers a big binary includes everywhere are kept once and equal
+ * ids mean equal files. Paths are only put together as Strings when asked
+ * for.
+ */
+public class SourcePathTable {
+	private HashMap<String, Integer> directoryIds = new HashMap<String, Integer>();
+	private Vector<String> directories = new Vector<String>();
+	private HashMap<String, Integer> nameIds = new HashMap<String, Integer>();
+	private Vector<String> names = new Vector<String>();
+	// directory id << 32 | name id to file id
+	private HashMap<Long, Integer> fileIds = new HashMap<Long, Integer>();
+	private int size;
+	private int fileDirectories[] = new int[64];
+	private int fileNames[] = new int[64];
+	private String paths[] = new String[64];
+
+	/**
+	 * Id of a directory, the comp_dir or include directory the file names of
+	 * a header are relative to.
+	 */
+	public synchronized int internDirectory(String directory) {
+		Integer id = directoryIds.get(directory);
+		if (id == null) {
+			id = directories.size();
+			directories.add(directory);
+			directoryIds.put(directory, id);
+		}
+		return id;
+	}
+
+	/**
+	 * Id of the file name in a directory from internDirectory().
+	 */
+	public synchronized int intern(int directoryId, String name) {
+		Integer nameId = nameIds.get(name);
+		if (nameId == null) {
+			nameId = names.size();
+			names.add(name);
+			nameIds.put(name, nameId);
+		}
+		Long key = ((long) directoryId << 32) | nameId;
+		Integer id = fileIds.get(key);
+		if (id == null) {
+			if (size == fileNames.length) {
+				fileDirectories = Arrays.copyOf(fileDirectories, size * 2);
+				fileNames = Arrays.copyOf(fileNames, size * 2);
+				paths = Arrays.copyOf(paths, size * 2);
+			}
+			fileDirectories[size] = directoryId;
+			fileNames[size] = nameId;
+			id = size++;
+			fileIds.put(key, id);
+		}
+		return id;
+	}
+
+	/**
+	 * The absolute, normalized path of a file id, made on the first call and
+	 * the same String instance after that.
+	 */
+	public synchronized String getPath(int id) {
+		String path = paths[id];
+		if (path == null) {
+			String name = names.get(fileNames[id]);
+			File file = new File(name);
+			if (!file.isAbsolute()) {
+				file = new File(directories.get(fileDirectories[id]), name);
+			}
+			path = SourceLineIndex.normalize(file.getAbsolutePath());
+			paths[id] = path;
+		}
+		return path;
+	}
+
+	/**
+	 * The file name of an id as the header gives it, without directory.
+	 */
+	public synchronized String getName(int id) {
+		return names.get(fileNames[id]);
+	}
+
+	public synchronized String getDirectory(int id) {
+		return directories.get(fileDirectories[id]);
+	}
+
+	public synchronized int size() {
+		return size;
+	}
+}
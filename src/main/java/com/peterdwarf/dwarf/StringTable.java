@@ -0,0 +1,198 @@
+package com.peterdwarf.dwarf;
+
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.nio.charset.Charset;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+/**
+ * The NUL terminated strings of a section, .debug_str for DW_FORM_strp or
+ * .debug_info for DW_FORM_string, by offset. Each offset is decoded once
+ * and the String kept, so the producer, file and type names thousands of
+ * entries share are one instance. equals() compares against the section
+ * bytes without decoding. The cache is open addressed by the primitive
+ * offset, a read is a probe without locks or boxing.
+ */
+public class StringTable {
+	static class Entry {
+		final int offset;
+		final String value;
+
+		Entry(int offset, String value) {
+			this.offset = offset;
+			this.value = value;
+		}
+	}
+
+	private static final Charset UTF8 = Charset.forName("UTF-8");
+	private static final long ONES = 0x0101010101010101L;
+	private static final long HIGHS = 0x8080808080808080L;
+
+	private ByteBuffer bytes;
+	// at most half full, replaced by a larger copy when it fills; only changed under the lock
+	private volatile AtomicReferenceArray<Entry> strings = new AtomicReferenceArray<Entry>(64);
+	private int count;
+
+	public StringTable(ByteBuffer bytes) {
+		this.bytes = bytes;
+	}
+
+	/**
+	 * The string at an offset, null if the offset is outside the section.
+	 */
+	public String get(int offset) {
+		String s = cached(offset);
+		if (s != null) {
+			return s;
+		}
+		if (offset < 0 || offset >= bytes.limit()) {
+			return null;
+		}
+		return put(offset, decode(bytes, offset, indexOfNul(bytes, offset)));
+	}
+
+	private String cached(int offset) {
+		AtomicReferenceArray<Entry> table = strings;
+		int mask = table.length() - 1;
+		for (int x = index(offset, mask);; x = (x + 1) & mask) {
+			Entry entry = table.get(x);
+			if (entry == null) {
+				return null;
+			}
+			if (entry.offset == offset) {
+				return entry.value;
+			}
+		}
+	}
+
+	// the first insert of an offset wins, so every caller gets one instance
+	private synchronized String put(int offset, String value) {
+		AtomicReferenceArray<Entry> table = strings;
+		int mask = table.length() - 1;
+		int x = index(offset, mask);
+		for (Entry existing; (existing = table.get(x)) != null; x = (x + 1) & mask) {
+			if (existing.offset == offset) {
+				return existing.value;
+			}
+		}
+		Entry entry = new Entry(offset, value);
+		if ((count + 1) * 2 > table.length()) {
+			// readers of the old table miss the new entry and decode it again
+			table = grow(table);
+			strings = table;
+			mask = table.length() - 1;
+			x = index(offset, mask);
+			while (table.get(x) != null) {
+				x = (x + 1) & mask;
+			}
+		}
+		table.set(x, entry);
+		count++;
+		return value;
+	}
+
+	private static AtomicReferenceArray<Entry> grow(AtomicReferenceArray<Entry> table) {
+		AtomicReferenceArray<Entry> r = new AtomicReferenceArray<Entry>(table.length() * 2);
+		int mask = r.length() - 1;
+		for (int y = 0; y < table.length(); y++) {
+			Entry entry = table.get(y);
+			if (entry == null) {
+				continue;
+			}
+			int x = index(entry.offset, mask);
+			while (r.get(x) != null) {
+				x = (x + 1) & mask;
+			}
+			r.set(x, entry);
+		}
+		return r;
+	}
+
+	private static int index(int offset, int mask) {
+		int h = offset * 0x9E3779B9;
+		return (h ^ (h >>> 16)) & mask;
+	}
+
+	/**
+	 * Whether the string at an offset is value, without decoding it when it
+	 * is not cached yet. Non ASCII values are compared decoded.
+	 */
+	public boolean equals(int offset, String value) {
+		String s = cached(offset);
+		if (s != null) {
+			return s.equals(value);
+		}
+		if (offset < 0 || offset >= bytes.limit()) {
+			return false;
+		}
+		int length = value.length();
+		if (offset + length > bytes.limit()) {
+			return false;
+		}
+		for (int x = 0; x < length; x++) {
+			char c = value.charAt(x);
+			if (c >= 0x80) {
+				return value.equals(get(offset));
+			}
+			if (bytes.get(offset + x) != c) {
+				return false;
+			}
+		}
+		// like get(), the end of the section ends the last string
+		return offset + length == bytes.limit() || bytes.get(offset + length) == 0;
+	}
+
+	public synchronized int size() {
+		return count;
+	}
+
+	/**
+	 * Position of the first NUL at or after from, limit() if there is none.
+	 * Tests eight bytes at a time.
+	 */
+	public static int indexOfNul(ByteBuffer b, int from) {
+		int x = from;
+		int limit = b.limit();
+		for (; x + 8 <= limit; x += 8) {
+			long word = b.getLong(x);
+			// non zero exactly when one of the eight bytes is 0
+			if (((word - ONES) & ~word & HIGHS) != 0) {
+				break;
+			}
+		}
+		for (; x < limit; x++) {
+			if (b.get(x) == 0) {
+				return x;
+			}
+		}
+		return limit;
+	}
+
+	/**
+	 * Bytes from up to end as UTF-8, copied straight from the backing array
+	 * when the buffer has one.
+	 */
+	public static String decode(ByteBuffer b, int from, int end) {
+		if (b.hasArray()) {
+			return new String(b.array(), b.arrayOffset() + from, end - from, UTF8);
+		}
+		byte s[] = new byte[end - from];
+		ByteBuffer d = b.duplicate();
+		d.position(from);
+		d.get(s);
+		return new String(s, UTF8);
+	}
+
+	/**
+	 * The string at the cursor, the cursor moved past its NUL.
+	 */
+	public static String read(ByteBuffer b) {
+		int from = b.position();
+		int end = indexOfNul(b, from);
+		if (end == b.limit()) {
+			throw new BufferUnderflowException();
+		}
+		b.position(end + 1);
+		return decode(b, from, end);
+	}
+}
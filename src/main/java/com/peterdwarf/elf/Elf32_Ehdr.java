@@ -2,6 +2,7 @@ package com.peterdwarf.elf;
 
 import java.io.IOException;
 import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
 
 import com.peterdwarf.dwarf.DwarfLib;
 
@@ -43,6 +44,23 @@ public class Elf32_Ehdr {
 		e_shstrndx = DwarfLib.readUHalf(f);
 	}
 
+	public void read(ByteBuffer buffer) {
+		buffer.get(e_ident);
+		e_type = buffer.getShort() & 0xffff;
+		e_machine = buffer.getShort() & 0xffff;
+		e_version = buffer.getInt();
+		e_entry = buffer.getInt() & 0xffffffffL;
+		e_phoff = buffer.getInt() & 0xffffffffL;
+		e_shoff = buffer.getInt() & 0xffffffffL;
+		e_flags = buffer.getInt();
+		e_ehsize = buffer.getShort() & 0xffff;
+		e_phentsize = buffer.getShort() & 0xffff;
+		e_phentnum = buffer.getShort() & 0xffff;
+		e_shentsize = buffer.getShort() & 0xffff;
+		e_shnum = buffer.getShort() & 0xffff;
+		e_shstrndx = buffer.getShort() & 0xffff;
+	}
+
 	public String toString() {
 		java.lang.StringBuffer str = new java.lang.StringBuffer(super.toString());
 		str.append(" [ e_ident: ");
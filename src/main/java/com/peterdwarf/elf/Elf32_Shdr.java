@@ -2,6 +2,7 @@ package com.peterdwarf.elf;
 
 import java.io.IOException;
 import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
 
 import com.peterdwarf.dwarf.DwarfLib;
 
@@ -10,13 +11,13 @@ public class Elf32_Shdr {
 	public long sh_name;
 	public String section_name;
 	public int sh_type;
-	public int sh_flags;
+	public long sh_flags;
 	public long sh_addr;
 	public long sh_offset;
 	public long sh_size;
 	public int sh_link;
 	public int sh_info;
-	public int sh_addralign;
+	public long sh_addralign;
 	public long sh_entsize;
 
 	public Elf32_Shdr() {
@@ -40,6 +41,20 @@ public class Elf32_Shdr {
 		sh_entsize = DwarfLib.readWord(f);
 	}
 
+	public void read(int number, ByteBuffer buffer) {
+		this.number = number;
+		sh_name = buffer.getInt() & 0xffffffffL;
+		sh_type = buffer.getInt();
+		sh_flags = buffer.getInt() & 0xffffffffL;
+		sh_addr = buffer.getInt() & 0xffffffffL;
+		sh_offset = buffer.getInt() & 0xffffffffL;
+		sh_size = buffer.getInt() & 0xffffffffL;
+		sh_link = buffer.getInt();
+		sh_info = buffer.getInt();
+		sh_addralign = buffer.getInt() & 0xffffffffL;
+		sh_entsize = buffer.getInt() & 0xffffffffL;
+	}
+
 	public String toString() {
 		// StringBuffer str = new StringBuffer(super.toString());
 		StringBuffer str = new StringBuffer();
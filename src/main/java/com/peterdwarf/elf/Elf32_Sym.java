@@ -1,14 +1,29 @@
 package com.peterdwarf.elf;
 
+import java.nio.ByteBuffer;
+
 public class Elf32_Sym implements Comparable<Elf32_Sym> {
 	public int st_name;
-	public int st_value;
-	public int st_size;
+	public long st_value;
+	public long st_size;
 	public byte st_info;
 	public byte st_other;
 	public short st_shndx;
 	public String name;
 
+	public static int sizeof() {
+		return 16;
+	}
+
+	public void read(ByteBuffer buffer) {
+		st_name = buffer.getInt();
+		st_value = buffer.getInt() & 0xffffffffL;
+		st_size = buffer.getInt() & 0xffffffffL;
+		st_info = buffer.get();
+		st_other = buffer.get();
+		st_shndx = buffer.getShort();
+	}
+
 	@Override
 	public int compareTo(Elf32_Sym o) {
 		if (st_value == o.st_value) {
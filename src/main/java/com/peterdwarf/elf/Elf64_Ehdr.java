@@ -2,39 +2,23 @@ package com.peterdwarf.elf;
 
 import java.io.IOException;
 import java.io.RandomAccessFile;
-import java.math.BigInteger;
+import java.nio.ByteBuffer;
 
 import com.peterdwarf.dwarf.DwarfLib;
 
-public class Elf64_Ehdr implements Elf_Ehdr {
-	public static final int EI_NIDENT = 16;
-
-	public final byte[] e_ident = new byte[EI_NIDENT];/* Magic number and other info. */
-	public int e_type; /* Object file type. */
-	public int e_machine; /* Architecture type. */
-	public int e_version; /* Object file version. */
-	public BigInteger e_entry; /* Entry point virtual address. */
-	public BigInteger e_phoff; /* Program header table file offset. */
-	public BigInteger e_shoff; /* Section header table file offset. */
-	public int e_flags; /* Processor-specific flags. */
-	public int e_ehsize; /* ELF header size in bytes. */
-	public int e_phentsize; /* Program header table entry size. */
-	public int e_phentnum; /* Program header table entry count. */
-	public int e_shentsize; /* Section header table entry size. */
-	public int e_shnum; /* Section header table entry count. */
-	public int e_shstrndx; /* Section header string table index. */
-
+public class Elf64_Ehdr extends Elf32_Ehdr implements Elf_Ehdr {
 	public Elf64_Ehdr() {
 	}
 
+	@Override
 	public void read(RandomAccessFile f) throws IOException {
 		f.readFully(e_ident);
 		e_type = DwarfLib.readUHalf(f);
 		e_machine = DwarfLib.readUHalf(f);
 		e_version = DwarfLib.readWord(f);
-		e_entry = DwarfLib.readU64Bits(f);
-		e_phoff = DwarfLib.readU64Bits(f);
-		e_shoff = DwarfLib.readU64Bits(f);
+		e_entry = DwarfLib.readU64(f);
+		e_phoff = DwarfLib.readU64(f);
+		e_shoff = DwarfLib.readU64(f);
 		e_flags = DwarfLib.readWord(f);
 		e_ehsize = DwarfLib.readUHalf(f);
 		e_phentsize = DwarfLib.readUHalf(f);
@@ -44,8 +28,26 @@ public class Elf64_Ehdr implements Elf_Ehdr {
 		e_shstrndx = DwarfLib.readUHalf(f);
 	}
 
+	@Override
+	public void read(ByteBuffer buffer) {
+		buffer.get(e_ident);
+		e_type = buffer.getShort() & 0xffff;
+		e_machine = buffer.getShort() & 0xffff;
+		e_version = buffer.getInt();
+		e_entry = buffer.getLong();
+		e_phoff = buffer.getLong();
+		e_shoff = buffer.getLong();
+		e_flags = buffer.getInt();
+		e_ehsize = buffer.getShort() & 0xffff;
+		e_phentsize = buffer.getShort() & 0xffff;
+		e_phentnum = buffer.getShort() & 0xffff;
+		e_shentsize = buffer.getShort() & 0xffff;
+		e_shnum = buffer.getShort() & 0xffff;
+		e_shstrndx = buffer.getShort() & 0xffff;
+	}
+
 	public String toString() {
-		java.lang.StringBuffer str = new java.lang.StringBuffer(super.toString());
+		java.lang.StringBuffer str = new java.lang.StringBuffer();
 		str.append(" [ e_ident: ");
 		for (int i = 0; i < EI_NIDENT; i++) {
 			if (e_ident[i] < 0x10 && e_ident[i] >= 0)
@@ -55,9 +57,9 @@ public class Elf64_Ehdr implements Elf_Ehdr {
 		str.append("; e_type: ").append(e_type & 0xFFFF);
 		str.append("; e_machine: ").append(e_machine & 0xFFFF);
 		str.append("; e_version: ").append(e_version & 0xFFFF);
-		str.append("; e_entry: 0x").append("0x" + e_entry.toString(16));
-		str.append("; e_phoff: ").append("0x" + e_phoff.toString(16));
-		str.append("; e_shoff: ").append("0x" + e_shoff.toString(16));
+		str.append("; e_entry: 0x").append(Long.toHexString(e_entry));
+		str.append("; e_phoff: 0x").append(Long.toHexString(e_phoff));
+		str.append("; e_shoff: 0x").append(Long.toHexString(e_shoff));
 		str.append("; e_flags: 0x").append(Integer.toHexString(e_flags));
 		str.append("; e_ehsize: ").append(e_ehsize & 0xFFFF);
 		str.append("; e_phentsize: ").append(e_phentsize & 0xFFFF);
@@ -68,12 +70,4 @@ public class Elf64_Ehdr implements Elf_Ehdr {
 		str.append(" ]");
 		return str.toString();
 	}
-
-	public boolean is32Bits() {
-		return e_ident[4] == 1;
-	}
-
-	public boolean is64Bits() {
-		return e_ident[4] == 2;
-	}
 }
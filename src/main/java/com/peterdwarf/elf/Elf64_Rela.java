@@ -0,0 +1,31 @@
+package com.peterdwarf.elf;
+
+import java.nio.ByteBuffer;
+
+public class Elf64_Rela {
+	public long r_offset;
+	public long r_info;
+	public long r_addend;
+
+	public static int sizeof() {
+		return 24;
+	}
+
+	/**
+	 * Reads one entry. SHT_REL entries have no addend field, the addend is
+	 * then taken from the relocated location by the caller.
+	 */
+	public void read(ByteBuffer buffer, boolean hasAddend) {
+		r_offset = buffer.getLong();
+		r_info = buffer.getLong();
+		r_addend = hasAddend ? buffer.getLong() : 0;
+	}
+
+	public int getSymbol() {
+		return Elf_Common.ELF64_R_SYM(r_info);
+	}
+
+	public int getType() {
+		return Elf_Common.ELF64_R_TYPE(r_info);
+	}
+}
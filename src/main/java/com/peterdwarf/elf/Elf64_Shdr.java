@@ -0,0 +1,43 @@
+package com.peterdwarf.elf;
+
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+
+import com.peterdwarf.dwarf.DwarfLib;
+
+public class Elf64_Shdr extends Elf32_Shdr {
+	public static int sizeof() {
+		return 64;
+	}
+
+	@Override
+	public void read(int number, RandomAccessFile f) throws IOException {
+		this.number = number;
+		sh_name = DwarfLib.readUWord(f);
+		sh_type = DwarfLib.readWord(f);
+		sh_flags = DwarfLib.readU64(f);
+		sh_addr = DwarfLib.readU64(f);
+		sh_offset = DwarfLib.readU64(f);
+		sh_size = DwarfLib.readU64(f);
+		sh_link = DwarfLib.readWord(f);
+		sh_info = DwarfLib.readWord(f);
+		sh_addralign = DwarfLib.readU64(f);
+		sh_entsize = DwarfLib.readU64(f);
+	}
+
+	@Override
+	public void read(int number, ByteBuffer buffer) {
+		this.number = number;
+		sh_name = buffer.getInt() & 0xffffffffL;
+		sh_type = buffer.getInt();
+		sh_flags = buffer.getLong();
+		sh_addr = buffer.getLong();
+		sh_offset = buffer.getLong();
+		sh_size = buffer.getLong();
+		sh_link = buffer.getInt();
+		sh_info = buffer.getInt();
+		sh_addralign = buffer.getLong();
+		sh_entsize = buffer.getLong();
+	}
+}
@@ -0,0 +1,19 @@
+package com.peterdwarf.elf;
+
+import java.nio.ByteBuffer;
+
+public class Elf64_Sym extends Elf32_Sym {
+	public static int sizeof() {
+		return 24;
+	}
+
+	@Override
+	public void read(ByteBuffer buffer) {
+		st_name = buffer.getInt();
+		st_info = buffer.get();
+		st_other = buffer.get();
+		st_shndx = buffer.getShort();
+		st_value = buffer.getLong();
+		st_size = buffer.getLong();
+	}
+}
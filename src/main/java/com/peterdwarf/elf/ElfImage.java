@@ -0,0 +1,101 @@
+package com.peterdwarf.elf;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.FileChannel;
+import java.util.HashMap;
+
+/**
+ * An ELF file whose sections are mapped into memory, each on its own the
+ * first time it is asked for. Sections are handed out as read-only slices
+ * of their mapping, so parsers read straight from the page cache instead of
+ * copying every section onto the heap. Mapping by section rather than the
+ * whole file opens files of any size as long as each section is under
+ * 2 GB.
+ */
+public class ElfImage {
+	public File file;
+	public SectionTable sectionTable;
+	private long length;
+	// mappings by section index
+	private HashMap<Integer, ByteBuffer> mappings = new HashMap<Integer, ByteBuffer>();
+
+	public ElfImage(File file) throws IOException {
+		this.file = file;
+		this.length = file.length();
+		sectionTable = SectionTable.read(file);
+	}
+
+	public Elf32_Shdr getSectionHeader(String sectionName) {
+		return sectionTable.get(sectionName);
+	}
+
+	public ByteBuffer getSection(String sectionName) {
+		Elf32_Shdr shdr = getSectionHeader(sectionName);
+		if (shdr == null) {
+			System.err.println("no section " + sectionName + " found in " + file);
+			return null;
+		}
+		return getSection(shdr, false);
+	}
+
+	/**
+	 * Returns the bytes of a section. The buffer is a read-only view into the
+	 * mapping unless writable is set, in which case the section is copied to
+	 * the heap; relocatable objects need that because relocations are applied
+	 * in place. Null if shdr is null.
+	 */
+	public ByteBuffer getSection(Elf32_Shdr shdr, boolean writable) {
+		if (shdr == null) {
+			return null;
+		}
+		if (shdr.sh_type == Elf_Common.SHT_NOBITS) {
+			return ByteBuffer.allocate(0).order(ByteOrder.nativeOrder());
+		}
+		if (shdr.sh_offset + shdr.sh_size > length) {
+			System.err.println("section " + shdr.section_name + " extends past end of " + file);
+			return null;
+		}
+		if (shdr.sh_size > Integer.MAX_VALUE) {
+			System.err.println("section " + shdr.section_name + " too large to map, size=" + shdr.sh_size);
+			return null;
+		}
+		ByteBuffer mapping = map(shdr);
+		if (mapping == null) {
+			return null;
+		}
+		ByteBuffer slice = mapping.duplicate();
+		if (writable) {
+			ByteBuffer copy = ByteBuffer.allocate(slice.remaining());
+			copy.put(slice);
+			copy.flip();
+			slice = copy;
+		}
+		slice.order(ByteOrder.nativeOrder());
+		return slice;
+	}
+
+	private synchronized ByteBuffer map(Elf32_Shdr shdr) {
+		ByteBuffer mapping = mappings.get(shdr.number);
+		if (mapping != null) {
+			return mapping;
+		}
+		try {
+			RandomAccessFile f = new RandomAccessFile(file, "r");
+			try {
+				// the mapping stays valid after the channel is closed
+				mapping = f.getChannel().map(FileChannel.MapMode.READ_ONLY, shdr.sh_offset, shdr.sh_size);
+			} finally {
+				f.close();
+			}
+		} catch (IOException ex) {
+			System.err.println("cannot map section " + shdr.section_name + " of " + file + ": " + ex.getMessage());
+			return null;
+		}
+		mappings.put(shdr.number, mapping);
+		return mapping;
+	}
+}
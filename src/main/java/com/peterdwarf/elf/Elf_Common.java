@@ -160,6 +160,20 @@ public class Elf_Common {
 		return (s << 8) + (t & 0xff);
 	}
 
+	public static int ELF64_R_SYM(long i) {
+		return (int) (i >>> 32);
+	}
+
+	public static int ELF64_R_TYPE(long i) {
+		return (int) (i & 0xffffffffL);
+	}
+
+	public static int R_X86_64_NONE = 0; /* No reloc */
+	public static int R_X86_64_64 = 1; /* Direct 64 bit  */
+	public static int R_X86_64_PC32 = 2; /* PC relative 32 bit signed */
+	public static int R_X86_64_32 = 10; /* Direct 32 bit zero extended */
+	public static int R_X86_64_32S = 11; /* Direct 32 bit sign extended */
+
 	public static int STT_NOTYPE = 0;
 	public static int STT_OBJECT = 1;
 	public static int STT_FUNC = 2;
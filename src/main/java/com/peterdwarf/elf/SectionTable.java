@@ -0,0 +1,176 @@
+package com.peterdwarf.elf;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.util.HashMap;
+import java.util.Vector;
+
+import com.peterdwarf.dwarf.DwarfLib;
+
+/**
+ * The section header table of one ELF file, parsed once. Sections can be
+ * looked up by name, index or type without touching the file again.
+ */
+public class SectionTable {
+	private static final byte ELFMAG0 = 0x7f;
+	private static final byte ELFMAG1 = (byte) 'E';
+	private static final byte ELFMAG2 = (byte) 'L';
+	private static final byte ELFMAG3 = (byte) 'F';
+
+	public Elf32_Ehdr ehdr;
+	public Vector<Elf32_Shdr> sections = new Vector<Elf32_Shdr>();
+	private HashMap<String, Elf32_Shdr> sectionsByName = new HashMap<String, Elf32_Shdr>();
+	private HashMap<Integer, Vector<Elf32_Shdr>> sectionsByType = new HashMap<Integer, Vector<Elf32_Shdr>>();
+	private HashMap<Integer, Elf32_Shdr> relocationSectionsByTarget = new HashMap<Integer, Elf32_Shdr>();
+
+	/**
+	 * Builds the table from a whole file image in memory. ElfImage uses
+	 * read() instead, so files over 2 GB need no image.
+	 */
+	public SectionTable(File file, ByteBuffer image) throws IOException {
+		ByteBuffer buffer = image.duplicate();
+		buffer.order(ByteOrder.nativeOrder());
+		ehdr = readEhdr(file, buffer);
+
+		long tableSize = (long) ehdr.e_shnum * ehdr.e_shentsize;
+		if (ehdr.e_shoff + tableSize > image.capacity()) {
+			throw new IOException(file + ": section header table extends past end of file");
+		}
+		buffer.limit((int) (ehdr.e_shoff + tableSize));
+		buffer.position((int) ehdr.e_shoff);
+		ByteBuffer headerTable = buffer.slice().order(ByteOrder.nativeOrder());
+
+		Elf32_Shdr[] headers = readHeaders(headerTable);
+		ByteBuffer shstrtab = null;
+		if (ehdr.e_shstrndx < headers.length) {
+			Elf32_Shdr strtabhdr = headers[ehdr.e_shstrndx];
+			if (strtabhdr.sh_offset + strtabhdr.sh_size > image.capacity()) {
+				throw new IOException(file + ": section name table extends past end of file");
+			}
+			buffer.limit((int) (strtabhdr.sh_offset + strtabhdr.sh_size));
+			buffer.position((int) strtabhdr.sh_offset);
+			shstrtab = buffer.slice();
+		}
+		index(headers, shstrtab);
+	}
+
+	/**
+	 * Reads the table with three reads: the ELF header, the whole section
+	 * header table and the section name string table.
+	 */
+	public static SectionTable read(File file) throws IOException {
+		RandomAccessFile f = new RandomAccessFile(file, "r");
+		try {
+			byte header[] = new byte[(int) Math.min(64, f.length())];
+			f.readFully(header);
+			ByteBuffer headerBuffer = ByteBuffer.wrap(header).order(ByteOrder.nativeOrder());
+			SectionTable table = new SectionTable();
+			table.ehdr = readEhdr(file, headerBuffer);
+
+			byte headerTable[] = new byte[table.ehdr.e_shnum * table.ehdr.e_shentsize];
+			f.seek(table.ehdr.e_shoff);
+			f.readFully(headerTable);
+			Elf32_Shdr[] headers = table.readHeaders(ByteBuffer.wrap(headerTable).order(ByteOrder.nativeOrder()));
+
+			ByteBuffer shstrtab = null;
+			if (table.ehdr.e_shstrndx < headers.length) {
+				Elf32_Shdr strtabhdr = headers[table.ehdr.e_shstrndx];
+				byte names[] = new byte[(int) strtabhdr.sh_size];
+				f.seek(strtabhdr.sh_offset);
+				f.readFully(names);
+				shstrtab = ByteBuffer.wrap(names);
+			}
+			table.index(headers, shstrtab);
+			return table;
+		} finally {
+			f.close();
+		}
+	}
+
+	private SectionTable() {
+	}
+
+	private static Elf32_Ehdr readEhdr(File file, ByteBuffer buffer) throws IOException {
+		if (buffer.remaining() < Elf32_Ehdr.EI_NIDENT || buffer.get(0) != ELFMAG0 || buffer.get(1) != ELFMAG1 || buffer.get(2) != ELFMAG2 || buffer.get(3) != ELFMAG3) {
+			throw new IOException(file + ": not an ELF file");
+		}
+		Elf32_Ehdr ehdr = buffer.get(4) == 2 ? new Elf64_Ehdr() : new Elf32_Ehdr();
+		ehdr.read(buffer);
+		return ehdr;
+	}
+
+	private Elf32_Shdr[] readHeaders(ByteBuffer headerTable) {
+		Elf32_Shdr headers[] = new Elf32_Shdr[ehdr.e_shnum];
+		for (int i = 0; i < headers.length; i++) {
+			headerTable.position(i * ehdr.e_shentsize);
+			headers[i] = ehdr.is64Bits() ? new Elf64_Shdr() : new Elf32_Shdr();
+			headers[i].read(i, headerTable);
+		}
+		return headers;
+	}
+
+	private void index(Elf32_Shdr[] headers, ByteBuffer shstrtab) {
+		for (Elf32_Shdr shdr : headers) {
+			shdr.section_name = shstrtab == null ? "" : getName(shstrtab, (int) shdr.sh_name);
+			sections.add(shdr);
+			// the first section with a given name wins, like a linear search would
+			if (!sectionsByName.containsKey(shdr.section_name)) {
+				sectionsByName.put(shdr.section_name, shdr);
+			}
+			Vector<Elf32_Shdr> sameType = sectionsByType.get(shdr.sh_type);
+			if (sameType == null) {
+				sameType = new Vector<Elf32_Shdr>();
+				sectionsByType.put(shdr.sh_type, sameType);
+			}
+			sameType.add(shdr);
+			if ((shdr.sh_type == Elf_Common.SHT_RELA || shdr.sh_type == Elf_Common.SHT_REL) && !relocationSectionsByTarget.containsKey(shdr.sh_info)) {
+				relocationSectionsByTarget.put(shdr.sh_info, shdr);
+			}
+		}
+	}
+
+	private static String getName(ByteBuffer shstrtab, int offset) {
+		String name = DwarfLib.getString(shstrtab, offset);
+		return name == null ? "" : name;
+	}
+
+	public Elf32_Shdr get(String sectionName) {
+		return sectionsByName.get(sectionName);
+	}
+
+	public Elf32_Shdr get(int index) {
+		if (index < 0 || index >= sections.size()) {
+			return null;
+		}
+		return sections.get(index);
+	}
+
+	public Vector<Elf32_Shdr> getByType(int type) {
+		Vector<Elf32_Shdr> sameType = sectionsByType.get(type);
+		if (sameType == null) {
+			return new Vector<Elf32_Shdr>();
+		}
+		return sameType;
+	}
+
+	public Vector<Elf32_Shdr> getRelocationSections() {
+		Vector<Elf32_Shdr> relocationSections = new Vector<Elf32_Shdr>();
+		for (Elf32_Shdr s : sections) {
+			if (s.sh_type == Elf_Common.SHT_RELA || s.sh_type == Elf_Common.SHT_REL) {
+				relocationSections.add(s);
+			}
+		}
+		return relocationSections;
+	}
+
+	/**
+	 * Returns the relocation section whose sh_info points at the given
+	 * section index.
+	 */
+	public Elf32_Shdr getRelocationSection(int targetIndex) {
+		return relocationSectionsByTarget.get(targetIndex);
+	}
+}
@@ -4,6 +4,7 @@ import java.io.File;
 import java.util.Collections;
 import java.util.Comparator;
 import java.util.Enumeration;
+import java.util.Hashtable;
 import java.util.LinkedHashMap;
 import java.util.Vector;
 import java.util.concurrent.ExecutorService;
@@ -269,56 +270,59 @@ public class PeterDwarfPanel extends JPanel {
 										compileUnitNode, compileUnit);
 								compileUnitNode.children.add(compileUnitSubnode);
 
-								// init headers
-								final DwarfTreeNode headNode = new DwarfTreeNode("header", compileUnitSubnode, null);
-								compileUnitSubnode.children.add(headNode);
-
-								DwarfDebugLineHeader header = compileUnit.dwarfDebugLineHeader;
-								DwarfTreeNode headerSubnode = new DwarfTreeNode(header.toString(), headNode, header);
-								String str = "<html><table>";
-								str += "<tr><td>offset</td><td>:</td><td>0x" + Long.toHexString(header.offset) + "</td></tr>";
-								str += "<tr><td>total length</td><td>:</td><td>" + header.total_length + "</td></tr>";
-								str += "<tr><td>DWARF Version</td><td>:</td><td>" + header.version + "</td></tr>";
-								str += "<tr><td>Prologue Length</td><td>:</td><td>" + header.prologue_length + "</td></tr>";
-								str += "<tr><td>Minimum Instruction Length</td><td>:</td><td>" + header.minimum_instruction_length + "</td></tr>";
-								str += "<tr><td>Initial value of 'is_stmt'</td><td>:</td><td>" + (header.default_is_stmt ? 1 : 0) + "</td></tr>";
-								str += "<tr><td>Line Base</td><td>:</td><td>" + header.line_base + "</td></tr>";
-								str += "<tr><td>Line Range</td><td>:</td><td>" + header.line_range + "</td></tr>";
-								str += "<tr><td>Opcode Base</td><td>:</td><td>" + header.opcode_base + "</td></tr>";
-								str += "</table></html>";
-								headerSubnode.tooltip = str;
-								headNode.children.add(headerSubnode);
-
-								DwarfTreeNode dirnamesNode = new DwarfTreeNode("dir name", headerSubnode, null);
-								headerSubnode.children.add(dirnamesNode);
-								for (String dir : header.dirnames) {
-									dirnamesNode.children.add(new DwarfTreeNode(dir, dirnamesNode, null));
-								}
+								// init headers, units without DW_AT_stmt_list have no line program
+								DwarfDebugLineHeader header = compileUnit.getDwarfDebugLineHeader();
+								if (header != null) {
+									final DwarfTreeNode headNode = new DwarfTreeNode("header", compileUnitSubnode, null);
+									compileUnitSubnode.children.add(headNode);
+
+									DwarfTreeNode headerSubnode = new DwarfTreeNode(header.toString(), headNode, header);
+									String str = "<html><table>";
+									str += "<tr><td>offset</td><td>:</td><td>0x" + Long.toHexString(header.offset) + "</td></tr>";
+									str += "<tr><td>total length</td><td>:</td><td>" + header.total_length + "</td></tr>";
+									str += "<tr><td>DWARF Version</td><td>:</td><td>" + header.version + "</td></tr>";
+									str += "<tr><td>Prologue Length</td><td>:</td><td>" + header.prologue_length + "</td></tr>";
+									str += "<tr><td>Minimum Instruction Length</td><td>:</td><td>" + header.minimum_instruction_length + "</td></tr>";
+									str += "<tr><td>Initial value of 'is_stmt'</td><td>:</td><td>" + (header.default_is_stmt ? 1 : 0) + "</td></tr>";
+									str += "<tr><td>Line Base</td><td>:</td><td>" + header.line_base + "</td></tr>";
+									str += "<tr><td>Line Range</td><td>:</td><td>" + header.line_range + "</td></tr>";
+									str += "<tr><td>Opcode Base</td><td>:</td><td>" + header.opcode_base + "</td></tr>";
+									str += "</table></html>";
+									headerSubnode.tooltip = str;
+									headNode.children.add(headerSubnode);
+
+									DwarfTreeNode dirnamesNode = new DwarfTreeNode("dir name", headerSubnode, null);
+									headerSubnode.children.add(dirnamesNode);
+									for (String dir : header.dirnames) {
+										dirnamesNode.children.add(new DwarfTreeNode(dir, dirnamesNode, null));
+									}
 
-								DwarfTreeNode filenamesNode = new DwarfTreeNode("file name", headerSubnode, null);
-								headerSubnode.children.add(filenamesNode);
-								for (DwarfHeaderFilename filename : header.filenames) {
-									filenamesNode.children.add(new DwarfTreeNode(filename.file.getAbsolutePath(), filenamesNode, null));
-								}
+									DwarfTreeNode filenamesNode = new DwarfTreeNode("file name", headerSubnode, null);
+									headerSubnode.children.add(filenamesNode);
+									for (DwarfHeaderFilename filename : header.filenames) {
+										filenamesNode.children.add(new DwarfTreeNode(filename.getPath(), filenamesNode, null));
+									}
 
-								DwarfTreeNode lineInfoNode = new DwarfTreeNode("line info", headerSubnode, null);
-								headerSubnode.children.add(lineInfoNode);
-								for (DwarfLine line : header.lines) {
-									DwarfTreeNode lineSubnode = new DwarfTreeNode("file_num=" + line.file_num + ", line_num:" + line.line_num + ", column_num=" + line.column_num
-											+ ", address=0x" + line.address.toString(16), lineInfoNode, line);
-									lineInfoNode.children.add(lineSubnode);
+									DwarfTreeNode lineInfoNode = new DwarfTreeNode("line info", headerSubnode, null);
+									headerSubnode.children.add(lineInfoNode);
+									for (DwarfLine line : header.getLines()) {
+										DwarfTreeNode lineSubnode = new DwarfTreeNode("file_num=" + line.file_num + ", line_num:" + line.line_num + ", column_num=" + line.column_num
+												+ ", address=0x" + Long.toHexString(line.address), lineInfoNode, line);
+										lineInfoNode.children.add(lineSubnode);
+									}
 								}
 								// end init headers
 
-								for (final DebugInfoEntry debugInfoEntry : compileUnit.debugInfoEntries) {
+								for (final DebugInfoEntry debugInfoEntry : compileUnit.getDebugInfoEntries()) {
 									final DwarfTreeNode compileUnitDebugInfoNode = new DwarfTreeNode(debugInfoEntry.toString(), compileUnitSubnode, debugInfoEntry);
 									compileUnitSubnode.children.add(compileUnitDebugInfoNode);
 
-									Enumeration<String> e = debugInfoEntry.debugInfoAbbrevEntries.keys();
+									Hashtable<String, DebugInfoAbbrevEntry> debugInfoAbbrevEntries = debugInfoEntry.getDebugInfoAbbrevEntries();
+									Enumeration<String> e = debugInfoAbbrevEntries.keys();
 									while (e.hasMoreElements()) {
 										String key = e.nextElement();
-										DwarfTreeNode compileUnitDebugInfoAbbrevEntrySubnode = new DwarfTreeNode(debugInfoEntry.debugInfoAbbrevEntries.get(key).toString(),
-												compileUnitDebugInfoNode, debugInfoEntry.debugInfoAbbrevEntries.get(key));
+										DwarfTreeNode compileUnitDebugInfoAbbrevEntrySubnode = new DwarfTreeNode(debugInfoAbbrevEntries.get(key).toString(),
+												compileUnitDebugInfoNode, debugInfoAbbrevEntries.get(key));
 										compileUnitDebugInfoNode.children.add(compileUnitDebugInfoAbbrevEntrySubnode);
 									}
 
@@ -450,7 +454,7 @@ public class PeterDwarfPanel extends JPanel {
 					node.children.add(debugLocTreeNode);
 
 					pool = Executors.newFixedThreadPool(maxPoolSize);
-					for (final DebugLocEntry debugLocEntry : dwarf.debugLocEntries) {
+					for (final DebugLocEntry debugLocEntry : dwarf.getDebugLocEntries()) {
 						pool.execute(new Runnable() {
 							public void run() {
 								if (showDialog) {
@@ -510,29 +514,30 @@ public class PeterDwarfPanel extends JPanel {
 		if (showDialog) {
 			dialog.progressBar.setString("Loading debug info : cu, " + compileUnit.offset + ", " + new File(compileUnit.DW_AT_name).getName());
 		}
-		if (debugInfoEntry.debugInfoEntries.size() == 0) {
+		Vector<DebugInfoEntry> debugInfoEntries = debugInfoEntry.getDebugInfoEntries();
+		if (debugInfoEntries.size() == 0) {
 			return;
 		}
 
-		for (final DebugInfoEntry d : debugInfoEntry.debugInfoEntries) {
+		for (final DebugInfoEntry d : debugInfoEntries) {
 			final DwarfTreeNode subNode = new DwarfTreeNode(d.toString(), node, d);
 			node.children.add(subNode);
 
-			Enumeration<String> e = d.debugInfoAbbrevEntries.keys();
+			Hashtable<String, DebugInfoAbbrevEntry> debugInfoAbbrevEntries = d.getDebugInfoAbbrevEntries();
+			Enumeration<String> e = debugInfoAbbrevEntries.keys();
 			while (e.hasMoreElements()) {
 				String key = e.nextElement();
 				DwarfTreeNode compileUnitDebugInfoAbbrevEntrySubnode;
 
-				DebugInfoAbbrevEntry debugInfoAbbrevEntry = d.debugInfoAbbrevEntries.get(key);
+				DebugInfoAbbrevEntry debugInfoAbbrevEntry = debugInfoAbbrevEntries.get(key);
 				//fuck System.out.println(Integer.toHexString(debugInfoAbbrevEntry.position) + " = " + debugInfoAbbrevEntry.name);
 				if (debugInfoAbbrevEntry.name.equals("DW_AT_decl_file")) {
 					compileUnitDebugInfoAbbrevEntrySubnode = new DwarfTreeNode(
 							debugInfoAbbrevEntry.toString() + ", "
-							+ compileUnit.dwarfDebugLineHeader.filenames.get(Integer.parseInt(debugInfoAbbrevEntry.value.toString()) - 1).file.getAbsolutePath(),
+							+ compileUnit.getDwarfDebugLineHeader().filenames.get((int) d.getUnsigned(Definition.DW_AT_decl_file) - 1).getPath(),
 							subNode, debugInfoAbbrevEntry);
 				} else if (debugInfoAbbrevEntry.name.equals("DW_AT_type")) {
-					int value = CommonLib.string2int("0x" + debugInfoAbbrevEntry.value.toString());
-					String type = DwarfLib.getParameterType(compileUnit, value);
+					String type = DwarfLib.getParameterType(d.getReferencedEntry(Definition.DW_AT_type));
 					if (type == null) {
 						compileUnitDebugInfoAbbrevEntrySubnode = new DwarfTreeNode(debugInfoAbbrevEntry.toString(), subNode, debugInfoAbbrevEntry);
 					} else {